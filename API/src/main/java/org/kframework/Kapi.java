@@ -116,7 +116,7 @@ public class Kapi {
 
         /* TODO: figure out if it is needed
         program = new KTokenVariablesToTrueVariables()
-                .apply(compiledDef.kompiledDefinition.getModule(compiledDef.mainSyntaxModuleName()).get(), program);
+                .apply(compiledDef.getKompiledDefinition().getModule(compiledDef.mainSyntaxModuleName()).get(), program);
         */
 
         return program;
@@ -42,13 +42,13 @@ public class BuiltinListOperations {
             try {
                 BuiltinList builtinList = (BuiltinList) list;
                 if (index.intValue() >= 0) {
-                    if (IntStream.range(0, index.intValue()).allMatch(builtinList::isElement)) {
+                    if (builtinList.isGround() || IntStream.range(0, index.intValue()).allMatch(builtinList::isElement)) {
                         return builtinList.get(index.intValue());
                     } else {
                         return null;
                     }
                 } else {
-                    if (IntStream.range(builtinList.size() + index.intValue() + 1, builtinList.size()).allMatch(builtinList::isElement)) {
+                    if (builtinList.isGround() || IntStream.range(builtinList.size() + index.intValue() + 1, builtinList.size()).allMatch(builtinList::isElement)) {
                         return builtinList.get(builtinList.size() + index.intValue());
                     } else {
                         return null;
@@ -112,10 +112,11 @@ public class BuiltinListOperations {
             try {
                 BuiltinList builtinList = (BuiltinList) list;
 
-                int toRemoveFromLeft = IntStream.range(0, removeLeft)
+                // the children of a ground list are all elements
+                int toRemoveFromLeft = builtinList.isGround() ? removeLeft : IntStream.range(0, removeLeft)
                         .filter(i -> !builtinList.isElement(i))
                         .findFirst().orElse(removeLeft);
-                int toRemoveFromRight = IntStream.range(0, removeRight)
+                int toRemoveFromRight = builtinList.isGround() ? removeRight : IntStream.range(0, removeRight)
                         .filter(i -> !builtinList.isElement(builtinList.size() - 1 - i))
                         .findFirst().orElse(removeRight);
 
@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableList;
 import org.kframework.backend.java.symbolic.Transformer;
 import org.kframework.backend.java.symbolic.Visitor;
 import org.kframework.backend.java.util.Constants;
+import org.kframework.backend.java.util.PersistentVector;
 import org.kframework.builtin.KLabels;
 import org.kframework.kil.ASTNode;
 import org.kframework.utils.BitSet;
@@ -15,25 +16,31 @@ import java.util.stream.Collectors;
 
 /**
  * Class representing an associative list.
+ * <p>
+ * The children are kept in a {@link PersistentVector}, so appending, taking a range, or replacing a child of a
+ * list shares the rest of its children instead of copying them.
  */
 public class BuiltinList extends Collection implements CollectionInternalRepresentation, HasGlobalContext {
 
     /**
      * Flattened list of children.
      */
-    public final ImmutableList<Term> children;
+    public final PersistentVector<Term> children;
     public final Sort sort;
     public final KLabelConstant operatorKLabel;
     public final KLabelConstant unitKLabel;
     private final GlobalContext global;
 
-    private final ElementTailSplit elementTailSplits[];
+    /**
+     * Allocated on the first call to {@link #splitElementTail}, since only the lists in rule patterns are split.
+     */
+    private ElementTailSplit elementTailSplits[];
 
     /**
      * Private constructor used by {@link BuiltinList.Builder}.
      */
     private BuiltinList(
-            ImmutableList<Term> children,
+            PersistentVector<Term> children,
             Sort sort,
             KLabelConstant operatorKLabel,
             KLabelConstant unitKLabel,
@@ -44,8 +51,6 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
         this.operatorKLabel = operatorKLabel;
         this.unitKLabel = unitKLabel;
         this.global = global;
-
-        elementTailSplits = new ElementTailSplit[children.size()];
     }
 
     /**
@@ -77,6 +82,11 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
      * Returns the element component and the tail component of the list child on position index.
      */
     public ElementTailSplit splitElementTail(int index, int bitSetLength) {
+        ElementTailSplit[] elementTailSplits = this.elementTailSplits;
+        if (elementTailSplits == null) {
+            elementTailSplits = new ElementTailSplit[children.size()];
+            this.elementTailSplits = elementTailSplits;
+        }
         if (elementTailSplits[index] == null) {
             BitSet emptyListMask = BitSet.apply(bitSetLength);
             emptyListMask.makeOnes(bitSetLength);
@@ -165,7 +175,7 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
 
     public Term range(int beginIndex, int endIndex) {
         return BuiltinList.builder(sort, operatorKLabel, unitKLabel, global)
-                .addAll(children.subList(beginIndex, endIndex))
+                .addChildren(children.slice(beginIndex, endIndex))
                 .build();
     }
 
@@ -289,7 +299,7 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
 
     public static class Builder {
 
-        private final ImmutableList.Builder<Term> childrenBuilder = new ImmutableList.Builder<>();
+        private final PersistentVector.Builder<Term> childrenBuilder = new PersistentVector.Builder<>();
         private final Sort sort;
         private final KLabelConstant operatorKLabel;
         private final KLabelConstant unitKLabel;
@@ -306,7 +316,7 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
             if (term instanceof BuiltinList && sort.equals(term.sort())
                     && operatorKLabel.equals(((BuiltinList) term).operatorKLabel)
                     && unitKLabel.equals(((BuiltinList) term).unitKLabel)) {
-                return addAll(((BuiltinList) term).children);
+                return addChildren(((BuiltinList) term).children);
             } else {
                 //assert global.getDefinition().subsorts().isSubsortedEq(sort, term.sort()) :
                 //        "unexpected term: " + term + " of sort " + term.sort() + " added to list of sort " + sort;
@@ -315,6 +325,14 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
             }
         }
 
+        /**
+         * Appends the children of a list built with the same operator, which are already flattened.
+         */
+        private Builder addChildren(PersistentVector<Term> children) {
+            childrenBuilder.addAll(children);
+            return this;
+        }
+
         public Builder addAll(List<Term> terms) {
             terms.forEach(this::add);
             return this;
@@ -353,7 +371,7 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
      */
     public static class SingletonBuiltinList extends BuiltinList {
         private SingletonBuiltinList(Term child, GlobalContext global, Sort sort, KLabelConstant operatorKLabel, KLabelConstant unitKLabel) {
-            super(ImmutableList.of(child), sort, operatorKLabel, unitKLabel, global);
+            super(PersistentVector.of(child), sort, operatorKLabel, unitKLabel, global);
         }
     }
 
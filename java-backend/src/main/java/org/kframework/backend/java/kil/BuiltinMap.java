@@ -11,38 +11,50 @@ import org.kframework.utils.errorsystem.KEMException;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import org.apache.commons.collections4.map.UnmodifiableMap;
-
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Lists;
+import scala.Option;
+import scala.collection.JavaConversions;
+import scala.collection.immutable.HashMap;
 
 
 /**
  * Class representing a map.
+ * <p>
+ * The entries are kept in a persistent hash array mapped trie, so a map updated with a few entries shares
+ * most of its structure with the original one, and updating, removing or looking up an entry takes
+ * O(log n) time instead of copying the whole map.
  *
  * @author AndreiS
  */
 public class BuiltinMap extends AssociativeCommutativeCollection {
 
-    private final UnmodifiableMap<Term, Term> entries;
+    private final HashMap<Term, Term> entries;
+    /**
+     * The hash code of {@link #getEntries()}, maintained entry by entry by {@link BuiltinMap.Builder}.
+     */
+    private final int entriesHashCode;
+
+    private transient Map<Term, Term> entriesView;
 
     /**
      * Private efficient constructor used by {@link BuiltinMap.Builder}.
      */
     private BuiltinMap(
-            UnmodifiableMap<Term, Term> entries,
+            HashMap<Term, Term> entries,
+            int entriesHashCode,
             ImmutableMultiset<KItem> collectionPatterns,
             ImmutableMultiset<Term> collectionFunctions,
             ImmutableMultiset<Variable> collectionVariables,
             GlobalContext global) {
         super(collectionPatterns, collectionFunctions, collectionVariables, global);
         this.entries = entries;
+        this.entriesHashCode = entriesHashCode;
     }
 
     public static Term concatenate(GlobalContext global, Term... maps) {
@@ -63,11 +75,18 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
     }
 
     public Term get(Term key) {
-        return entries.get(key);
+        Option<Term> value = entries.get(key);
+        return value.isDefined() ? value.get() : null;
     }
 
-    public UnmodifiableMap<Term, Term> getEntries() {
-        return entries;
+    /**
+     * Returns an unmodifiable view of the entries of this map.
+     */
+    public Map<Term, Term> getEntries() {
+        if (entriesView == null) {
+            entriesView = JavaConversions.mapAsJavaMap(entries);
+        }
+        return entriesView;
     }
 
     public boolean isUnifiableByCurrentAlgorithm() {
@@ -75,7 +94,7 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
     }
 
     public boolean hasOnlyGroundKeys() {
-        return entries.keySet().stream().allMatch(Term::isGround);
+        return getEntries().keySet().stream().allMatch(Term::isGround);
     }
 
     @Override
@@ -100,7 +119,9 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
         }
 
         BuiltinMap map = (BuiltinMap) object;
-        return entries.equals(map.entries)
+        return entriesHashCode == map.entriesHashCode
+                && entries.size() == map.entries.size()
+                && (entries == map.entries || entries.equals(map.entries))
                 && collectionPatterns.equals(map.collectionPatterns)
                 && collectionFunctions.equals(map.collectionFunctions)
                 && collectionVariables.equals(map.collectionVariables);
@@ -109,7 +130,7 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
     @Override
     protected int computeHash() {
         int hashCode = 1;
-        hashCode = hashCode * Constants.HASH_PRIME + entries.hashCode();
+        hashCode = hashCode * Constants.HASH_PRIME + entriesHashCode;
         hashCode = hashCode * Constants.HASH_PRIME + collectionPatterns.hashCode();
         hashCode = hashCode * Constants.HASH_PRIME + collectionFunctions.hashCode();
         hashCode = hashCode * Constants.HASH_PRIME + collectionVariables.hashCode();
@@ -124,7 +145,7 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
     private String toString(String operator, String mapsTo, String identity) {
         if (!isEmpty()) {
             return Joiner.on(operator).join(
-                    Joiner.on(operator).withKeyValueSeparator(mapsTo).join(entries),
+                    Joiner.on(operator).withKeyValueSeparator(mapsTo).join(getEntries()),
                     Joiner.on(operator).join(collectionPatterns),
                     Joiner.on(operator).join(collectionFunctions),
                     Joiner.on(operator).join(collectionVariables));
@@ -148,7 +169,7 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
         DataStructureSort sort = global.getDefinition().dataStructureSortOf(sort());
 
         ArrayList<Term> components = Lists.newArrayList();
-        entries.entrySet().stream().forEach(entry ->
+        getEntries().entrySet().stream().forEach(entry ->
                 components.add(KItem.of(
                         KLabelConstant.of(sort.elementLabel(), global.getDefinition()),
                         KList.concatenate(entry.getKey(), entry.getValue()),
@@ -169,9 +190,17 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
         return new Builder(global);
     }
 
+    /**
+     * Returns the contribution of the given entry to the hash code of a {@link Map}.
+     */
+    private static int entryHashCode(Term key, Term value) {
+        return key.hashCode() ^ value.hashCode();
+    }
+
     public static class Builder {
 
-        private final Map<Term, Term> entries = new HashMap<>();
+        private HashMap<Term, Term> entries = new HashMap<>();
+        private int entriesHashCode = 0;
         private final ImmutableMultiset.Builder<KItem> patternsBuilder = new ImmutableMultiset.Builder<>();
         private final ImmutableMultiset.Builder<Term> functionsBuilder = new ImmutableMultiset.Builder<>();
         private final ImmutableMultiset.Builder<Variable> variablesBuilder = new ImmutableMultiset.Builder<>();
@@ -182,7 +211,15 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
         }
 
         public void put(Term key, Term value) {
-            entries.put(key, value);
+            Option<Term> oldValue = entries.get(key);
+            if (oldValue.isDefined()) {
+                if (oldValue.get() == value) {
+                    return;
+                }
+                entriesHashCode -= entryHashCode(key, oldValue.get());
+            }
+            entries = entries.updated(key, value);
+            entriesHashCode += entryHashCode(key, value);
         }
 
         /**
@@ -190,15 +227,54 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
          * built.
          */
         public void putAll(Map<? extends Term, ? extends Term> map) {
-            entries.putAll(map);
+            for (Map.Entry<? extends Term, ? extends Term> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
         }
 
         public Term remove(Term key) {
-            return entries.remove(key);
+            Option<Term> oldValue = entries.get(key);
+            if (!oldValue.isDefined()) {
+                return null;
+            }
+            entries = entries.$minus(key);
+            entriesHashCode -= entryHashCode(key, oldValue.get());
+            return oldValue.get();
         }
 
+        /**
+         * Returns an unmodifiable snapshot of the entries put so far.
+         */
         public Map<Term, Term> getEntries() {
-            return UnmodifiableMap.unmodifiableMap(entries);
+            return JavaConversions.mapAsJavaMap(entries);
+        }
+
+        /**
+         * Adds the entries of the given map, which take precedence over the entries of this builder. The
+         * entries of the given map are shared instead of copied whenever possible.
+         */
+        private void putAllEntries(BuiltinMap map) {
+            if (entries.isEmpty()) {
+                entries = map.entries;
+                entriesHashCode = map.entriesHashCode;
+                return;
+            }
+
+            if (entries.size() >= map.entries.size()) {
+                for (Map.Entry<Term, Term> entry : map.getEntries().entrySet()) {
+                    put(entry.getKey(), entry.getValue());
+                }
+            } else {
+                /* start from the larger map and add the entries of this builder it does not override */
+                HashMap<Term, Term> oldEntries = entries;
+                entries = map.entries;
+                entriesHashCode = map.entriesHashCode;
+                for (Map.Entry<Term, Term> entry : JavaConversions.mapAsJavaMap(oldEntries).entrySet()) {
+                    if (!entries.contains(entry.getKey())) {
+                        put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
         }
 
         private void concatenate(Term term, boolean update) {
@@ -211,13 +287,20 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
             if (term instanceof BuiltinMap) {
                 BuiltinMap map = (BuiltinMap) term;
 
-                if (!update && entries.keySet().stream().anyMatch(key -> map.entries.containsKey(key) && !entries.get(key).equals(map.entries.get(key)))) {
-                    List<Triple<Term, Term, Term>> clashingKeys = entries.keySet().stream().filter(map.entries::containsKey).map(k -> Triple.of(k, entries.get(k), map.entries.get(k))).collect(Collectors.toList());
-                    throw KEMException.criticalError("failed to concatenate maps with common keys: "
-                            + clashingKeys);
+                if (!update) {
+                    Map<Term, Term> smaller = entries.size() <= map.entries.size() ? getEntries() : map.getEntries();
+                    Map<Term, Term> larger = entries.size() <= map.entries.size() ? map.getEntries() : getEntries();
+                    List<Triple<Term, Term, Term>> clashingKeys = smaller.keySet().stream()
+                            .filter(k -> larger.containsKey(k) && !smaller.get(k).equals(larger.get(k)))
+                            .map(k -> Triple.of(k, getEntries().get(k), map.getEntries().get(k)))
+                            .collect(Collectors.toList());
+                    if (!clashingKeys.isEmpty()) {
+                        throw KEMException.criticalError("failed to concatenate maps with common keys: "
+                                + clashingKeys);
+                    }
                 }
 
-                entries.putAll(map.entries);
+                putAllEntries(map);
                 patternsBuilder.addAll(map.collectionPatterns);
                 functionsBuilder.addAll(map.collectionFunctions);
                 variablesBuilder.addAll(map.collectionVariables);
@@ -260,12 +343,9 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
         }
 
         public Term build() {
-            // YilongL: Guava's ImmutableMap.copyOf(entries) is not smart enough
-            // to avoid actually copying the entries, because entries is not an
-            // ImmutableMap yet; using Apache's decorate method because it would
-            // avoid creating nesting wrappers
             BuiltinMap builtinMap = new BuiltinMap(
-                    (UnmodifiableMap<Term, Term>) UnmodifiableMap.unmodifiableMap(entries),
+                    entries,
+                    entriesHashCode,
                     patternsBuilder.build(),
                     functionsBuilder.build(),
                     variablesBuilder.build(),
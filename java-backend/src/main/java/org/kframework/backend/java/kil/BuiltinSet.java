@@ -10,33 +10,43 @@ import org.kframework.utils.errorsystem.KEMException;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMultiset;
-import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import scala.collection.JavaConversions;
+import scala.collection.immutable.HashSet;
 
 
 /**
  * Class representing a set.
+ * <p>
+ * The elements are kept in a persistent hash array mapped trie, like the entries of {@link BuiltinMap}.
  *
  * @author AndreiS
  */
 public class BuiltinSet extends AssociativeCommutativeCollection {
 
-    private final ImmutableSet<Term> elements;
+    private final HashSet<Term> elements;
+    /**
+     * The hash code of {@link #elements()}, maintained element by element by {@link BuiltinSet.Builder}.
+     */
+    private final int elementsHashCode;
+
+    private transient Set<Term> elementsView;
 
     private BuiltinSet(
-            ImmutableSet<Term> elements,
+            HashSet<Term> elements,
+            int elementsHashCode,
             ImmutableMultiset<KItem> collectionPatterns,
             ImmutableMultiset<Term> collectionFunctions,
             ImmutableMultiset<Variable> collectionVariables,
             GlobalContext global) {
         super(collectionPatterns, collectionFunctions, collectionVariables, global);
         this.elements = elements;
+        this.elementsHashCode = elementsHashCode;
     }
 
     public static Term concatenate(GlobalContext global, Term... sets) {
@@ -63,8 +73,14 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
         return elements.contains(element);
     }
 
+    /**
+     * Returns an unmodifiable view of the elements of this set.
+     */
     public Set<Term> elements() {
-        return elements;
+        if (elementsView == null) {
+            elementsView = JavaConversions.setAsJavaSet(elements);
+        }
+        return elementsView;
     }
 
     @Override
@@ -88,7 +104,9 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
         }
 
         BuiltinSet set = (BuiltinSet) object;
-        return elements.equals(set.elements)
+        return elementsHashCode == set.elementsHashCode
+                && elements.size() == set.elements.size()
+                && (elements == set.elements || elements.equals(set.elements))
                 && collectionPatterns.equals(set.collectionPatterns)
                 && collectionFunctions.equals(set.collectionFunctions)
                 && collectionVariables.equals(set.collectionVariables);
@@ -97,7 +115,7 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
     @Override
     protected int computeHash() {
         int hashCode = 1;
-        hashCode = hashCode * Constants.HASH_PRIME + elements.hashCode();
+        hashCode = hashCode * Constants.HASH_PRIME + elementsHashCode;
         hashCode = hashCode * Constants.HASH_PRIME + collectionPatterns.hashCode();
         hashCode = hashCode * Constants.HASH_PRIME + collectionFunctions.hashCode();
         hashCode = hashCode * Constants.HASH_PRIME + collectionVariables.hashCode();
@@ -123,7 +141,7 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
     public String toString(String operator, String identity) {
         Joiner joiner = Joiner.on(operator);
         StringBuilder stringBuilder = new StringBuilder();
-        joiner.appendTo(stringBuilder, elements);
+        joiner.appendTo(stringBuilder, elements());
         joiner.appendTo(stringBuilder, baseTerms());
         if (stringBuilder.length() == 0) {
             stringBuilder.append(identity);
@@ -136,7 +154,7 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
         DataStructureSort sort = global.getDefinition().dataStructureSortOf(sort());
 
         ArrayList<Term> components = Lists.newArrayList();
-        elements.stream().forEach(element ->
+        elements().stream().forEach(element ->
                 components.add(KItem.of(
                         KLabelConstant.of(sort.elementLabel(), global.getDefinition()),
                         KList.singleton(element),
@@ -159,7 +177,8 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
 
     public static class Builder {
 
-        private final Set<Term> elements = new HashSet<>();
+        private HashSet<Term> elements = new HashSet<>();
+        private int elementsHashCode = 0;
         private final ImmutableMultiset.Builder<KItem> patternsBuilder = new ImmutableMultiset.Builder<>();
         private final ImmutableMultiset.Builder<Term> functionsBuilder = new ImmutableMultiset.Builder<>();
         private final ImmutableMultiset.Builder<Variable> variablesBuilder = new ImmutableMultiset.Builder<>();
@@ -170,16 +189,43 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
         }
 
         public boolean add(Term element) {
-            return elements.add(element);
+            if (elements.contains(element)) {
+                return false;
+            }
+            elements = elements.$plus(element);
+            elementsHashCode += element.hashCode();
+            return true;
         }
 
         public <T extends Term> boolean addAll(Collection<T> elements) {
-            // elements refers to the one in the outer class
-            return this.elements.addAll(elements);
+            boolean changed = false;
+            for (T element : elements) {
+                changed |= add(element);
+            }
+            return changed;
         }
 
         public boolean remove(Term element) {
-            return elements.remove(element);
+            if (!elements.contains(element)) {
+                return false;
+            }
+            elements = elements.$minus(element);
+            elementsHashCode -= element.hashCode();
+            return true;
+        }
+
+        /**
+         * Adds the elements of the given set, sharing them instead of copying them whenever possible.
+         */
+        private void addAllElements(BuiltinSet set) {
+            if (elements.isEmpty() || elements.size() < set.elements.size()) {
+                HashSet<Term> oldElements = elements;
+                elements = set.elements;
+                elementsHashCode = set.elementsHashCode;
+                addAll(JavaConversions.setAsJavaSet(oldElements));
+            } else {
+                addAll(set.elements());
+            }
         }
 
         /**
@@ -195,7 +241,7 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
 
                 if (term instanceof BuiltinSet) {
                     BuiltinSet set = (BuiltinSet) term;
-                    elements.addAll(set.elements);
+                    addAllElements(set);
                     patternsBuilder.addAll(set.collectionPatterns);
                     functionsBuilder.addAll(set.collectionFunctions);
                     variablesBuilder.addAll(set.collectionVariables);
@@ -213,7 +259,8 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
 
         public Term build() {
             BuiltinSet builtinSet = new BuiltinSet(
-                    ImmutableSet.copyOf(elements),
+                    elements,
+                    elementsHashCode,
                     patternsBuilder.build(),
                     functionsBuilder.build(),
                     variablesBuilder.build(),
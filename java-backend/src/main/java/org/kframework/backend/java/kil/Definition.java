@@ -12,6 +12,7 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import org.kframework.attributes.Att;
 import org.kframework.backend.java.compile.KOREtoBackendKIL;
+import org.kframework.backend.java.symbolic.CompiledRuleMatcher;
 import org.kframework.backend.java.symbolic.Transformer;
 import org.kframework.backend.java.symbolic.Visitor;
 import org.kframework.backend.java.util.Subsorts;
@@ -41,6 +42,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static org.kframework.kore.KORE.Sort;
@@ -101,6 +103,10 @@ public class Definition extends JavaSymbolicObject {
      * the automaton rule used by {@link org.kframework.backend.java.symbolic.FastRuleMatcher}
      */
     public Rule automaton = null;
+    /**
+     * the decision tree compiled from {@link #automaton} by {@link #compileAutomaton()}, or null
+     */
+    private transient volatile CompiledRuleMatcher.Node compiledAutomaton = null;
     /**
      * all the rules indexed with the ordinal used by {@link org.kframework.backend.java.symbolic.FastRuleMatcher}
      */
@@ -108,8 +114,24 @@ public class Definition extends JavaSymbolicObject {
 
     public final Map<Integer, Integer> reverseRuleTable = new HashMap<>();
 
+    /**
+     * the transition attributes {@link #transitionRules} was computed for, and the flags computed for them
+     */
+    private transient List<String> transitions;
+    private transient boolean[] transitionRules;
+
     private final Map<KItem.CacheTableColKey, KItem.CacheTableValue> sortCacheTable = new HashMap<>();
 
+    /**
+     * the discrimination indices of the function rules, built lazily and discarded whenever a rule is added
+     */
+    private transient volatile Map<KLabelConstant, FunctionRuleIndex> functionRuleIndices;
+
+    /**
+     * whether each KLabel, by its ordinal, has anywhere rules; built lazily and discarded whenever a rule is added
+     */
+    private transient volatile boolean[] anywhereKLabels;
+
     public Definition(org.kframework.definition.Module module, KExceptionManager kem) {
         this.module = module;
         kLabels = new HashSet<>();
@@ -226,6 +248,34 @@ public class Definition extends JavaSymbolicObject {
         this.context = null;
     }
 
+    /**
+     * Compiles the automaton into the decision tree used by
+     * {@link org.kframework.backend.java.symbolic.FastRuleMatcher} with {@code --compiled-matcher}.
+     */
+    public synchronized void compileAutomaton() {
+        if (compiledAutomaton == null && automaton != null) {
+            compiledAutomaton = CompiledRuleMatcher.compile(automaton.leftHandSide());
+        }
+    }
+
+    public CompiledRuleMatcher.Node compiledAutomaton() {
+        return compiledAutomaton;
+    }
+
+    /**
+     * Returns the flags, indexed like {@link #ruleTable}, of the rules tagged with any of the given transition
+     * attributes. The flags are computed once and reused for as long as the transitions do not change.
+     */
+    public synchronized boolean[] transitionRules(List<String> transitions) {
+        if (transitionRules == null || !transitions.equals(this.transitions)) {
+            boolean[] flags = new boolean[ruleTable.keySet().stream().mapToInt(i -> i + 1).max().orElse(0)];
+            ruleTable.forEach((index, rule) -> flags[index] = transitions.stream().anyMatch(rule::containsAttribute));
+            this.transitions = ImmutableList.copyOf(transitions);
+            this.transitionRules = flags;
+        }
+        return transitionRules;
+    }
+
     public void addKLabel(KLabelConstant kLabel) {
         kLabels.add(kLabel);
     }
@@ -239,6 +289,7 @@ public class Definition extends JavaSymbolicObject {
     public void addRule(Rule rule) {
         if (rule.isFunction()) {
             functionRules.put(rule.definedKLabel(), rule);
+            functionRuleIndices = null;
             if (rule.isSortPredicate()) {
                 sortPredicateRules.put((KLabelConstant) rule.sortPredicateArgument().kLabel(), rule);
             }
@@ -257,6 +308,7 @@ public class Definition extends JavaSymbolicObject {
             }
 
             anywhereRules.put(rule.anywhereKLabel(), rule);
+            anywhereKLabels = null;
         } else {
             rules.add(rule);
         }
@@ -292,10 +344,40 @@ public class Definition extends JavaSymbolicObject {
         return functionRules;
     }
 
+    /**
+     * Returns the rules of the given function that may match the given arguments, in definition order.
+     * The rules that are left out cannot match because the head of some argument differs from the head of
+     * the corresponding argument in their left-hand side.
+     */
+    public List<Rule> functionRulesOf(KLabelConstant kLabel, KList kList) {
+        Map<KLabelConstant, FunctionRuleIndex> indices = functionRuleIndices;
+        if (indices == null) {
+            indices = new ConcurrentHashMap<>();
+            functionRuleIndices = indices;
+        }
+        return indices.computeIfAbsent(kLabel, l -> new FunctionRuleIndex(functionRules.get(l))).get(kList);
+    }
+
     public Multimap<KLabelConstant, Rule> anywhereRules() {
         return anywhereRules;
     }
 
+    /**
+     * Returns true if there are anywhere rules for the given KLabel. Unlike {@link #anywhereRules()}, does not hash
+     * the KLabel.
+     */
+    public boolean hasAnywhereRules(KLabelConstant kLabel) {
+        boolean[] kLabels = anywhereKLabels;
+        if (kLabels == null) {
+            kLabels = new boolean[anywhereRules.keySet().stream().mapToInt(l -> l.ordinal() + 1).max().orElse(0)];
+            for (KLabelConstant anywhereKLabel : anywhereRules.keySet()) {
+                kLabels[anywhereKLabel.ordinal()] = true;
+            }
+            anywhereKLabels = kLabels;
+        }
+        return kLabel.ordinal() < kLabels.length && kLabels[kLabel.ordinal()];
+    }
+
     public Collection<Rule> sortPredicateRulesOn(KLabelConstant kLabel) {
         if (sortPredicateRules.isEmpty()) {
             return Collections.emptyList();
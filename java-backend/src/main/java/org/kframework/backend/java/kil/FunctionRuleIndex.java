@@ -0,0 +1,119 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Discrimination index over the rules of a single function, keyed on the head of each argument.
+ * <p>
+ * The head of an argument is its {@link KLabelConstant} if it is a constructor application, or the
+ * {@link Token} itself if it is a token. A rule whose argument has no such head (e.g., a variable or a
+ * collection pattern) is a candidate for every subject. The candidates are kept in definition order, so trying
+ * them in turn is equivalent to trying every rule of the function, {@code [owise]} rules included.
+ */
+class FunctionRuleIndex {
+
+    private final List<Rule> rules;
+    /**
+     * For each argument position, the candidate rules of each head occurring in that position.
+     */
+    private final List<Map<Term, List<Rule>>> candidates = new ArrayList<>();
+    /**
+     * For each argument position, the rules that are candidates regardless of the head of the argument.
+     */
+    private final List<List<Rule>> wildcards = new ArrayList<>();
+
+    FunctionRuleIndex(Collection<Rule> rules) {
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+
+        int arity = 0;
+        for (Rule rule : rules) {
+            List<Term> arguments = arguments(rule);
+            if (arguments != null) {
+                arity = Math.max(arity, arguments.size());
+            }
+        }
+
+        for (int i = 0; i < arity; ++i) {
+            Map<Term, List<Rule>> positionCandidates = new HashMap<>();
+            List<Rule> positionWildcards = new ArrayList<>();
+            for (Rule rule : rules) {
+                List<Term> arguments = arguments(rule);
+                Term head = arguments != null && i < arguments.size() ? head(arguments.get(i)) : null;
+                if (head != null) {
+                    positionCandidates.computeIfAbsent(head, h -> new ArrayList<>(positionWildcards)).add(rule);
+                } else {
+                    positionWildcards.add(rule);
+                    positionCandidates.values().forEach(list -> list.add(rule));
+                }
+            }
+            candidates.add(positionCandidates);
+            wildcards.add(positionWildcards);
+        }
+    }
+
+    /**
+     * Returns the rules that may match the given arguments, in definition order.
+     */
+    List<Rule> get(KList kList) {
+        List<Rule> result = rules;
+        if (kList.hasFrame()) {
+            return result;
+        }
+        for (int i = 0; i < candidates.size() && i < kList.size(); ++i) {
+            if (kList.get(i) instanceof Variable && kList.get(i).sort().equals(Sort.KLIST)) {
+                break;
+            }
+            Term head = head(kList.get(i));
+            if (head != null) {
+                List<Rule> positionResult = candidates.get(i).getOrDefault(head, wildcards.get(i));
+                if (positionResult.size() < result.size()) {
+                    result = positionResult;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the arguments of the left-hand side of the given rule, or {@code null} if the position of its
+     * arguments is not fixed (e.g., because of a variable of sort KList).
+     */
+    private static List<Term> arguments(Rule rule) {
+        if (!(rule.leftHandSide() instanceof KItem) || !(((KItem) rule.leftHandSide()).kList() instanceof KList)) {
+            return null;
+        }
+        KList kList = (KList) ((KItem) rule.leftHandSide()).kList();
+        if (kList.hasFrame()) {
+            return null;
+        }
+        for (Term term : kList.getContents()) {
+            if (term instanceof Variable && term.sort().equals(Sort.KLIST)) {
+                return null;
+            }
+        }
+        return kList.getContents();
+    }
+
+    /**
+     * Returns the head of the given term if it determines which patterns the term can match, or {@code null}
+     * otherwise.
+     */
+    private static Term head(Term term) {
+        if (term instanceof Token) {
+            return term;
+        }
+        if (term instanceof KItem && ((KItem) term).kLabel() instanceof KLabelConstant) {
+            KLabelConstant kLabel = (KLabelConstant) ((KItem) term).kLabel();
+            if (!kLabel.isFunction() && !kLabel.isPattern()) {
+                return kLabel;
+            }
+        }
+        return null;
+    }
+}
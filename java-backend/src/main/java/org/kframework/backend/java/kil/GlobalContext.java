@@ -9,6 +9,8 @@ import org.kframework.backend.java.symbolic.Equality.EqualityOperations;
 import org.kframework.backend.java.symbolic.JavaExecutionOptions;
 import org.kframework.backend.java.symbolic.SMTOperations;
 import org.kframework.backend.java.symbolic.Stage;
+import org.kframework.backend.java.util.FunctionMemoization;
+import org.kframework.backend.java.util.SMTResultCache;
 import org.kframework.backend.java.util.Z3Wrapper;
 import org.kframework.krun.KRunOptions;
 import org.kframework.krun.api.io.FileSystem;
@@ -21,7 +23,7 @@ import java.io.Serializable;
 import java.lang.invoke.MethodHandle;
 import java.util.Map;
 
-public class GlobalContext implements Serializable {
+public class GlobalContext implements Serializable, AutoCloseable {
     private Definition def;
     public final transient FileSystem fs;
     public final Stage stage;
@@ -33,6 +35,16 @@ public class GlobalContext implements Serializable {
     private final transient Map<String, MethodHandle> hookProvider;
     public final transient FileUtil files;
     public final transient GlobalOptions globalOptions;
+    public final transient boolean deterministicFunctions;
+    public final transient SMTOptions smtOptions;
+    /**
+     * The hash-consing table of the terms built in this context, or null if hash-consing is disabled.
+     */
+    public final transient HashConsing hashConsing;
+    /**
+     * The memo tables of the functions evaluated in this context, or null if memoization is disabled.
+     */
+    public final transient FunctionMemoization memoization;
 
     public GlobalContext(
             FileSystem fs,
@@ -50,10 +62,23 @@ public class GlobalContext implements Serializable {
         this.kem = kem;
         this.hookProvider = hookProvider;
         this.files = files;
+        this.deterministicFunctions = deterministicFunctions;
+        this.smtOptions = smtOptions;
         this.equalityOps = new EqualityOperations(() -> def);
-        this.constraintOps = new SMTOperations(() -> def, smtOptions, new Z3Wrapper(smtOptions, kem, globalOptions, files));
-        this.kItemOps = new KItemOperations(stage, deterministicFunctions, kem, this::builtins, globalOptions);
+        Z3Wrapper z3 = new Z3Wrapper(smtOptions, kem, globalOptions, files);
+        this.constraintOps = new SMTOperations(() -> def, smtOptions, z3, new SMTResultCache(
+                z3,
+                smtOptions.smtCache ? files.resolveKompiled(SMTResultCache.STORE_FILE) : null,
+                kem));
+        this.memoization = stage == Stage.REWRITING ?
+                new FunctionMemoization(
+                        krunOptions != null ? krunOptions.experimental.memoTableSize : KRunOptions.Experimental.DEFAULT_MEMO_TABLE_SIZE,
+                        krunOptions != null && krunOptions.experimental.memoizePureFunctions) :
+                null;
+        this.kItemOps = new KItemOperations(stage, deterministicFunctions, kem, this::builtins, globalOptions, memoization);
         this.stage = stage;
+        this.hashConsing = stage == Stage.REWRITING && krunOptions != null && krunOptions.experimental.hashConsing ?
+                new HashConsing() : null;
     }
 
     public GlobalContext(
@@ -73,6 +98,16 @@ public class GlobalContext implements Serializable {
         return b;
     }
 
+    /**
+     * Stops the solver sessions of this context and closes its SMT result cache.
+     */
+    @Override
+    public void close() {
+        if (constraintOps != null) {
+            constraintOps.close();
+        }
+    }
+
     public void setDefinition(Definition def) {
         this.def = def;
     }
@@ -0,0 +1,70 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.kframework.backend.java.builtins.IntToken;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Opt-in hash-consing of the terms built during rewriting (enabled by krun --hash-cons). Structurally equal terms
+ * share a single instance, which is kept in a weak concurrent table and therefore reclaimed once no longer used.
+ * <p>
+ * Each rewriting {@link GlobalContext} has its own instance of this class, with its own tables. {@link IntToken}s
+ * are interned when they are the elements of an interned {@link KList}.
+ * <p>
+ * Only the canonical instances returned by the tables are marked with {@link Term#hashConsed}, so that equality
+ * between two hash-consed {@link KItem}s of the same context reduces to pointer comparison.
+ */
+public class HashConsing {
+
+    private final Interner<Term> terms = Interners.newWeakInterner();
+    private final Interner<IntToken> tokens = Interners.newWeakInterner();
+
+    /**
+     * Returns the canonical instance of the given {@link KItem} or {@link KList}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Term> T intern(T term) {
+        T canonical = (T) terms.intern(term);
+        canonical.hashConsed = true;
+        return canonical;
+    }
+
+    /**
+     * Returns the canonical instance of the given token.
+     */
+    public IntToken internToken(IntToken token) {
+        IntToken canonical = tokens.intern(token);
+        canonical.hashConsed = true;
+        return canonical;
+    }
+
+    /**
+     * Returns the canonical instance of the given {@link KList}. The {@link IntToken} elements of a KList without a
+     * frame are first replaced by their canonical instances.
+     */
+    public KList internKList(KList kList) {
+        if (!kList.hasFrame() && kList.isConcreteCollection()) {
+            List<Term> contents = kList.getContents();
+            int count = 0;
+            int[] positions = new int[contents.size()];
+            Term[] canonicalTokens = new Term[contents.size()];
+            for (int i = 0; i < contents.size(); i++) {
+                Term element = contents.get(i);
+                if (element instanceof IntToken && !element.hashConsed) {
+                    positions[count] = i;
+                    canonicalTokens[count] = internToken((IntToken) element);
+                    count++;
+                }
+            }
+            if (count > 0) {
+                kList = (KList) kList.withElements(Arrays.copyOf(positions, count), Arrays.copyOf(canonicalTokens, count));
+            }
+        }
+        return intern(kList);
+    }
+
+}
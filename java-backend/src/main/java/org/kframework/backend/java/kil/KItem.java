@@ -9,6 +9,7 @@ import org.kframework.backend.java.builtins.BoolToken;
 import org.kframework.backend.java.builtins.MetaK;
 import org.kframework.backend.java.builtins.SortMembership;
 import org.kframework.backend.java.symbolic.*;
+import org.kframework.backend.java.util.FunctionMemoization;
 import org.kframework.backend.java.util.ImpureFunctionException;
 import org.kframework.backend.java.util.Profiler;
 import org.kframework.backend.java.util.RewriteEngineUtils;
@@ -83,6 +84,12 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
         kList = KCollection.upKind(kList, Kind.KLIST);
 
         // TODO(yilongli): break the dependency on the Tool object
+        if (global.hashConsing != null && source == null && location == null && childrenDontCareRuleMask == null) {
+            if (kList instanceof KList && !kList.hashConsed) {
+                kList = global.hashConsing.internKList((KList) kList);
+            }
+            return global.hashConsing.intern(new KItem(kLabel, kList, global, global.stage, null, null, null));
+        }
         return new KItem(kLabel, kList, global, global.stage, source, location, childrenDontCareRuleMask);
     }
 
@@ -303,18 +310,21 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
         private final KExceptionManager kem;
         private final Provider<BuiltinFunction> builtins;
         private final GlobalOptions options;
+        private final FunctionMemoization memoization;
 
         public KItemOperations(
                 Stage stage,
                 boolean deterministicFunctions,
                 KExceptionManager kem,
                 Provider<BuiltinFunction> builtins,
-                GlobalOptions options) {
+                GlobalOptions options,
+                FunctionMemoization memoization) {
             this.stage = stage;
             this.deterministicFunctions = deterministicFunctions;
             this.kem = kem;
             this.builtins = builtins;
             this.options = options;
+            this.memoization = memoization;
         }
 
         private static final String TRACE_MSG = "Function evaluation triggered infinite recursion. Trace:";
@@ -393,6 +403,13 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                 return kItem;
             }
 
+            if (memoization != null) {
+                return memoization.evaluate(kItem, context.definition(), k -> applyFunction(k, context));
+            }
+            return applyFunction(kItem, context);
+        }
+
+        private Term applyFunction(KItem kItem, TermContext context) {
             Definition definition = context.definition();
             KLabelConstant kLabelConstant = (KLabelConstant) kItem.kLabel;
 
@@ -409,6 +426,8 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                             return result.evaluate(context);
                         }
                     } catch (ClassCastException e) {
+                        // the classes of the arguments are checked by BuiltinFunction before invoking a hook;
+                        // this only catches casts failing inside the hooks
                         // DISABLE EXCEPTION CHECKSTYLE
                     } catch (ImpureFunctionException e) {
                         // do not do anything further: immediately assume this function is not ready to be evaluated yet.
@@ -445,7 +464,11 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                     Term result = null;
                     Term owiseResult = null;
 
-                    for (Rule rule : definition.functionRules().get(kLabelConstant)) {
+                    /* the index leaves out the rule being audited if it cannot match, so do not use it while auditing */
+                    Iterable<Rule> rules = RuleAuditing.getAuditingRule() == null && !RuleAuditing.isAuditBegun() ?
+                            definition.functionRulesOf(kLabelConstant, kList) :
+                            definition.functionRules().get(kLabelConstant);
+                    for (Rule rule : rules) {
                         try {
                             if (rule == RuleAuditing.getAuditingRule()) {
                                 RuleAuditing.beginAudit();
@@ -478,10 +501,11 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                             }
                             Term rightHandSide = RewriteEngineUtils.construct(
                                     rule.rhsInstructions(),
+                                    rule.rhsConstructor(),
                                     solution,
                                     context);
 
-                            if (rule.containsAttribute("owise")) {
+                            if (rule.isOwise()) {
                                 if (owiseResult != null) {
                                     throw KExceptionManager.criticalError("Found multiple [owise] rules for the function with KLabel " + kItem.kLabel, rule);
                                 }
@@ -530,7 +554,7 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                              * of the left-hand-sides of the other rules (no other rule may apply)
                              */
                             for (Rule rule : definition.functionRules().get(kLabelConstant)) {
-                                if (rule.containsAttribute("owise")) {
+                                if (rule.isOwise()) {
                                     continue;
                                 }
 
@@ -564,8 +588,7 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
         }
 
         anywhereApplicable = (kLabel instanceof KLabelConstant)
-                && !context.definition().anywhereRules()
-                .get((KLabelConstant) kLabel).isEmpty();
+                && context.definition().hasAnywhereRules((KLabelConstant) kLabel);
         return anywhereApplicable;
     }
 
@@ -684,6 +707,10 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
         }
 
         KItem kItem = (KItem) object;
+        if (hashConsed && kItem.hashConsed && global != null && global == kItem.global) {
+            /* distinct canonical instances of the table of the same context are never equal */
+            return false;
+        }
         return kLabel.equals(kItem.kLabel) && kList.equals(kItem.kList);
     }
 
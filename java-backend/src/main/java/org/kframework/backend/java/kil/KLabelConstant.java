@@ -13,6 +13,7 @@ import org.kframework.kil.Attribute;
 import org.kframework.kil.Attributes;
 import org.kframework.utils.errorsystem.KEMException;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -223,18 +224,61 @@ public class KLabelConstant extends KLabel implements org.kframework.kore.KLabel
 
     /**
      * Returns the cached instance rather than the de-serialized instance if there is a cached
-     * instance.
+     * instance. Otherwise the de-serialized instance is added to the cache by the enclosing
+     * {@link SymbolLoading}.
      */
     private Object readResolve() {
-        Map<String, KLabelConstant> localCache = cache.computeIfAbsent(
-                Pair.of(signatures, productionAttributes),
-                p -> new ConcurrentHashMap<>());
-        if (localCache.containsKey(label) && localCache.get(label).ordinal != this.ordinal) {
-            KEMException.criticalError("The ordinal for klabel: " + label + " is " + localCache.get(label).ordinal +
+        Pair<Set<SortSignature>, Attributes> key = Pair.of(signatures, productionAttributes);
+        KLabelConstant cached = cached(key, label);
+        if (cached == null) {
+            return SymbolLoading.resolve(this, key);
+        }
+        if (cached.ordinal != this.ordinal) {
+            throw KEMException.criticalError("The ordinal for klabel: " + label + " is " + cached.ordinal +
                     " in the cache and " + this.ordinal + " serialized.");
         }
-        // TODO: fix bug: ordinals from deserialized objects may overlap with those of newly created objects
-        return localCache.computeIfAbsent(label, l -> this);
+        return cached;
+    }
+
+    static KLabelConstant cached(Pair<Set<SortSignature>, Attributes> key, String label) {
+        Map<String, KLabelConstant> localCache = cache.get(key);
+        return localCache == null ? null : localCache.get(label);
+    }
+
+    /**
+     * Checks that the given de-serialized labels can be added to the cache, and keeps the ordinals of the labels
+     * created later from overlapping with theirs.
+     */
+    static void checkLoaded(Map<Pair<Set<SortSignature>, Attributes>, Map<String, KLabelConstant>> loaded) {
+        Map<Integer, String> labels = new HashMap<>();
+        for (Map.Entry<Pair<Set<SortSignature>, Attributes>, Map<String, KLabelConstant>> entry : loaded.entrySet()) {
+            for (KLabelConstant kLabel : entry.getValue().values()) {
+                maxOrdinal.accumulateAndGet(kLabel.ordinal + 1, Math::max);
+                String other = labels.put(kLabel.ordinal, kLabel.label);
+                if (other != null) {
+                    throw ordinalConflict(kLabel, other);
+                }
+                if (cached(entry.getKey(), kLabel.label) != null) {
+                    throw KEMException.criticalError("The klabel: " + kLabel.label + " was created while being de-serialized.");
+                }
+            }
+        }
+        for (Map<String, KLabelConstant> localCache : cache.values()) {
+            for (KLabelConstant kLabel : localCache.values()) {
+                if (labels.containsKey(kLabel.ordinal)) {
+                    throw ordinalConflict(kLabel, labels.get(kLabel.ordinal));
+                }
+            }
+        }
+    }
+
+    private static KEMException ordinalConflict(KLabelConstant kLabel, String other) {
+        return KEMException.criticalError("The ordinal " + kLabel.ordinal + " is the ordinal of both klabel: "
+                + kLabel.label + " and klabel: " + other + ".");
+    }
+
+    static void addLoaded(Map<Pair<Set<SortSignature>, Attributes>, Map<String, KLabelConstant>> loaded) {
+        loaded.forEach((key, kLabels) -> kLabels.forEach(cache.computeIfAbsent(key, p -> new ConcurrentHashMap<>())::putIfAbsent));
     }
 
     public String getAttr(String attribute) {
@@ -102,6 +102,30 @@ public class KList extends KCollection implements org.kframework.kore.KList {
         return contents;
     }
 
+    /**
+     * Returns this KList with the elements at the given positions replaced by the given terms, sharing the other
+     * elements. The contents are copied once and updated in place, unless a replacement is not a single element,
+     * in which case the result is flattened and canonicalized by the {@link Builder}.
+     */
+    public Term withElements(int[] positions, Term[] terms) {
+        Term[] newContents = contents.toArray(new Term[contents.size()]);
+        boolean elements = !hasFrame() && kListVariables.isEmpty();
+        for (int i = 0; i < positions.length; i++) {
+            newContents[positions[i]] = terms[i];
+            elements &= isElement(terms[i]);
+        }
+        return elements ? new KList(ImmutableList.copyOf(newContents), null, ImmutableList.of()) : concatenate(newContents);
+    }
+
+    /**
+     * Returns true if the {@link Builder} adds the given term to a KList as a single element.
+     */
+    private static boolean isElement(Term term) {
+        return !(term instanceof KList)
+                && !(term instanceof Variable && term.sort().equals(Sort.KLIST))
+                && (term.kind() == Kind.KITEM || term.kind() == Kind.K || term.kind == Kind.CELL_COLLECTION);
+    }
+
     @Override
     public ImmutableList<Variable> collectionVariables() {
         return kListVariables;
@@ -10,16 +10,21 @@ import com.google.common.collect.Sets;
 import org.apache.commons.collections15.list.UnmodifiableList;
 import org.kframework.backend.java.builtins.BoolToken;
 import org.kframework.backend.java.rewritemachine.GenerateRHSInstructions;
+import org.kframework.backend.java.rewritemachine.RHSCompiler;
+import org.kframework.backend.java.rewritemachine.RHSCompiler.RHSConstructor;
 import org.kframework.backend.java.rewritemachine.RHSInstruction;
 import org.kframework.backend.java.symbolic.ConjunctiveFormula;
 import org.kframework.backend.java.symbolic.Equality;
 import org.kframework.backend.java.symbolic.Transformer;
 import org.kframework.backend.java.symbolic.VariableOccurrencesCounter;
 import org.kframework.backend.java.symbolic.Visitor;
+import org.kframework.attributes.Att;
 import org.kframework.backend.java.util.Constants;
 import org.kframework.kil.ASTNode;
 import org.kframework.kil.Attribute;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -53,9 +58,26 @@ public class Rule extends JavaSymbolicObject<Rule> {
      */
     private final List<ImmutableList<RHSInstruction>> instructionsOfLookups;
     private final List<RHSInstruction> rhsInstructions;
+    /**
+     * The compiled forms of the instructions above, used with {@code --compile-rhs}. They are not serializable, so
+     * they are compiled again when the rule is deserialized.
+     */
+    private transient RHSConstructor rhsConstructor;
+    private transient List<RHSConstructor> constructorsOfRequires;
+    private transient List<RHSConstructor> constructorsOfLookups;
 
     private final Set<Variable> matchingVariables;
 
+    /**
+     * Attributes tested on every rewrite step, looked up once when the rule is created.
+     */
+    private final boolean isHeat;
+    private final boolean isCool;
+    private final boolean isStream;
+    private final boolean isOwise;
+    private final boolean refersThisConfiguration;
+    private final boolean refersRestoreConfiguration;
+
     // TODO(YilongL): make it final
     private boolean isSortPredicate;
     private final Sort predSort;
@@ -86,6 +108,13 @@ public class Rule extends JavaSymbolicObject<Rule> {
         setLocation(oldRule.getLocation());
         setSource(oldRule.getSource());
 
+        isHeat = containsAttribute(Att.heat());
+        isCool = containsAttribute(Att.cool());
+        isStream = containsAttribute("stream");
+        isOwise = containsAttribute("owise");
+        refersThisConfiguration = containsAttribute(Att.refers_THIS_CONFIGURATION());
+        refersRestoreConfiguration = containsAttribute(Att.refers_RESTORE_CONFIGURATION());
+
         isSortPredicate = isFunction() && definedKLabel().isSortPredicate();
         if (isSortPredicate) {
             predSort = definedKLabel().getPredicateSort();
@@ -131,6 +160,7 @@ public class Rule extends JavaSymbolicObject<Rule> {
             equality.leftHandSide().accept(visitor);
             instructionsOfLookups.add(visitor.getInstructions());
         }
+        compileInstructions();
 
         matchingVariables = ImmutableSet.copyOf(Sets.union(
                 leftHandSide.variableSet(),
@@ -229,6 +259,33 @@ public class Rule extends JavaSymbolicObject<Rule> {
         return sortPredArg;
     }
 
+    public boolean isHeat() {
+        return isHeat;
+    }
+
+    public boolean isCool() {
+        return isCool;
+    }
+
+    /**
+     * @return {@code true} if this rule does I/O on a stream cell
+     */
+    public boolean isStream() {
+        return isStream;
+    }
+
+    public boolean isOwise() {
+        return isOwise;
+    }
+
+    public boolean refersThisConfiguration() {
+        return refersThisConfiguration;
+    }
+
+    public boolean refersRestoreConfiguration() {
+        return refersRestoreConfiguration;
+    }
+
     public boolean isFunction() {
         return containsAttribute(Attribute.FUNCTION_KEY)
                && !containsAttribute(Attribute.PATTERN_FOLDING_KEY);
@@ -285,6 +342,31 @@ public class Rule extends JavaSymbolicObject<Rule> {
         return rhsInstructions;
     }
 
+    public RHSConstructor rhsConstructor() {
+        return rhsConstructor;
+    }
+
+    public List<RHSConstructor> constructorsOfRequires() {
+        return constructorsOfRequires;
+    }
+
+    public List<RHSConstructor> constructorsOfLookups() {
+        return constructorsOfLookups;
+    }
+
+    private void compileInstructions() {
+        rhsConstructor = RHSCompiler.compile(rhsInstructions);
+        constructorsOfRequires = ImmutableList.copyOf(
+                instructionsOfRequires.stream().map(RHSCompiler::compile).collect(Collectors.toList()));
+        constructorsOfLookups = ImmutableList.copyOf(
+                instructionsOfLookups.stream().map(RHSCompiler::compile).collect(Collectors.toList()));
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        compileInstructions();
+    }
+
     public Set<Variable> matchingVariables() {
         return matchingVariables;
     }
@@ -4,6 +4,8 @@ package org.kframework.backend.java.kil;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -119,15 +121,51 @@ public final class Sort extends org.kframework.kore.AbstractSort implements Seri
 
     /**
      * Returns the cached instance rather than the de-serialized instance if
-     * there is a cached instance.
+     * there is a cached instance. Otherwise the de-serialized instance is
+     * added to the cache by the enclosing {@link SymbolLoading}.
      */
     Object readResolve() throws ObjectStreamException {
-        if (cache.containsKey(name) && cache.get(name).ordinal != this.ordinal) {
-            KEMException.criticalError("The ordinal for sort: " + name + " is " + cache.get(name).ordinal +
+        Sort cached = cache.get(name);
+        if (cached == null) {
+            return SymbolLoading.resolve(this);
+        }
+        if (cached.ordinal != this.ordinal) {
+            throw KEMException.criticalError("The ordinal for sort: " + name + " is " + cached.ordinal +
                     " in the cache and " + this.ordinal + " serialized.");
         }
-        // TODO: fix bug: ordinals from deserialized objects may overlap with those of newly created objects
-        return cache.computeIfAbsent(name, x -> this);
+        return cached;
+    }
+
+    /**
+     * Checks that the given de-serialized sorts can be added to the cache, and keeps the ordinals of the sorts
+     * created later from overlapping with theirs.
+     */
+    static void checkLoaded(Collection<Sort> loaded) {
+        Map<Integer, String> names = new HashMap<>();
+        for (Sort sort : loaded) {
+            maxOrdinal.accumulateAndGet(sort.ordinal + 1, Math::max);
+            String other = names.put(sort.ordinal, sort.name);
+            if (other != null) {
+                throw ordinalConflict(sort, other);
+            }
+            if (cache.containsKey(sort.name)) {
+                throw KEMException.criticalError("The sort: " + sort.name + " was created while being de-serialized.");
+            }
+        }
+        for (Sort sort : cache.values()) {
+            if (names.containsKey(sort.ordinal)) {
+                throw ordinalConflict(sort, names.get(sort.ordinal));
+            }
+        }
+    }
+
+    private static KEMException ordinalConflict(Sort sort, String other) {
+        return KEMException.criticalError("The ordinal " + sort.ordinal + " is the ordinal of both sort: " + sort.name
+                + " and sort: " + other + ".");
+    }
+
+    static void addLoaded(Collection<Sort> loaded) {
+        loaded.forEach(sort -> cache.putIfAbsent(sort.name, sort));
     }
 
     @Override
@@ -0,0 +1,91 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.kframework.kil.Attributes;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Scopes the deserialization of terms holding {@link Sort}s and {@link KLabelConstant}s by the current thread.
+ * <p>
+ * The ordinals of sorts and KLabels index tables, so a deserialized sort or KLabel which is not cached yet cannot be
+ * added to its cache before it is known that its ordinal is not the ordinal of another sort or KLabel of this
+ * process. The sorts and KLabels read within this scope are therefore only added to their caches by
+ * {@link #commit()}, after checking all of them, so that nothing is added if any of them conflicts. Sorts and KLabels
+ * read outside of any scope are checked and added one by one. The sorts and KLabels should not be created by another
+ * thread while they are being loaded.
+ */
+public final class SymbolLoading implements AutoCloseable {
+
+    private static final ThreadLocal<SymbolLoading> current = new ThreadLocal<>();
+
+    private final SymbolLoading outer;
+    private final Map<String, Sort> sorts = new HashMap<>();
+    private final Map<Pair<Set<SortSignature>, Attributes>, Map<String, KLabelConstant>> kLabels = new HashMap<>();
+
+    private SymbolLoading() {
+        outer = current.get();
+        current.set(this);
+    }
+
+    /**
+     * Starts a scope on the current thread, which lasts until it is closed.
+     */
+    public static SymbolLoading start() {
+        return new SymbolLoading();
+    }
+
+    /**
+     * Adds the sorts and KLabels read so far within this scope to their caches.
+     *
+     * @throws org.kframework.utils.errorsystem.KEMException if the ordinal of any of them is the ordinal of another
+     * sort or KLabel, in which case none of them is added
+     */
+    public void commit() {
+        Sort.checkLoaded(sorts.values());
+        KLabelConstant.checkLoaded(kLabels);
+        Sort.addLoaded(sorts.values());
+        KLabelConstant.addLoaded(kLabels);
+        sorts.clear();
+        kLabels.clear();
+    }
+
+    @Override
+    public void close() {
+        current.set(outer);
+    }
+
+    /**
+     * Returns the instance to use for the given deserialized sort, which is not cached.
+     */
+    static Sort resolve(Sort sort) {
+        SymbolLoading loading = current.get();
+        if (loading != null) {
+            return loading.sorts.computeIfAbsent(sort.name(), name -> sort);
+        }
+        try (SymbolLoading single = start()) {
+            single.sorts.put(sort.name(), sort);
+            single.commit();
+        }
+        return Sort.of(sort.name());
+    }
+
+    /**
+     * Returns the instance to use for the given deserialized KLabel, which is not cached under the given key.
+     */
+    static KLabelConstant resolve(KLabelConstant kLabel, Pair<Set<SortSignature>, Attributes> key) {
+        SymbolLoading loading = current.get();
+        if (loading != null) {
+            return loading.kLabels.computeIfAbsent(key, k -> new HashMap<>())
+                    .computeIfAbsent(kLabel.label(), label -> kLabel);
+        }
+        try (SymbolLoading single = start()) {
+            single.kLabels.computeIfAbsent(key, k -> new HashMap<>()).put(kLabel.label(), kLabel);
+            single.commit();
+        }
+        return KLabelConstant.cached(key, kLabel.label());
+    }
+}
@@ -27,6 +27,11 @@ public abstract class Term extends JavaSymbolicObject<Term> implements Comparabl
     protected final Kind kind;
     // protected final boolean normalized;
 
+    /**
+     * Set iff this term is the canonical instance returned by {@link HashConsing}.
+     */
+    protected transient boolean hashConsed = false;
+
     protected Term(Kind kind) {
         super();
         this.kind = kind;
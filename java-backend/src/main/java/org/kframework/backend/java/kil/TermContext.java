@@ -21,8 +21,7 @@ public class TermContext extends JavaSymbolicObject {
     private final GlobalContext global;
 
     /**
-     * This class shall not be accessed by more than one thread,
-     * so it is made non-thread-safe intentionally.
+     * Shared by the worker threads of a parallel search, so the increment is synchronized.
      */
     private static class FreshCounter implements Serializable {
         private BigInteger value;
@@ -31,7 +30,7 @@ public class TermContext extends JavaSymbolicObject {
             this.value = value;
         }
 
-        private BigInteger incrementAndGet() {
+        private synchronized BigInteger incrementAndGet() {
             value = value.add(BigInteger.ONE);
             return value;
         }
@@ -53,6 +52,14 @@ public class TermContext extends JavaSymbolicObject {
         return counter != null ? new TermContext(global, new FreshCounter(counter.value)) : this;
     }
 
+    /**
+     * Creates a {@link TermContext} sharing the fresh counter of this one, but with its own top term and top
+     * constraint, so that it can be used by a worker thread of a parallel search.
+     */
+    public TermContext forkSharingCounter() {
+        return new TermContext(global, counter);
+    }
+
     public BigInteger freshConstant() {
         if (counter == null) {
             throw KEMException.criticalError("No fresh counter available in this TermContext.");
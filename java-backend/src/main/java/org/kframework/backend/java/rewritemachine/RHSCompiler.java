@@ -0,0 +1,204 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.rewritemachine;
+
+import org.kframework.attributes.Location;
+import org.kframework.attributes.Source;
+import org.kframework.backend.java.kil.BuiltinList;
+import org.kframework.backend.java.kil.BuiltinMap;
+import org.kframework.backend.java.kil.BuiltinSet;
+import org.kframework.backend.java.kil.InjectedKLabel;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KItemProjection;
+import org.kframework.backend.java.kil.KLabelInjection;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.KSequence;
+import org.kframework.backend.java.kil.Kind;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.TermContext;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.rewritemachine.RHSInstruction.Constructor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a list of {@link RHSInstruction}s into a tree of {@link RHSConstructor}s, each of which builds one
+ * node of the term directly from the terms built by its children. Constructing a term with the tree avoids
+ * dispatching on the type of each instruction and maintaining the operand stack of the interpreter in
+ * {@link org.kframework.backend.java.util.RewriteEngineUtils#construct}.
+ * <p>
+ * The children of a node are constructed in the order in which the interpreter pushes them, so the functions
+ * evaluated while constructing a term are evaluated in the same order.
+ * <p>
+ * Each {@link org.kframework.backend.java.kil.Rule} compiles its instructions when it is created.
+ */
+public final class RHSCompiler {
+
+    /**
+     * Constructs a term from the substitution of the variables of a rule.
+     */
+    @FunctionalInterface
+    public interface RHSConstructor {
+        Term construct(Map<Variable, Term> solution, TermContext context);
+    }
+
+    private RHSCompiler() { }
+
+    public static RHSConstructor compile(List<RHSInstruction> rhsInstructions) {
+        Deque<RHSConstructor> stack = new ArrayDeque<>();
+        for (RHSInstruction instruction : rhsInstructions) {
+            switch (instruction.type()) {
+            case PUSH:
+                Term term = instruction.term();
+                stack.push((solution, context) -> term);
+                break;
+            case SUBST:
+                Variable var = (Variable) instruction.term();
+                stack.push((solution, context) -> {
+                    Term content = solution.get(var);
+                    return content != null ? content : var;
+                });
+                break;
+            case EVAL:
+                RHSConstructor function = stack.pop();
+                stack.push((solution, context) ->
+                        ((KItem) function.construct(solution, context)).resolveFunctionAndAnywhere(context));
+                break;
+            case PROJECT:
+                RHSConstructor projection = stack.pop();
+                stack.push((solution, context) ->
+                        ((KItemProjection) projection.construct(solution, context)).evaluateProjection());
+                break;
+            case CONSTRUCT:
+                Constructor constructor = instruction.constructor();
+                RHSConstructor[] operands = new RHSConstructor[arity(constructor)];
+                for (int i = 0; i < operands.length; i++) {
+                    operands[i] = stack.pop();
+                }
+                stack.push(compile(constructor, operands));
+                break;
+            default:
+                throw new AssertionError("unreachable");
+            }
+        }
+        assert stack.size() == 1;
+        return stack.pop();
+    }
+
+    /**
+     * Returns the number of operands the given constructor pops from the stack of the interpreter.
+     */
+    private static int arity(Constructor constructor) {
+        switch (constructor.type()) {
+        case BUILTIN_LIST:
+        case KLIST:
+        case KSEQUENCE:
+            return constructor.size1();
+        case BUILTIN_MAP:
+            return 2 * constructor.size1() + constructor.size2();
+        case BUILTIN_SET:
+            return constructor.size1() + constructor.size2();
+        case KITEM:
+            return 2;
+        case KITEM_PROJECTION:
+        case KLABEL_INJECTION:
+        case INJECTED_KLABEL:
+            return 1;
+        default:
+            throw new AssertionError("unreachable");
+        }
+    }
+
+    /**
+     * Compiles the given constructor; the operands are in the order in which the interpreter pops them.
+     */
+    private static RHSConstructor compile(Constructor constructor, RHSConstructor[] operands) {
+        switch (constructor.type()) {
+        case BUILTIN_LIST:
+            return (solution, context) -> {
+                Term[] terms = constructAll(operands, solution, context);
+                BuiltinList.Builder builder = BuiltinList.builder(constructor.assocListSort, constructor.assocListOperator, constructor.assocListUnit, context.global());
+                for (Term term : terms) {
+                    builder.add(term);
+                }
+                return builder.build();
+            };
+        case BUILTIN_MAP:
+            int mapSize = constructor.size1();
+            return (solution, context) -> {
+                Term[] terms = constructAll(operands, solution, context);
+                BuiltinMap.Builder builder = BuiltinMap.builder(context.global());
+                for (int i = 0; i < mapSize; i++) {
+                    builder.put(terms[2 * i], terms[2 * i + 1]);
+                }
+                for (int i = 2 * mapSize; i < terms.length; i++) {
+                    builder.concatenate(terms[i]);
+                }
+                return builder.build();
+            };
+        case BUILTIN_SET:
+            int setSize = constructor.size1();
+            return (solution, context) -> {
+                Term[] terms = constructAll(operands, solution, context);
+                BuiltinSet.Builder builder = BuiltinSet.builder(context.global());
+                for (int i = 0; i < setSize; i++) {
+                    builder.add(terms[i]);
+                }
+                for (int i = setSize; i < terms.length; i++) {
+                    builder.concatenate(terms[i]);
+                }
+                return builder.build();
+            };
+        case KITEM:
+            RHSConstructor kLabel = operands[0];
+            RHSConstructor kList = operands[1];
+            Source source = constructor.getSource();
+            Location location = constructor.getLocation();
+            return (solution, context) -> {
+                Term kListTerm = kList.construct(solution, context);
+                Term kLabelTerm = kLabel.construct(solution, context);
+                return KItem.of(kLabelTerm, kListTerm, context.global(), source, location);
+            };
+        case KITEM_PROJECTION:
+            Kind kind = constructor.kind();
+            return (solution, context) -> new KItemProjection(kind, operands[0].construct(solution, context));
+        case KLABEL_INJECTION:
+            return (solution, context) -> new KLabelInjection(operands[0].construct(solution, context));
+        case INJECTED_KLABEL:
+            return (solution, context) -> new InjectedKLabel(operands[0].construct(solution, context));
+        case KLIST:
+            return (solution, context) -> {
+                Term[] terms = constructAll(operands, solution, context);
+                KList.Builder builder = KList.builder();
+                for (Term term : terms) {
+                    builder.concatenate(term);
+                }
+                return builder.build();
+            };
+        case KSEQUENCE:
+            return (solution, context) -> {
+                Term[] terms = constructAll(operands, solution, context);
+                KSequence.Builder builder = KSequence.builder();
+                for (Term term : terms) {
+                    builder.concatenate(term);
+                }
+                return builder.build();
+            };
+        default:
+            throw new AssertionError("unreachable");
+        }
+    }
+
+    /**
+     * Constructs the given operands in the order in which the interpreter pushes them, i.e., last to first.
+     */
+    private static Term[] constructAll(RHSConstructor[] operands, Map<Variable, Term> solution, TermContext context) {
+        Term[] terms = new Term[operands.length];
+        for (int i = operands.length - 1; i >= 0; i--) {
+            terms[i] = operands[i].construct(solution, context);
+        }
+        return terms;
+    }
+}
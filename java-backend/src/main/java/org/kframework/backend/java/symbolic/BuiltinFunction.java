@@ -15,8 +15,6 @@ import org.kframework.utils.errorsystem.KExceptionManager;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
-import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -29,10 +27,15 @@ import java.util.Map;
 public class BuiltinFunction {
 
     /**
-     * Map of {@link KLabelConstant} representation of builtin (hooked) operations to
-     * {@link Method} representation of Java implementation of said operations.
+     * The largest number of arguments for which a hook is invoked without spreading an array.
      */
-    private final Map<KLabelConstant, MethodHandle> table = new HashMap<>();
+    private static final int MAX_EXACT_ARITY = 3;
+
+    /**
+     * Table of the Java implementations of builtin (hooked) operations, indexed by the
+     * {@link KLabelConstant#ordinal()} of their {@link KLabelConstant} representation.
+     */
+    private final Hook[] table;
 
 
     /**
@@ -53,6 +56,7 @@ public class BuiltinFunction {
         } catch (NoSuchMethodException | IllegalAccessException e) {
             throw KEMException.internalError("Failed to load partial evaluation hook implementation", e);
         }
+        Map<KLabelConstant, Hook> hooks = new HashMap<>();
         for (Map.Entry<String, Attributes> entry : definition.kLabelAttributes().entrySet()) {
             String hookAttribute = entry.getValue().getAttr(Attribute.HOOK_KEY);
             if (hookAttribute != null) {
@@ -74,8 +78,91 @@ public class BuiltinFunction {
                     continue;
                 }
 
-                table.put(KLabelConstant.of(entry.getKey(), definition), hookProvider.get(hookAttribute));
+                hooks.put(KLabelConstant.of(entry.getKey(), definition), new Hook(hookProvider.get(hookAttribute)));
+            }
+        }
+
+        table = new Hook[hooks.keySet().stream().mapToInt(KLabelConstant::ordinal).max().orElse(-1) + 1];
+        hooks.forEach((label, hook) -> table[label.ordinal()] = hook);
+    }
+
+    /**
+     * The Java implementation of a builtin operation, bound to a handle of a fixed type.
+     * <p>
+     * If the implementation takes its arguments as {@link Term}s of specific classes followed by the
+     * {@link TermContext}, the types of the arguments are checked before invoking it, and the handle is adapted
+     * to take {@link Term}s so it can be invoked with {@link MethodHandle#invokeExact}. Other implementations
+     * (e.g., variable arity ones) are invoked with {@link MethodHandle#invokeWithArguments}.
+     */
+    private static final class Hook {
+        /**
+         * The classes of the arguments of the implementation, or {@code null} if it is invoked generically.
+         */
+        final Class<?>[] argumentTypes;
+        final MethodHandle handle;
+
+        Hook(MethodHandle implementation) {
+            if (isTermHook(implementation.type()) && !implementation.isVarargsCollector()) {
+                int arity = implementation.type().parameterCount() - 1;
+                argumentTypes = new Class<?>[arity];
+                for (int i = 0; i < arity; i++) {
+                    argumentTypes[i] = implementation.type().parameterType(i);
+                }
+                MethodType termType = MethodType.methodType(Term.class, argumentTypesOf(arity)).appendParameterTypes(TermContext.class);
+                MethodHandle termHandle = implementation.asType(termType);
+                if (arity <= MAX_EXACT_ARITY) {
+                    handle = termHandle;
+                } else {
+                    /* move the context first, then take the arguments as an array */
+                    int[] reorder = new int[arity + 1];
+                    for (int i = 0; i < arity; i++) {
+                        reorder[i] = i + 1;
+                    }
+                    MethodType contextFirstType = MethodType.methodType(Term.class, TermContext.class).appendParameterTypes(argumentTypesOf(arity));
+                    handle = MethodHandles.permuteArguments(termHandle, contextFirstType, reorder)
+                            .asSpreader(Term[].class, arity);
+                }
+            } else {
+                argumentTypes = null;
+                handle = implementation;
+            }
+        }
+
+        private static boolean isTermHook(MethodType type) {
+            if (type.parameterCount() == 0
+                    || type.lastParameterType() != TermContext.class
+                    || !Term.class.isAssignableFrom(type.returnType())) {
+                return false;
+            }
+            for (int i = 0; i < type.parameterCount() - 1; i++) {
+                if (!Term.class.isAssignableFrom(type.parameterType(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static Class<?>[] argumentTypesOf(int arity) {
+            Class<?>[] types = new Class<?>[arity];
+            for (int i = 0; i < arity; i++) {
+                types[i] = Term.class;
             }
+            return types;
+        }
+
+        /**
+         * Returns true if the implementation can be invoked on the given arguments.
+         */
+        boolean accepts(Term[] arguments) {
+            if (argumentTypes.length != arguments.length) {
+                return false;
+            }
+            for (int i = 0; i < arguments.length; i++) {
+                if (!argumentTypes[i].isInstance(arguments[i])) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
@@ -92,20 +179,36 @@ public class BuiltinFunction {
      *            the corresponding K label of the builtin operation
      * @param arguments
      *            the arguments of the builtin operation
-     * @return the result of the builtin operation if the evaluation succeeds
-     * @throws IllegalAccessException
-     * @throws IllegalArgumentException
+     * @return the result of the builtin operation if the evaluation succeeds, or {@code null} if the
+     *         arguments are not of the classes the Java implementation expects
      */
     // DISABLE EXCEPTION CHECKSTYLE
     public Term invoke(TermContext context, KLabelConstant label, Term... arguments)
             throws Throwable {
     // ENABLE EXCEPTION CHECKSTYLE
-        Object[] args = Arrays.copyOf(arguments, arguments.length + 1, Object[].class);
-        args[arguments.length] = context;
-        // TODO(YilongL): is reflection/exception really the best way to
-        // deal with builtin functions? builtin functions are supposed to be
-        // super-fast...
-        return (Term) table.get(label).invokeWithArguments(args);
+        Hook hook = table[label.ordinal()];
+        if (hook.argumentTypes == null) {
+            Object[] args = new Object[arguments.length + 1];
+            System.arraycopy(arguments, 0, args, 0, arguments.length);
+            args[arguments.length] = context;
+            return (Term) hook.handle.invokeWithArguments(args);
+        }
+
+        if (!hook.accepts(arguments)) {
+            return null;
+        }
+        switch (arguments.length) {
+        case 0:
+            return (Term) hook.handle.invokeExact(context);
+        case 1:
+            return (Term) hook.handle.invokeExact(arguments[0], context);
+        case 2:
+            return (Term) hook.handle.invokeExact(arguments[0], arguments[1], context);
+        case 3:
+            return (Term) hook.handle.invokeExact(arguments[0], arguments[1], arguments[2], context);
+        default:
+            return (Term) hook.handle.invokeExact(context, arguments);
+        }
     }
 
     /**
@@ -117,7 +220,7 @@ public class BuiltinFunction {
      *         otherwise, false
      */
     public boolean isBuiltinKLabel(KLabelConstant label) {
-        return table.containsKey(label);
+        return label.ordinal() < table.length && table[label.ordinal()] != null;
     }
 
 }
@@ -0,0 +1,234 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+
+package org.kframework.backend.java.symbolic;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.kframework.backend.java.builtins.BoolToken;
+import org.kframework.backend.java.kil.BuiltinList;
+import org.kframework.backend.java.kil.InnerRHSRewrite;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.LocalRewriteTerm;
+import org.kframework.backend.java.kil.RuleAutomatonDisjunction;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.Token;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.builtin.KLabels;
+import org.kframework.kore.KApply;
+import org.kframework.utils.BitSet;
+
+import java.util.List;
+
+/**
+ * The automaton pattern of {@link FastRuleMatcher} compiled into a decision tree.
+ * <p>
+ * All the decisions that depend only on the pattern are taken once, when the tree is built: each node knows whether
+ * it stands for a disjunction, a variable, a token or a KItem, a disjunction dispatches on the KLabel ordinal of the
+ * subject through an array of compiled children, and the "don't care" masks of the children of a KItem are
+ * precomputed. The nodes update the constraints of the {@link FastRuleMatcher} that runs them exactly as
+ * {@link FastRuleMatcher#match} does, so the matcher produces the same results. Patterns the tree does not handle
+ * (collections, KLabel variables, functions) are left to the interpreter.
+ * <p>
+ * The tree of the automaton of a definition is built once, by
+ * {@link org.kframework.backend.java.kil.Definition#compileAutomaton}.
+ */
+public final class CompiledRuleMatcher {
+
+    private CompiledRuleMatcher() { }
+
+    /**
+     * A node of the decision tree, matching a subject against the pattern it was compiled from.
+     */
+    public interface Node {
+        BitSet match(FastRuleMatcher matcher, Term subject, BitSet ruleMask, scala.collection.immutable.List<Pair<Integer, Integer>> path);
+    }
+
+    public static Node compile(Term pattern) {
+        if (pattern instanceof Variable) {
+            Variable variable = (Variable) pattern;
+            return (matcher, subject, ruleMask, path) -> matcher.addSubstitution(variable, subject, ruleMask);
+        } else if (pattern instanceof RuleAutomatonDisjunction) {
+            return new DisjunctionNode((RuleAutomatonDisjunction) pattern);
+        } else if (pattern instanceof KItem && ((KItem) pattern).kLabel().toString().equals(KLabels.KREWRITE)) {
+            KApply rewrite = (KApply) pattern;
+            return new RewriteNode(
+                    compile((Term) rewrite.klist().items().get(0)),
+                    (InnerRHSRewrite) rewrite.klist().items().get(1));
+        } else if (pattern instanceof KItem
+                && ((KItem) pattern).kLabel() instanceof KLabelConstant
+                && ((KItem) pattern).kList() instanceof KList
+                && !pattern.isSymbolic()) {
+            return new KItemNode((KItem) pattern);
+        } else if (pattern instanceof Token) {
+            return new TokenNode((Token) pattern);
+        } else {
+            return (matcher, subject, ruleMask, path) -> matcher.match(subject, pattern, ruleMask, path);
+        }
+    }
+
+    private static final class DisjunctionNode implements Node {
+        private final RuleAutomatonDisjunction disjunction;
+        /**
+         * The compiled KItem patterns of the disjunction, indexed by the ordinal of their KLabel.
+         */
+        private final Node[] kItemNodes;
+        private final BitSet[] kItemMasks;
+
+        private DisjunctionNode(RuleAutomatonDisjunction disjunction) {
+            this.disjunction = disjunction;
+            kItemNodes = new Node[disjunction.getKLabelMaxOrdinal()];
+            kItemMasks = new BitSet[disjunction.getKLabelMaxOrdinal()];
+            for (Pair<Term, BitSet> pair : disjunction.disjunctions()) {
+                if (pair.getLeft() instanceof KItem && ((KItem) pair.getLeft()).kLabel() instanceof KLabelConstant) {
+                    int ordinal = ((KLabelConstant) ((KItem) pair.getLeft()).kLabel()).ordinal();
+                    kItemNodes[ordinal] = compile(pair.getLeft());
+                    kItemMasks[ordinal] = pair.getRight();
+                }
+            }
+        }
+
+        @Override
+        public BitSet match(FastRuleMatcher matcher, Term subject, BitSet ruleMask, scala.collection.immutable.List<Pair<Integer, Integer>> path) {
+            if (subject.isSymbolic()) {
+                return matcher.addUnification(subject, disjunction, ruleMask, path);
+            }
+
+            BitSet returnSet = BitSet.apply(matcher.ruleCount());
+
+            // handle variables in the disjunction
+            for (Pair<Variable, BitSet> p : disjunction.getVariablesForSort(subject.sort())) {
+                if (ruleMask.intersects(p.getRight())) {
+                    BitSet localRuleMask = ruleMask.clone();
+                    localRuleMask.and(p.getRight());
+                    returnSet.or(matcher.addSubstitution(p.getLeft(), subject, localRuleMask));
+                }
+            }
+
+            // handle associative constructs with identity
+            for (Pair<BuiltinList, BitSet> p : disjunction.assocDisjunctionArray[subject.sort().ordinal()]) {
+                if (ruleMask.intersects(p.getRight())) {
+                    BitSet localRuleMask = ruleMask.clone();
+                    localRuleMask.and(p.getRight());
+                    returnSet.or(matcher.match(subject, p.getLeft(), localRuleMask, path));
+                }
+            }
+
+            if (subject instanceof KItem) {
+                int ordinal = ((KLabelConstant) ((KItem) subject).kLabel()).ordinal();
+                if (ordinal < kItemNodes.length && kItemNodes[ordinal] != null && ruleMask.intersects(kItemMasks[ordinal])) {
+                    BitSet localRuleMask = ruleMask.clone();
+                    localRuleMask.and(kItemMasks[ordinal]);
+                    returnSet.or(kItemNodes[ordinal].match(matcher, subject, localRuleMask, path));
+                }
+                List<Pair<KItem, BitSet>> patterns = disjunction.getKItemPatternByArity(((KItem) subject).klist().size());
+                if (patterns != null) {
+                    for (Pair<KItem, BitSet> p : patterns) {
+                        if (ruleMask.intersects(p.getRight())) {
+                            BitSet localRuleMask = ruleMask.clone();
+                            localRuleMask.and(p.getRight());
+                            returnSet.or(matcher.match(subject, p.getLeft(), localRuleMask, path));
+                        }
+                    }
+                }
+            } else if (subject instanceof Token) {
+                BitSet rules = disjunction.tokenDisjunctions.get(subject);
+                if (rules != null) {
+                    BitSet localRuleMask = ruleMask.clone();
+                    localRuleMask.and(rules);
+                    returnSet.or(localRuleMask);
+                }
+            }
+
+            return returnSet;
+        }
+    }
+
+    private static final class RewriteNode implements Node {
+        private final Node leftHandSide;
+        private final InnerRHSRewrite innerRHSRewrite;
+
+        private RewriteNode(Node leftHandSide, InnerRHSRewrite innerRHSRewrite) {
+            this.leftHandSide = leftHandSide;
+            this.innerRHSRewrite = innerRHSRewrite;
+        }
+
+        @Override
+        public BitSet match(FastRuleMatcher matcher, Term subject, BitSet ruleMask, scala.collection.immutable.List<Pair<Integer, Integer>> path) {
+            BitSet theNewMask = leftHandSide.match(matcher, subject, ruleMask, path);
+            for (int i = theNewMask.nextSetBit(0); i >= 0; i = theNewMask.nextSetBit(i + 1)) {
+                if (innerRHSRewrite.theRHS[i] != null) {
+                    matcher.addConstraint(i, new LocalRewriteTerm(path.reverse(), innerRHSRewrite.theRHS[i]), BoolToken.TRUE);
+                }
+            }
+            return theNewMask;
+        }
+    }
+
+    private static final class KItemNode implements Node {
+        private final KItem pattern;
+        private final String kLabelName;
+        private final Node[] children;
+        private final BitSet[] childrenDontCareRuleMasks;
+
+        private KItemNode(KItem pattern) {
+            this.pattern = pattern;
+            kLabelName = ((KLabelConstant) pattern.kLabel()).name();
+            KList kList = (KList) pattern.kList();
+            children = new Node[kList.size()];
+            childrenDontCareRuleMasks = new BitSet[kList.size()];
+            for (int i = 0; i < children.length; ++i) {
+                children[i] = compile(kList.get(i));
+                childrenDontCareRuleMasks[i] = pattern.getChildrenDontCareRuleMaskForPosition(i);
+            }
+        }
+
+        @Override
+        public BitSet match(FastRuleMatcher matcher, Term subject, BitSet ruleMask, scala.collection.immutable.List<Pair<Integer, Integer>> path) {
+            if (subject.isSymbolic()) {
+                return matcher.addUnification(subject, pattern, ruleMask, path);
+            }
+            if (!(subject instanceof KItem)) {
+                // the interpreter takes care of lifting elements to lists, and of the failure cases
+                return matcher.match(subject, pattern, ruleMask, path);
+            }
+
+            if (!((KLabelConstant) ((KItem) subject).kLabel()).name().equals(kLabelName)) {
+                return matcher.empty();
+            }
+            KList subjectKList = (KList) ((KItem) subject).kList();
+            if (subjectKList.size() != children.length) {
+                return matcher.empty();
+            }
+
+            for (int i = 0; i < children.length; ++i) {
+                // continue if the pattern under this position only contains "don't care" variables
+                if (childrenDontCareRuleMasks[i] != null && ruleMask.subset(childrenDontCareRuleMasks[i])) {
+                    continue;
+                }
+
+                ruleMask = children[i].match(matcher, subjectKList.get(i), ruleMask, path.$colon$colon(Pair.of(i, i + 1)));
+                if (ruleMask.isEmpty()) {
+                    return ruleMask;
+                }
+            }
+            return ruleMask;
+        }
+    }
+
+    private static final class TokenNode implements Node {
+        private final Token pattern;
+
+        private TokenNode(Token pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public BitSet match(FastRuleMatcher matcher, Term subject, BitSet ruleMask, scala.collection.immutable.List<Pair<Integer, Integer>> path) {
+            if (subject instanceof Token) {
+                return subject.equals(pattern) ? ruleMask : matcher.empty();
+            }
+            return matcher.match(subject, pattern, ruleMask, path);
+        }
+    }
+}
@@ -90,28 +90,39 @@ public class FastRuleMatcher {
      *
      * @return a list of constraints tagged with the Integer identifier of the rule they belong to and
      * with a Boolean which is true if the rule matched.
+     * @param compiledPattern the decision tree compiled from the pattern, see
+     *                        {@link org.kframework.backend.java.kil.Definition#compileAutomaton}, or null to
+     *                        interpret the pattern
+     * @param transitionRules whether each rule, by its index, is a transition; see
+     *                        {@link org.kframework.backend.java.kil.Definition#transitionRules}
      */
     public List<RuleMatchResult> matchRulePattern(
             ConstrainedTerm subject,
             Term pattern,
+            CompiledRuleMatcher.Node compiledPattern,
             BitSet ruleMask,
             boolean narrowing,
             boolean computeOne,
-            List<String> transitions,
+            boolean[] transitionRules,
             boolean proveFlag,
             TermContext context) {
 
         ruleMask.stream().forEach(i -> constraints[i] = ConjunctiveFormula.of(context.global()));
         empty = BitSet.apply(ruleCount);
 
-        BitSet theMatchingRules = match(subject.term(), pattern, ruleMask, List());
+        BitSet theMatchingRules;
+        if (compiledPattern != null && subject.term().isGround()) {
+            theMatchingRules = compiledPattern.match(this, subject.term(), ruleMask, List());
+        } else {
+            theMatchingRules = match(subject.term(), pattern, ruleMask, List());
+        }
 
         List<RuleMatchResult> structuralResults = new ArrayList<>();
         List<RuleMatchResult> transitionResults = new ArrayList<>();
         for (int i = theMatchingRules.nextSetBit(0); i >= 0; i = theMatchingRules.nextSetBit(i + 1)) {
             Rule rule = global.getDefinition().ruleTable.get(i);
             // skip over IO rules when in prove rules
-            if (proveFlag && rule.containsAttribute("stream")) {
+            if (proveFlag && rule.isStream()) {
                 continue;
             }
 
@@ -119,7 +130,7 @@ public class FastRuleMatcher {
             // ConstrainedTerm doesn't hold a TermContext anymore
             /* TODO(AndreiS): remove this hack for super strictness after strategies work */
             ConjunctiveFormula patternConstraint = ConjunctiveFormula.of(rule.lookups());
-            if (!computeOne && rule.containsAttribute(Att.cool()) && transitions.stream().anyMatch(rule::containsAttribute)) {
+            if (!computeOne && rule.isCool() && transitionRules[i]) {
                 patternConstraint = patternConstraint.addAll(rule.requires().stream().filter(t -> !t.containsAttribute(Att.transition())).collect(Collectors.toList()));
             } else {
                 patternConstraint = patternConstraint.addAll(rule.requires());
@@ -134,7 +145,7 @@ public class FastRuleMatcher {
                     context);
             for (Triple<ConjunctiveFormula, Boolean, Map<scala.collection.immutable.List<Pair<Integer, Integer>>, Term>> triple : ruleResults) {
                 RuleMatchResult result = new RuleMatchResult(triple.getLeft(), triple.getMiddle(), triple.getRight(), i);
-                if (transitions.stream().anyMatch(rule::containsAttribute)) {
+                if (transitionRules[i]) {
                     transitionResults.add(result);
                 } else {
                     structuralResults.add(result);
@@ -216,7 +227,19 @@ public class FastRuleMatcher {
         }
     }
 
-    private BitSet match(Term subject, Term pattern, BitSet ruleMask, scala.collection.immutable.List<Pair<Integer, Integer>> path) {
+    int ruleCount() {
+        return ruleCount;
+    }
+
+    BitSet empty() {
+        return empty;
+    }
+
+    void addConstraint(int ruleIndex, Term leftHandSide, Term rightHandSide) {
+        constraints[ruleIndex] = constraints[ruleIndex].add(leftHandSide, rightHandSide);
+    }
+
+    BitSet match(Term subject, Term pattern, BitSet ruleMask, scala.collection.immutable.List<Pair<Integer, Integer>> path) {
         assert !ruleMask.isEmpty();
 
         // if the pattern is a variable, try to add its binding to the current solution
@@ -472,7 +495,7 @@ public class FastRuleMatcher {
     }
 
 
-    private BitSet addSubstitution(Variable variable, Term term, BitSet ruleMask) {
+    BitSet addSubstitution(Variable variable, Term term, BitSet ruleMask) {
         if (variable.name().equals(KOREtoBackendKIL.THE_VARIABLE)) {
             return ruleMask;
         }
@@ -498,7 +521,7 @@ public class FastRuleMatcher {
         return ruleMask;
     }
 
-    private BitSet addUnification(Term subject, Term pattern, BitSet ruleMask, scala.collection.immutable.List<Pair<Integer, Integer>> path) {
+    BitSet addUnification(Term subject, Term pattern, BitSet ruleMask, scala.collection.immutable.List<Pair<Integer, Integer>> path) {
         for (int i = ruleMask.nextSetBit(0); i >= 0; i = ruleMask.nextSetBit(i + 1)) {
             Term leftHandSide = getLeftHandSide(pattern, i);
             Term rightHandSide = getRightHandSide(pattern, i);
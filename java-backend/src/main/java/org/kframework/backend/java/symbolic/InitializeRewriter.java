@@ -23,6 +23,8 @@ import org.kframework.krun.api.KRunState;
 import org.kframework.krun.api.io.FileSystem;
 import org.kframework.main.GlobalOptions;
 import org.kframework.rewriter.Rewriter;
+import org.kframework.rewriter.RewriterSession;
+import org.kframework.rewriter.SearchObserver;
 import org.kframework.rewriter.SearchType;
 import org.kframework.utils.errorsystem.KExceptionManager;
 import org.kframework.utils.file.FileUtil;
@@ -32,10 +34,12 @@ import scala.collection.JavaConversions;
 
 import java.lang.invoke.MethodHandle;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -141,15 +145,60 @@ public class InitializeRewriter implements Function<Module, Rewriter> {
 
         @Override
         public K search(K initialConfiguration, Optional<Integer> depth, Optional<Integer> bound, Rule pattern, SearchType searchType, boolean resultsAsSubstitution) {
+            List<K> results = new ArrayList<>();
+            search(initialConfiguration, depth, bound, pattern, searchType, resultsAsSubstitution, results::add, new AtomicBoolean(false));
+            return SymbolicRewriter.disjunctResults(results);
+        }
+
+        @Override
+        public void search(K initialConfiguration, Optional<Integer> depth, Optional<Integer> bound, Rule pattern, SearchType searchType, boolean resultsAsSubstitution, SearchObserver observer, AtomicBoolean cancelled) {
             TermContext termContext = TermContext.builder(rewritingContext).freshCounter(initCounterValue).build();
             KOREtoBackendKIL converter = new KOREtoBackendKIL(module, definition, termContext.global(), false);
             Term javaTerm = MacroExpander.expandAndEvaluate(termContext, kem, converter.convert(initialConfiguration));
             org.kframework.backend.java.kil.Rule javaPattern = converter.convert(Optional.empty(), pattern);
             this.rewriter = new SymbolicRewriter(rewritingContext, kompileOptions, new KRunState.Counter(), converter);
-            return rewriter.search(javaTerm, javaPattern, bound.orElse(NEGATIVE_VALUE), depth.orElse(NEGATIVE_VALUE), searchType, termContext, resultsAsSubstitution);
+            rewriter.search(javaTerm, javaPattern, bound.orElse(NEGATIVE_VALUE), depth.orElse(NEGATIVE_VALUE), searchType, termContext, resultsAsSubstitution, observer, cancelled);
         }
 
 
+        /**
+         * Starts a session keeping the configuration as a backend term, so the configuration is only converted
+         * from KORE when the session starts or is reset.
+         */
+        @Override
+        public RewriterSession startSession(K k) {
+            return new SymbolicRewriterSession(k);
+        }
+
+        private class SymbolicRewriterSession implements RewriterSession {
+            private final TermContext termContext = TermContext.builder(rewritingContext).freshCounter(initCounterValue).build();
+            private final KOREtoBackendKIL converter = new KOREtoBackendKIL(module, definition, termContext.global(), false);
+            private final SymbolicRewriter sessionRewriter = new SymbolicRewriter(rewritingContext, kompileOptions, new KRunState.Counter(), converter);
+            private ConstrainedTerm current;
+
+            private SymbolicRewriterSession(K k) {
+                reset(k);
+            }
+
+            @Override
+            public int step(int steps) {
+                JavaKRunState result = (JavaKRunState) sessionRewriter.rewrite(current, steps);
+                current = result.getConstrainedTerm();
+                return result.getStepsTaken().get();
+            }
+
+            @Override
+            public K k() {
+                return current.term();
+            }
+
+            @Override
+            public void reset(K k) {
+                Term backendKil = MacroExpander.expandAndEvaluate(termContext, kem, converter.convert(k));
+                current = new ConstrainedTerm(backendKil, termContext);
+            }
+        }
+
         public Tuple2<RewriterResult, K> executeAndMatch(K k, Optional<Integer> depth, Rule rule) {
             RewriterResult res = execute(k, depth);
             return Tuple2.apply(res, match(res.k(), rule));
@@ -196,11 +245,18 @@ public class InitializeRewriter implements Function<Module, Rewriter> {
                     .collect(Collectors.toList());
         }
 
+        @Override
+        public void close() {
+            rewritingContext.close();
+        }
+
     }
 
 
     public static class InitializeDefinition {
 
+        private final boolean loadPrecompiled;
+
         private final Map<Module, Definition> cache = new LinkedHashMap<Module, Definition>() {
             @Override
             protected boolean removeEldestEntry(Map.Entry<Module, Definition> eldest) {
@@ -208,10 +264,34 @@ public class InitializeRewriter implements Function<Module, Rewriter> {
             }
         };
 
+        public InitializeDefinition() {
+            this(false);
+        }
+
+        /**
+         * @param loadPrecompiled whether to load the definitions initialized by kompile, see {@link PrecompiledDefinition}
+         */
+        public InitializeDefinition(boolean loadPrecompiled) {
+            this.loadPrecompiled = loadPrecompiled;
+        }
+
         public Definition invoke(Module module, KExceptionManager kem, GlobalContext global) {
             if (cache.containsKey(module)) {
                 return cache.get(module);
             }
+            Definition definition = loadPrecompiled ? PrecompiledDefinition.load(module, kem, global) : null;
+            if (definition == null) {
+                definition = initialize(module, kem, global);
+            }
+            if (global.krunOptions != null && global.krunOptions.experimental.compiledMatcher) {
+                definition.compileAutomaton();
+            }
+
+            cache.put(module, definition);
+            return definition;
+        }
+
+        private Definition initialize(Module module, KExceptionManager kem, GlobalContext global) {
             Definition definition = new Definition(module, kem);
 
             global.setDefinition(definition);
@@ -220,8 +300,6 @@ public class InitializeRewriter implements Function<Module, Rewriter> {
                     .map(l -> KLabelConstant.of(l.name(), definition))
                     .forEach(definition::addKLabel);
             definition.addKoreRules(module, global);
-
-            cache.put(module, definition);
             return definition;
         }
     }
@@ -29,10 +29,13 @@ import org.kframework.kil.UserList;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
@@ -171,7 +174,17 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
             "smt_bool2int");
 
     public static String translateConstraint(ConjunctiveFormula constraint) {
-        KILtoSMTLib kil2SMT = new KILtoSMTLib(true, constraint.globalContext());
+        return translateConstraint(constraint, false);
+    }
+
+    /**
+     * Translates the given constraint to an SMTLib query. If {@code normalizeVariables} is set, the variables are
+     * named in the order they occur in the constraint, so that the constraints which are equal up to variable
+     * renaming are translated to the same query.
+     */
+    public static String translateConstraint(ConjunctiveFormula constraint, boolean normalizeVariables) {
+        KILtoSMTLib kil2SMT = new KILtoSMTLib(true, constraint.globalContext(),
+                normalizeVariables ? new HashMap<>() : null);
         String expression = kil2SMT.translate(constraint).expression();
         return kil2SMT.getSortAndFunctionDeclarations(kil2SMT.variables())
                 + kil2SMT.getAxioms()
@@ -183,8 +196,21 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
             ConjunctiveFormula leftHandSide,
             ConjunctiveFormula rightHandSide,
             Set<Variable> rightHandSideOnlyVariables) {
-        KILtoSMTLib leftTransformer = new KILtoSMTLib(true, leftHandSide.globalContext());
-        KILtoSMTLib rightTransformer = new KILtoSMTLib(false, rightHandSide.globalContext());
+        return translateImplication(leftHandSide, rightHandSide, rightHandSideOnlyVariables, false);
+    }
+
+    /**
+     * Translates the implication {@code leftHandSide => rightHandSide} to an SMTLib query; see
+     * {@link #translateConstraint(ConjunctiveFormula, boolean)} for {@code normalizeVariables}.
+     */
+    public static String translateImplication(
+            ConjunctiveFormula leftHandSide,
+            ConjunctiveFormula rightHandSide,
+            Set<Variable> rightHandSideOnlyVariables,
+            boolean normalizeVariables) {
+        Map<Variable, String> variableNames = normalizeVariables ? new HashMap<>() : null;
+        KILtoSMTLib leftTransformer = new KILtoSMTLib(true, leftHandSide.globalContext(), variableNames);
+        KILtoSMTLib rightTransformer = new KILtoSMTLib(false, rightHandSide.globalContext(), variableNames);
         String leftExpression = leftTransformer.translate(leftHandSide).expression();
         String rightExpression = rightTransformer.translate(rightHandSide).expression();
         StringBuilder sb = new StringBuilder();
@@ -224,19 +250,55 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
     private final HashSet<Variable> variables;
     private final HashMap<Term, Variable> termAbstractionMap = Maps.newHashMap();
     private final HashMap<UninterpretedToken, Integer> tokenEncoding;
+    /**
+     * The normalized names of the variables, in the order they are translated, or null if the variables keep
+     * their own names.
+     */
+    private final Map<Variable, String> variableNames;
 
     public KILtoSMTLib(boolean skipEqualities, GlobalContext global) {
-        this(skipEqualities, global.getDefinition(), global.krunOptions);
+        this(skipEqualities, global.getDefinition(), global.krunOptions, null);
     }
 
-    private KILtoSMTLib(boolean skipEqualities, Definition definition, KRunOptions krunOptions) {
+    private KILtoSMTLib(boolean skipEqualities, GlobalContext global, Map<Variable, String> variableNames) {
+        this(skipEqualities, global.getDefinition(), global.krunOptions, variableNames);
+    }
+
+    private KILtoSMTLib(boolean skipEqualities, Definition definition, KRunOptions krunOptions,
+                        Map<Variable, String> variableNames) {
         this.definition = definition;
         this.krunOptions = krunOptions;
         this.skipEqualities = skipEqualities;
+        this.variableNames = variableNames;
         variables = new HashSet<>();
         tokenEncoding = new HashMap<>();
     }
 
+    private String name(Variable variable) {
+        if (variableNames == null) {
+            return variable.name();
+        }
+        String name = variableNames.get(variable);
+        if (name == null) {
+            name = "_v" + variableNames.size();
+            variableNames.put(variable, name);
+        }
+        return name;
+    }
+
+    /**
+     * Returns the given variables in a fixed order, so that the declarations of a normalized query do not
+     * depend on the names of the variables.
+     */
+    private Iterable<Variable> ordered(Set<Variable> variables) {
+        if (variableNames == null) {
+            return variables;
+        }
+        return variables.stream()
+                .sorted(Comparator.comparing(this::name))
+                .collect(Collectors.toList());
+    }
+
     private SMTLibTerm translate(JavaSymbolicObject object) {
         ASTNode astNode = object.accept(this);
         if (astNode instanceof SMTLibTerm) {
@@ -295,7 +357,7 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
         for (Rule rule : definition.functionRules().values()) {
             if (rule.containsAttribute(Attribute.SMT_LEMMA_KEY)) {
                 try {
-                    KILtoSMTLib kil2SMT = new KILtoSMTLib(false, definition, krunOptions);
+                    KILtoSMTLib kil2SMT = new KILtoSMTLib(false, definition, krunOptions, null);
                     String leftExpression = kil2SMT.translate(rule.leftHandSide()).expression();
                     String rightExpression = kil2SMT.translate(rule.rightHandSide()).expression();
                     sb.append("(assert ");
@@ -325,10 +387,10 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
 
     private String getConstantDeclarations(Set<Variable> variables) {
         StringBuilder sb = new StringBuilder();
-        for (Variable variable : variables) {
+        for (Variable variable : ordered(variables)) {
             sb.append("(declare-fun ");
             // TODO(AndreiS): make sure variable names are SMTLib compliant
-            sb.append(variable.name());
+            sb.append(name(variable));
             sb.append(" () ");
             String sortName;
             sortName = getSortName(variable);
@@ -340,10 +402,10 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
 
     private String getQuantifiedVariables(Set<Variable> variables) {
         StringBuilder sb = new StringBuilder();
-        for (Variable variable : variables) {
+        for (Variable variable : ordered(variables)) {
             sb.append("(");
             // TODO(AndreiS): make sure variable names are SMTLib compliant
-            sb.append(variable.name());
+            sb.append(name(variable));
             sb.append(" ");
             String sortName;
             sortName = getSortName(variable);
@@ -455,7 +517,7 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
                     variable = Variable.getAnonVariable(term.sort());
                     termAbstractionMap.put(term, variable);
                 }
-                return variable.name();
+                return name(variable);
             } else {
                 throw e;
             }
@@ -528,7 +590,7 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
         switch (label) {
             case "exists":
                 Variable variable = (Variable) kList.get(0);
-                label = "exists ((" + variable.name() + " " + variable.sort() + ")) ";
+                label = "exists ((" + name(variable) + " " + variable.sort() + ")) ";
                 arguments = ImmutableList.of(kList.get(1));
                 break;
             case "extract":
@@ -607,7 +669,7 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
     @Override
     public ASTNode transform(Variable variable) {
         variables.add(variable);
-        return new SMTLibTerm(variable.name());
+        return new SMTLibTerm(name(variable));
     }
 
 }
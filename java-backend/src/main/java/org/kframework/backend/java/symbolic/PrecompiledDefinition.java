@@ -0,0 +1,132 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.kframework.HookProvider;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.SymbolLoading;
+import org.kframework.definition.Module;
+import org.kframework.kompile.KompileOptions;
+import org.kframework.krun.KRunOptions;
+import org.kframework.krun.ioserver.filesystem.portable.PortableFileSystem;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.errorsystem.KEMException;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.options.SMTOptions;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Saves the backend {@link Definition} of the execution module, initialized by kompile, to the kompiled directory,
+ * so that krun loads it instead of initializing the definition on every run.
+ * <p>
+ * The terms of an initialized definition refer to the {@link GlobalContext} they were initialized in, whose
+ * operations are transient. The context is therefore written as a placeholder, which is resolved to the initializing
+ * context of krun when loading. The file starts with a header recording the modification time of
+ * {@code compiled.bin} and the settings the definition was initialized with; the definition is only loaded if they
+ * match those of krun. The sorts and KLabels of the definition are only added to their caches if their ordinals do not
+ * conflict with those of the sorts and KLabels krun created before loading it.
+ */
+public class PrecompiledDefinition {
+
+    public static final String FILE = "java-definition.bin";
+
+    private static final int VERSION = 1;
+
+    private enum GlobalContextPlaceholder {
+        INSTANCE
+    }
+
+    /**
+     * Initializes the backend definition of the given module and saves it to the kompiled directory. Failing to
+     * initialize or save it is not an error, as krun then initializes the definition itself.
+     */
+    public static void save(Module module, KExceptionManager kem, FileUtil files, GlobalOptions globalOptions, KompileOptions kompileOptions) {
+        File file = files.resolveKompiled(FILE);
+        file.delete();
+        SMTOptions smtOptions = kompileOptions.experimental.smt;
+        GlobalContext global = new GlobalContext(new PortableFileSystem(kem, files), false, globalOptions, new KRunOptions(),
+                kem, smtOptions, HookProvider.get(kem), files, Stage.INITIALIZING);
+
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file))) {
+            {
+                enableReplaceObject(true);
+            }
+
+            @Override
+            protected Object replaceObject(Object obj) {
+                return obj instanceof GlobalContext ? GlobalContextPlaceholder.INSTANCE : obj;
+            }
+        }) {
+            out.writeInt(VERSION);
+            out.writeLong(files.resolveKompiled("compiled.bin").lastModified());
+            out.writeUTF(settings(false, smtOptions));
+            out.writeUTF(module.name());
+            out.writeObject(new InitializeRewriter.InitializeDefinition().invoke(module, kem, global));
+        } catch (IOException | KEMException e) {
+            file.delete();
+            kem.registerInternalHiddenWarning("Could not save the initialized definition.", e);
+        } finally {
+            global.close();
+        }
+    }
+
+    /**
+     * Loads the backend definition of the given module saved by kompile, and makes it the definition of the given
+     * initializing context.
+     *
+     * @return the definition, or null if none was saved for the given module with the settings of the given context
+     */
+    public static Definition load(Module module, KExceptionManager kem, GlobalContext global) {
+        File file = global.files.resolveKompiled(FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file))) {
+            {
+                enableResolveObject(true);
+            }
+
+            @Override
+            protected Object resolveObject(Object obj) {
+                return obj == GlobalContextPlaceholder.INSTANCE ? global : obj;
+            }
+        }) {
+            if (in.readInt() != VERSION
+                    || in.readLong() != global.files.resolveKompiled("compiled.bin").lastModified()
+                    || !in.readUTF().equals(settings(global.deterministicFunctions, global.smtOptions))
+                    || !in.readUTF().equals(module.name())) {
+                return null;
+            }
+            Definition definition;
+            try (SymbolLoading loading = SymbolLoading.start()) {
+                definition = (Definition) in.readObject();
+                loading.commit();
+            }
+            definition.setKem(kem);
+            global.setDefinition(definition);
+            return definition;
+        } catch (IOException | ClassNotFoundException | KEMException e) {
+            kem.registerInternalHiddenWarning("Could not load the initialized definition; initializing it again.", e);
+            return null;
+        }
+    }
+
+    /**
+     * The settings affecting the initialization of a definition.
+     */
+    private static String settings(boolean deterministicFunctions, SMTOptions smtOptions) {
+        return "deterministicFunctions=" + deterministicFunctions
+                + ",smt=" + smtOptions.smt
+                + ",floatsAsPO=" + smtOptions.floatsAsPO
+                + ",smtPrelude=" + smtOptions.smtPrelude;
+    }
+}
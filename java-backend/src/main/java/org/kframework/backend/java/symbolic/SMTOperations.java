@@ -3,6 +3,7 @@ package org.kframework.backend.java.symbolic;
 
 import org.kframework.backend.java.kil.Definition;
 import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.util.SMTResultCache;
 import org.kframework.backend.java.util.Z3Wrapper;
 import org.kframework.utils.options.SMTOptions;
 import org.kframework.utils.options.SMTSolver;
@@ -11,17 +12,20 @@ import java.util.Set;
 
 import com.google.inject.Provider;
 
-public class SMTOperations {
+public class SMTOperations implements AutoCloseable {
 
     private final SMTOptions smtOptions;
     private final Z3Wrapper z3;
+    private final SMTResultCache resultCache;
 
     public SMTOperations(
             Provider<Definition> definitionProvider,
             SMTOptions smtOptions,
-            Z3Wrapper z3) {
+            Z3Wrapper z3,
+            SMTResultCache resultCache) {
         this.smtOptions = smtOptions;
         this.z3 = z3;
+        this.resultCache = resultCache;
     }
 
     public boolean checkUnsat(ConjunctiveFormula constraint) {
@@ -35,8 +39,8 @@ public class SMTOperations {
 
         boolean result = false;
         try {
-            String query = KILtoSMTLib.translateConstraint(constraint);
-            result = z3.isUnsat(query, smtOptions.z3CnstrTimeout);
+            String query = KILtoSMTLib.translateConstraint(constraint, true);
+            result = resultCache.isUnsat(query, smtOptions.z3CnstrTimeout);
             if (result && RuleAuditing.isAuditBegun()) {
                 System.err.println("SMT query returned unsat: " + query);
             }
@@ -46,6 +50,22 @@ public class SMTOperations {
         return result;
     }
 
+    /**
+     * Returns the statistics of the solver sessions used so far.
+     */
+    public String solverStatistics() {
+        return z3.statistics();
+    }
+
+    /**
+     * Stops the solver sessions and closes the result cache.
+     */
+    @Override
+    public void close() {
+        z3.close();
+        resultCache.close();
+    }
+
     /**
      * Checks if {@code left => right}, or {@code left /\ !right} is unsat.
      */
@@ -55,8 +75,8 @@ public class SMTOperations {
             Set<Variable> rightOnlyVariables) {
         if (smtOptions.smt == SMTSolver.Z3) {
             try {
-                return z3.isUnsat(
-                        KILtoSMTLib.translateImplication(left, right, rightOnlyVariables),
+                return resultCache.isUnsat(
+                        KILtoSMTLib.translateImplication(left, right, rightOnlyVariables, true),
                         smtOptions.z3ImplTimeout);
             } catch (UnsupportedOperationException e) {
                 e.printStackTrace();
@@ -0,0 +1,130 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.kframework.kore.K;
+import org.kframework.rewriter.SearchObserver;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The results found by a search so far. Passes each result on to the observer of the search, and tells the
+ * search when it is over, i.e., when the bound has been reached or the search has been cancelled. May be used
+ * concurrently by the workers of the parallel search of {@link SymbolicRewriter}.
+ * <p>
+ * The results are accepted, up to the bound, under a lock, but they are passed on to the observer outside of it,
+ * and only by the thread which started the search, in the order in which they were accepted. The results
+ * accepted by other threads are queued until that thread calls {@link #deliverUntilDone}.
+ */
+class SearchResults {
+    /**
+     * The number of expanded states between two progress reports.
+     */
+    static final int PROGRESS_INTERVAL = 1000;
+    /**
+     * How long the thread which started the search waits for new results before checking its workers again.
+     */
+    static final long POLL_MILLISECONDS = 10;
+
+    private final SearchObserver observer;
+    private final AtomicBoolean cancelled;
+    private final int bound;
+    private final Thread owner = Thread.currentThread();
+    private final BlockingQueue<K> accepted = new LinkedBlockingQueue<>();
+    /**
+     * The progress to report, as the size of the frontier and the number of visited states, or null.
+     */
+    private final AtomicReference<int[]> progress = new AtomicReference<>();
+    private int size = 0;
+    private volatile boolean boundReached = false;
+    private int expanded = 0;
+
+    SearchResults(SearchObserver observer, AtomicBoolean cancelled, int bound) {
+        this.observer = observer;
+        this.cancelled = cancelled;
+        this.bound = bound;
+    }
+
+    boolean isDone() {
+        return boundReached || cancelled.get();
+    }
+
+    /**
+     * Accepts the results, up to the bound, unless the search is already over, and passes them on to the
+     * observer if called by the thread which started the search.
+     *
+     * @return {@code true} if the search is over
+     */
+    boolean addAll(List<K> results) {
+        boolean done = accept(results);
+        deliverIfOwner();
+        return done;
+    }
+
+    private synchronized boolean accept(List<K> results) {
+        for (K result : results) {
+            if (isDone()) {
+                return true;
+            }
+            accepted.add(result);
+            boundReached = ++size == bound;
+        }
+        return isDone();
+    }
+
+    /**
+     * Records the expansion of a state, and reports the progress of the search every
+     * {@link #PROGRESS_INTERVAL} expansions.
+     */
+    void expanded(int frontierSize, int visitedCount) {
+        synchronized (this) {
+            if (++expanded % PROGRESS_INTERVAL != 0) {
+                return;
+            }
+        }
+        progress.set(new int[] {frontierSize, visitedCount});
+        deliverIfOwner();
+    }
+
+    private void deliverIfOwner() {
+        if (Thread.currentThread() == owner) {
+            deliver();
+        }
+    }
+
+    /**
+     * Passes the accepted results and the progress on to the observer. Only called by the thread which started
+     * the search.
+     */
+    private void deliver() {
+        for (K result = accepted.poll(); result != null; result = accepted.poll()) {
+            observer.result(result);
+        }
+        int[] report = progress.getAndSet(null);
+        if (report != null) {
+            observer.progress(report[0], report[1]);
+        }
+    }
+
+    /**
+     * Passes the results accepted by the workers on to the observer as they come, until all the given tasks are
+     * done.
+     */
+    void deliverUntilDone(List<? extends Future<?>> tasks) throws InterruptedException {
+        for (Future<?> task : tasks) {
+            while (!task.isDone()) {
+                K result = accepted.poll(POLL_MILLISECONDS, TimeUnit.MILLISECONDS);
+                if (result != null) {
+                    observer.result(result);
+                }
+                deliver();
+            }
+        }
+        deliver();
+    }
+}
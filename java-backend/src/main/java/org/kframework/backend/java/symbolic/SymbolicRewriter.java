@@ -2,6 +2,7 @@
 package org.kframework.backend.java.symbolic;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.apache.commons.lang3.tuple.Pair;
@@ -23,7 +24,10 @@ import org.kframework.backend.java.kil.Term;
 import org.kframework.backend.java.kil.TermContext;
 import org.kframework.backend.java.kil.Variable;
 import org.kframework.backend.java.strategies.TransitionCompositeStrategy;
+import org.kframework.backend.java.util.FingerprintSet;
+import org.kframework.backend.java.util.FunctionMemoization;
 import org.kframework.backend.java.util.JavaKRunState;
+import org.kframework.backend.java.util.StateSet;
 import org.kframework.builtin.KLabels;
 import org.kframework.kil.ASTNode;
 import org.kframework.kompile.KompileOptions;
@@ -32,17 +36,28 @@ import org.kframework.kore.K;
 import org.kframework.kore.KApply;
 import org.kframework.kore.KORE;
 import org.kframework.krun.api.KRunState;
+import org.kframework.rewriter.SearchObserver;
+import org.kframework.rewriter.SearchStrategy;
 import org.kframework.rewriter.SearchType;
 import org.kframework.utils.BitSet;
+import org.kframework.utils.errorsystem.KEMException;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -51,12 +66,15 @@ import java.util.stream.Collectors;
 public class SymbolicRewriter {
 
     private final TransitionCompositeStrategy strategy;
-    private final List<String> transitions;
+    /**
+     * Whether each rule of the {@link #definition}, by its index, is a transition.
+     */
+    private final boolean[] transitionRules;
     private final Stopwatch stopwatch = Stopwatch.createUnstarted();
     private final KOREtoBackendKIL constructor;
     private boolean transition;
-    private final Set<ConstrainedTerm> superheated = Sets.newHashSet();
-    private final Set<ConstrainedTerm> newSuperheated = Sets.newHashSet();
+    private final Set<ConstrainedTerm> superheated = Sets.newConcurrentHashSet();
+    private final Set<ConstrainedTerm> newSuperheated = Sets.newConcurrentHashSet();
     private final KRunState.Counter counter;
     private final FastRuleMatcher theFastMatcher;
     private final Definition definition;
@@ -70,7 +88,7 @@ public class SymbolicRewriter {
         this.allRuleBits.makeOnes(definition.ruleTable.size());
         this.counter = counter;
         this.strategy = new TransitionCompositeStrategy(kompileOptions.transition);
-        this.transitions = kompileOptions.transition;
+        this.transitionRules = definition.transitionRules(kompileOptions.transition);
         this.theFastMatcher = new FastRuleMatcher(global, definition.ruleTable.size());
         this.transition = true;
     }
@@ -96,6 +114,12 @@ public class SymbolicRewriter {
         stopwatch.stop();
         if (afterVariableRename.termContext().global().krunOptions.experimental.statistics) {
             System.err.println("[" + step + ", " + stopwatch + " ]");
+            FunctionMemoization memoization = afterVariableRename.termContext().global().memoization;
+            if (memoization != null) {
+                CacheStats memoStats = memoization.stats();
+                System.err.println("[" + memoStats.hitCount() + " memo hits, " + memoStats.missCount() + " memo misses]");
+            }
+            System.err.println(afterVariableRename.termContext().global().constraintOps.solverStatistics());
         }
 
         return finalState;
@@ -157,23 +181,32 @@ public class SymbolicRewriter {
     }
 
     public List<ConstrainedTerm> fastComputeRewriteStep(ConstrainedTerm subject, boolean computeOne, boolean narrowing, boolean proofFlag) {
+        return fastComputeRewriteStep(theFastMatcher, subject, computeOne, narrowing, proofFlag);
+    }
+
+    /**
+     * Computes the rewrite step using the given matcher. {@link FastRuleMatcher} is stateful, so concurrent callers
+     * must each supply their own instance.
+     */
+    private List<ConstrainedTerm> fastComputeRewriteStep(FastRuleMatcher matcher, ConstrainedTerm subject, boolean computeOne, boolean narrowing, boolean proofFlag) {
         List<ConstrainedTerm> results = new ArrayList<>();
         if (definition.automaton == null) {
             return results;
         }
-        List<FastRuleMatcher.RuleMatchResult> matches = theFastMatcher.matchRulePattern(
+        List<FastRuleMatcher.RuleMatchResult> matches = matcher.matchRulePattern(
                 subject,
                 definition.automaton.leftHandSide(),
+                definition.compiledAutomaton(),
                 allRuleBits,
                 narrowing,
                 computeOne,
-                transitions,
+                transitionRules,
                 proofFlag,
                 subject.termContext());
         for (FastRuleMatcher.RuleMatchResult matchResult : matches) {
             Rule rule = definition.ruleTable.get(matchResult.ruleIndex);
             Substitution<Variable, Term> substitution =
-                    rule.containsAttribute(Att.refers_THIS_CONFIGURATION()) ?
+                    rule.refersThisConfiguration() ?
                             matchResult.constraint.substitution().plus(new Variable(KLabels.THIS_CONFIGURATION, Sort.KSEQUENCE), filterOurStrategyCell(subject.term())) :
                             matchResult.constraint.substitution();
             // start the optimized substitution
@@ -184,12 +217,14 @@ public class SymbolicRewriter {
             if (matchResult.rewrites.size() == 1)
             // use the more efficient implementation if we only have one rewrite
             {
-                theNew = buildRHS(subject.term(), substitution, matchResult.rewrites.keySet().iterator().next(),
-                        matchResult.rewrites.values().iterator().next(), subject.termContext());
+                Map.Entry<scala.collection.immutable.List<Pair<Integer, Integer>>, Term> rewrite = matchResult.rewrites.entrySet().iterator().next();
+                theNew = buildRHS(subject.term(), substitution, positions(rewrite.getKey()), 0, rewrite.getValue(), subject.termContext());
             } else {
-                theNew = buildRHS(subject.term(), substitution,
-                        matchResult.rewrites.entrySet().stream().map(e -> Pair.of(e.getKey(), e.getValue())).collect(Collectors.toList()),
-                        subject.termContext());
+                List<Pair<int[], Term>> rewrites = new ArrayList<>(matchResult.rewrites.size());
+                for (Map.Entry<scala.collection.immutable.List<Pair<Integer, Integer>>, Term> rewrite : matchResult.rewrites.entrySet()) {
+                    rewrites.add(Pair.of(positions(rewrite.getKey()), rewrite.getValue()));
+                }
+                theNew = buildRHS(subject.term(), substitution, rewrites, 0, subject.termContext());
             }
 
             if (!matchResult.isMatching) {
@@ -202,12 +237,15 @@ public class SymbolicRewriter {
             ConjunctiveFormula constraint = matchResult.constraint;
             constraint = constraint.removeBindings(rule.variableSet());
 
-            /* get fresh substitutions of rule variables */
-            Map<Variable, Variable> renameSubst = Variable.rename(rule.variableSet());
+            /* get fresh substitutions of the rule variables left in the result */
+            Map<Variable, Variable> renameSubst = renameRuleVariables(rule, theNew, constraint);
 
             /* rename rule variables in both the term and the constraint */
-            theNew = theNew.substituteWithBinders(renameSubst);
-            constraint = ((ConjunctiveFormula) constraint.substituteWithBinders(renameSubst)).simplify(subject.termContext());
+            if (!renameSubst.isEmpty()) {
+                theNew = theNew.substituteWithBinders(renameSubst);
+                constraint = (ConjunctiveFormula) constraint.substituteWithBinders(renameSubst);
+            }
+            constraint = constraint.simplify(subject.termContext());
 
             ConstrainedTerm result = new ConstrainedTerm(theNew, constraint, subject.termContext());
             if (!matchResult.isMatching) {
@@ -219,9 +257,9 @@ public class SymbolicRewriter {
             }
 
             /* TODO(AndreiS): remove this hack for super strictness after strategies work */
-            if (rule.containsAttribute(Att.heat()) && transitions.stream().anyMatch(rule::containsAttribute)) {
+            if (rule.isHeat() && transitionRules[matchResult.ruleIndex]) {
                 newSuperheated.add(result);
-            } else if (rule.containsAttribute(Att.cool()) && transitions.stream().anyMatch(rule::containsAttribute) && superheated.contains(subject)) {
+            } else if (rule.isCool() && transitionRules[matchResult.ruleIndex] && superheated.contains(subject)) {
                 continue;
             }
 
@@ -236,7 +274,7 @@ public class SymbolicRewriter {
     }
 
     private Term restoreConfigurationIfNecessary(ConstrainedTerm subject, Rule rule, Term theNew) {
-        if (rule.containsAttribute(Att.refers_RESTORE_CONFIGURATION())) {
+        if (rule.refersRestoreConfiguration()) {
             K strategyCell = new FindK() {
                 public scala.collection.Set<K> apply(KApply k) {
                     if (k.klabel().name().equals(Strategy.strategyCellName()))
@@ -288,25 +326,39 @@ public class SymbolicRewriter {
     }
 
     /**
-     * goes down the path on the subject to find the rewrite place, does the substitution, and reconstructs the term
-     * on its way up
+     * Returns the positions of the children along the given path of (start, end) pairs of a rewrite.
+     */
+    private static int[] positions(scala.collection.immutable.List<Pair<Integer, Integer>> path) {
+        int[] positions = new int[path.length()];
+        int i = 0;
+        for (scala.collection.immutable.List<Pair<Integer, Integer>> rest = path; !rest.isEmpty(); rest = (scala.collection.immutable.List<Pair<Integer, Integer>>) rest.tail()) {
+            positions[i++] = rest.head().getLeft();
+        }
+        return positions;
+    }
+
+    /**
+     * goes down the path on the subject, from the given depth, to find the rewrite place, does the substitution,
+     * and reconstructs the term on its way up, replacing one child at each level and sharing the other ones
      */
-    private Term buildRHS(Term subject, Substitution<Variable, Term> substitution, scala.collection.immutable.List<Pair<Integer, Integer>> path, Term rhs, TermContext context) {
-        if (path.isEmpty()) {
+    static Term buildRHS(Term subject, Substitution<Variable, Term> substitution, int[] path, int depth, Term rhs, TermContext context) {
+        if (depth == path.length) {
             return rhs.substituteAndEvaluate(substitution, context);
         } else {
+            int index = path[depth];
             if (subject instanceof KItem) {
                 KItem kItemSubject = (KItem) subject;
-                List<Term> newContents = new ArrayList<>(((KList) kItemSubject.kList()).getContents());
-                newContents.set(path.head().getLeft(), buildRHS(newContents.get(path.head().getLeft()), substitution, (scala.collection.immutable.List<Pair<Integer, Integer>>) path.tail(), rhs, context));
-                return KItem.of(kItemSubject.kLabel(), KList.concatenate(newContents), context.global()).applyAnywhereRules(context);
+                KList kList = (KList) kItemSubject.kList();
+                Term child = buildRHS(kList.get(index), substitution, path, depth + 1, rhs, context);
+                return KItem.of(kItemSubject.kLabel(), kList.withElements(new int[]{index}, new Term[]{child}), context.global()).applyAnywhereRules(context);
             } else if (subject instanceof BuiltinList) {
                 BuiltinList builtinListSubject = (BuiltinList) subject;
-                List<Term> newContents = new ArrayList<>(builtinListSubject.children);
-                newContents.set(path.head().getLeft(), buildRHS(newContents.get(path.head().getLeft()), substitution, (scala.collection.immutable.List<Pair<Integer, Integer>>) path.tail(), rhs, context));
+                // the children around the rewritten one are shared with the subject rather than copied
                 return BuiltinList
                         .builder(builtinListSubject.sort, builtinListSubject.operatorKLabel, builtinListSubject.unitKLabel, builtinListSubject.globalContext())
-                        .addAll(newContents)
+                        .add(builtinListSubject.range(0, index))
+                        .add(buildRHS(builtinListSubject.get(index), substitution, path, depth + 1, rhs, context))
+                        .add(builtinListSubject.range(index + 1, builtinListSubject.size()))
                         .build();
             } else {
                 throw new AssertionError("unexpected rewrite in subject: " + subject);
@@ -315,15 +367,22 @@ public class SymbolicRewriter {
     }
 
     /**
-     * goes down each of the the paths on the subject to find the rewrite place, does the substitution,
-     * and reconstructs the term on its way up
+     * goes down each of the the paths on the subject, from the given depth, to find the rewrite place, does the
+     * substitution, and reconstructs the term on its way up
      */
-    private Term buildRHS(Term subject, Substitution<Variable, Term> substitution, List<Pair<scala.collection.immutable.List<Pair<Integer, Integer>>, Term>> rewrites, TermContext context) {
-        if (rewrites.size() == 1 && rewrites.get(0).getLeft().isEmpty()) {
+    static Term buildRHS(Term subject, Substitution<Variable, Term> substitution, List<Pair<int[], Term>> rewrites, int depth, TermContext context) {
+        if (rewrites.size() == 1 && rewrites.get(0).getLeft().length == depth) {
             return rewrites.get(0).getRight().substituteAndEvaluate(substitution, context);
         }
 
-        Map<Pair<Integer, Integer>, List<Pair<scala.collection.immutable.List<Pair<Integer, Integer>>, Term>>> commonPath = rewrites.stream().collect(Collectors.groupingBy(rw -> rw.getLeft().head()));
+        /* group the rewrites by the child they go into, in the order of the children */
+        rewrites.sort((rewrite1, rewrite2) -> Integer.compare(rewrite1.getLeft()[depth], rewrite2.getLeft()[depth]));
+        int groups = 1;
+        for (int i = 1; i < rewrites.size(); i++) {
+            if (rewrites.get(i).getLeft()[depth] != rewrites.get(i - 1).getLeft()[depth]) {
+                groups++;
+            }
+        }
 
         List<Term> contents;
         if (subject instanceof KItem) {
@@ -333,28 +392,56 @@ public class SymbolicRewriter {
         } else {
             throw new AssertionError("unexpected rewrite in subject: " + subject);
         }
-        List<Term> newContents = new ArrayList<>();
-
-        for (int i = 0; i < contents.size(); i++) {
-            Pair<Integer, Integer> pair = Pair.of(i, i + 1);
-            if (commonPath.containsKey(pair)) {
-                List<Pair<scala.collection.immutable.List<Pair<Integer, Integer>>, Term>> theInnerRewrites = commonPath.get(pair).stream().map(p -> Pair.of(
-                        (scala.collection.immutable.List<Pair<Integer, Integer>>) p.getLeft().tail(), p.getRight())).collect(Collectors.toList());
-                newContents.add(buildRHS(contents.get(i), substitution, theInnerRewrites, context));
-            } else {
-                newContents.add(contents.get(i));
+        int[] positions = new int[groups];
+        Term[] children = new Term[groups];
+        for (int from = 0, group = 0; from < rewrites.size(); group++) {
+            int position = rewrites.get(from).getLeft()[depth];
+            int to = from + 1;
+            while (to < rewrites.size() && rewrites.get(to).getLeft()[depth] == position) {
+                to++;
             }
+            positions[group] = position;
+            children[group] = buildRHS(contents.get(position), substitution, rewrites.subList(from, to), depth + 1, context);
+            from = to;
         }
 
         if (subject instanceof KItem) {
-            return KItem.of(((KItem) subject).kLabel(), KList.concatenate(newContents), context.global()).applyAnywhereRules(context);
-        } else if (subject instanceof BuiltinList) {
-            return BuiltinList
-                    .builder(((BuiltinList) subject).sort, ((BuiltinList) subject).operatorKLabel, ((BuiltinList) subject).unitKLabel, ((BuiltinList) subject).globalContext())
-                    .addAll(newContents)
-                    .build();
+            return KItem.of(((KItem) subject).kLabel(), ((KList) ((KItem) subject).kList()).withElements(positions, children), context.global()).applyAnywhereRules(context);
         } else {
-            throw new AssertionError("unexpected rewrite in subject: " + subject);
+            BuiltinList builtinListSubject = (BuiltinList) subject;
+            BuiltinList.Builder builder = BuiltinList.builder(builtinListSubject.sort, builtinListSubject.operatorKLabel, builtinListSubject.unitKLabel, builtinListSubject.globalContext());
+            int start = 0;
+            for (int group = 0; group < groups; group++) {
+                builder.add(builtinListSubject.range(start, positions[group]));
+                builder.add(children[group]);
+                start = positions[group] + 1;
+            }
+            return builder.add(builtinListSubject.range(start, builtinListSubject.size())).build();
+        }
+    }
+
+    /**
+     * Returns fresh copies of the variables of the given rule which occur in the given result of applying it. Only
+     * these variables need to be renamed; during concrete execution, no rule variable is left in the result, so
+     * neither fresh variables are created nor the result is traversed again.
+     */
+    static Map<Variable, Variable> renameRuleVariables(Rule rule, Term term, ConjunctiveFormula constraint) {
+        Set<Variable> ruleVariables = rule.variableSet();
+        Set<Variable> leftVariables = new HashSet<>();
+        if (!term.isGround()) {
+            addRuleVariables(term.variableSet(), ruleVariables, leftVariables);
+        }
+        addRuleVariables(constraint.variableSet(), ruleVariables, leftVariables);
+        return leftVariables.isEmpty() ? Collections.emptyMap() : Variable.rename(leftVariables);
+    }
+
+    private static void addRuleVariables(Set<Variable> variables, Set<Variable> ruleVariables, Set<Variable> result) {
+        Set<Variable> smaller = variables.size() < ruleVariables.size() ? variables : ruleVariables;
+        Set<Variable> larger = smaller == variables ? ruleVariables : variables;
+        for (Variable variable : smaller) {
+            if (larger.contains(variable)) {
+                result.add(variable);
+            }
         }
     }
 
@@ -387,12 +474,15 @@ public class SymbolicRewriter {
         /* eliminate bindings of the substituted variables */
         constraint = constraint.removeBindings(substitutedVars);
 
-        /* get fresh substitutions of rule variables */
-        Map<Variable, Variable> renameSubst = Variable.rename(rule.variableSet());
+        /* get fresh substitutions of the rule variables left in the result */
+        Map<Variable, Variable> renameSubst = renameRuleVariables(rule, term, constraint);
 
         /* rename rule variables in both the term and the constraint */
-        term = term.substituteWithBinders(renameSubst);
-        constraint = ((ConjunctiveFormula) constraint.substituteWithBinders(renameSubst)).simplify(context);
+        if (!renameSubst.isEmpty()) {
+            term = term.substituteWithBinders(renameSubst);
+            constraint = (ConjunctiveFormula) constraint.substituteWithBinders(renameSubst);
+        }
+        constraint = constraint.simplify(context);
 
         ConstrainedTerm result = new ConstrainedTerm(term, constraint, context);
         if (expandPattern) {
@@ -409,13 +499,25 @@ public class SymbolicRewriter {
     /**
      * Unifies the term with the pattern, and computes a map from variables in
      * the pattern to the terms they unify with. Adds as many search results
-     * up to the bound as were found, and returns {@code true} if the bound has been reached.
+     * up to the bound as were found, and returns {@code true} if the search is over.
      */
     private boolean addSearchResult(
-            List<K> searchResults,
+            SearchResults searchResults,
+            ConstrainedTerm subject,
+            Rule pattern,
+            TermContext context,
+            boolean subsitution) {
+        return searchResults.addAll(matchSearchPattern(subject, pattern, context, subsitution));
+    }
+
+    /**
+     * Returns the search results contributed by the given subject, i.e., the substitutions (or the renamed
+     * configurations) obtained by matching the subject against the pattern. Does not modify any state of this
+     * rewriter, so it may be called concurrently.
+     */
+    private List<K> matchSearchPattern(
             ConstrainedTerm subject,
             Rule pattern,
-            int bound,
             TermContext context,
             boolean subsitution) {
         assert Sets.intersection(subject.term().variableSet(),
@@ -425,26 +527,25 @@ public class SymbolicRewriter {
                 subject.term(),
                 pattern.leftHandSide(),
                 subject.termContext());
+        if (discoveredSearchResults.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<K> searchResults = new ArrayList<>();
         RenameAnonymousVariables renameAnonymousVariables = new RenameAnonymousVariables();
-        if (!discoveredSearchResults.isEmpty()) {
-            if (subsitution) {
-                for (Substitution<Variable, Term> searchResult : discoveredSearchResults) {
-                    ConjunctiveFormula conjunct = new ConjunctiveFormula(searchResult, subject.constraint().equalities(), PersistentUniqueList.empty(), subject.constraint().truthValue(), context.global());
-                    searchResults.add(renameAnonymousVariables.apply(conjunct));
-                }
+        if (subsitution) {
+            for (Substitution<Variable, Term> searchResult : discoveredSearchResults) {
+                ConjunctiveFormula conjunct = new ConjunctiveFormula(searchResult, subject.constraint().equalities(), PersistentUniqueList.empty(), subject.constraint().truthValue(), context.global());
+                Term result = renameAnonymousVariables.apply(conjunct);
+                searchResults.add(result instanceof ConjunctiveFormula ? processConjuncts((ConjunctiveFormula) result) : result);
+            }
+        } else {
+            if (!subject.constraint().isTrue()) {
+                searchResults.add(KORE.KApply(KORE.KLabel(KLabels.ML_AND), renameAnonymousVariables.apply(subject.term()), renameAnonymousVariables.apply(subject.constraint())));
             } else {
-                if (!subject.constraint().isTrue()) {
-                    searchResults.add(KORE.KApply(KORE.KLabel(KLabels.ML_AND), renameAnonymousVariables.apply(subject.term()), renameAnonymousVariables.apply(subject.constraint())));
-                } else {
-                    searchResults.add(renameAnonymousVariables.apply(subject.term()));
-                }
+                searchResults.add(renameAnonymousVariables.apply(subject.term()));
             }
         }
-        if (searchResults.size() == bound) {
-            return true;
-        }
-        return false;
-
+        return searchResults;
     }
 
     /**
@@ -464,10 +565,40 @@ public class SymbolicRewriter {
             SearchType searchType,
             TermContext context,
             boolean substitution) {
+        List<K> searchResults = new ArrayList<>();
+        search(initialTerm, pattern, bound, depth, searchType, context, substitution, searchResults::add, new AtomicBoolean(false));
+        return disjunctResults(searchResults);
+    }
+
+    /**
+     * Searches like {@link #search(Term, Rule, int, int, SearchType, TermContext, boolean)}, but passes each result to
+     * the observer as soon as it is found instead of returning them all at the end. Also reports the size of the
+     * frontier and the number of visited states to the observer every {@link SearchResults#PROGRESS_INTERVAL}
+     * expanded states.
+     *
+     * @param cancelled once set, the search stops after the state being expanded
+     */
+    public void search(
+            Term initialTerm,
+            Rule pattern,
+            int bound,
+            int depth,
+            SearchType searchType,
+            TermContext context,
+            boolean substitution,
+            SearchObserver observer,
+            AtomicBoolean cancelled) {
         stopwatch.start();
 
-        List<K> searchResults = new ArrayList<>();
-        Set<ConstrainedTerm> visited = Sets.newHashSet();
+        SearchStrategy searchStrategy = context.global().krunOptions.experimental.searchStrategy;
+        int searchThreads = context.global().krunOptions.experimental.searchThreads;
+        SearchResults searchResults = new SearchResults(observer, cancelled, bound);
+        StateSet<ConstrainedTerm> visited;
+        if (context.global().krunOptions.experimental.searchFingerprints) {
+            visited = new FingerprintSet<ConstrainedTerm>(FingerprintSet::fingerprint);
+        } else {
+            visited = StateSet.hashed(searchThreads > 1);
+        }
 
         ConstrainedTerm initCnstrTerm = new ConstrainedTerm(initialTerm, context);
 
@@ -475,11 +606,11 @@ public class SymbolicRewriter {
         // A more clean solution would require a bit of a rework to how patterns
         // are handled in krun.Main when not doing search.
         if (depth == 0) {
-            addSearchResult(searchResults, initCnstrTerm, pattern, bound, context, substitution);
+            addSearchResult(searchResults, initCnstrTerm, pattern, context, substitution);
             stopwatch.stop();
             if (context.global().krunOptions.experimental.statistics)
                 System.err.println("[" + visited.size() + "states, " + 0 + "steps, " + stopwatch + "]");
-            return disjunctResults(searchResults);
+            return;
         }
 
         // The search queues will map terms to their depth in terms of transitions.
@@ -493,28 +624,57 @@ public class SymbolicRewriter {
             depth = 1;
         }
         if (searchType == SearchType.STAR) {
-            if (addSearchResult(searchResults, initCnstrTerm, pattern, bound, context, substitution)) {
+            if (addSearchResult(searchResults, initCnstrTerm, pattern, context, substitution)) {
                 stopwatch.stop();
                 if (context.global().krunOptions.experimental.statistics)
                     System.err.println("[" + visited.size() + "states, " + 0 + "steps, " + stopwatch + "]");
-                return disjunctResults(searchResults);
+                return;
             }
         }
 
+        if (searchStrategy != SearchStrategy.BREADTH_FIRST) {
+            DepthFirstSearch depthFirstSearch = new DepthFirstSearch(searchResults, pattern, depth, searchType, context, substitution);
+            if (searchStrategy == SearchStrategy.DEPTH_FIRST) {
+                depthFirstSearch.search(initCnstrTerm, visited);
+            } else {
+                depthFirstSearch.iterativeDeepening(initCnstrTerm);
+            }
+            stopwatch.stop();
+            if (context.global().krunOptions.experimental.statistics)
+                System.err.println("[" + visited.size() + "states, " + depthFirstSearch.steps + "steps, " + stopwatch + "]");
+            return;
+        }
+
+        if (searchThreads > 1) {
+            int step = parallelSearch(queue, visited, searchResults, pattern, depth, searchType, context, substitution,
+                    searchThreads, context.global().krunOptions.experimental.deterministicSearch);
+            stopwatch.stop();
+            if (context.global().krunOptions.experimental.statistics) {
+                System.err.println("[" + visited.size() + "states, " + step + "steps, " + stopwatch + "]");
+                System.err.println(context.global().constraintOps.solverStatistics());
+            }
+            return;
+        }
+
         int step;
     label:
         for (step = 0; !queue.isEmpty(); ++step) {
             superheated.clear();
             superheated.addAll(newSuperheated);
             newSuperheated.clear();
+            int unexpanded = queue.size();
             for (Map.Entry<ConstrainedTerm, Integer> entry : queue.entrySet()) {
+                if (searchResults.isDone()) {
+                    break label;
+                }
                 ConstrainedTerm term = entry.getKey();
                 Integer currentDepth = entry.getValue();
 
                 List<ConstrainedTerm> results = computeRewriteStep(term, step, false);
+                searchResults.expanded(--unexpanded + nextQueue.size(), visited.size());
 
                 if (results.isEmpty() && searchType == SearchType.FINAL) {
-                    if (addSearchResult(searchResults, term, pattern, bound, context, substitution)) {
+                    if (addSearchResult(searchResults, term, pattern, context, substitution)) {
                         break label;
                     }
                 }
@@ -532,7 +692,7 @@ public class SymbolicRewriter {
                         // If we aren't searching for only final results, then
                         // also add this as a result if it matches the pattern.
                         if (searchType != SearchType.FINAL || currentDepth + 1 == depth) {
-                            if (addSearchResult(searchResults, result, pattern, bound, context, substitution)) {
+                            if (addSearchResult(searchResults, result, pattern, context, substitution)) {
                                 break label;
                             }
                         }
@@ -552,7 +712,363 @@ public class SymbolicRewriter {
         if (context.global().krunOptions.experimental.statistics) {
             System.err.println("[" + visited.size() + "states, " + step + "steps, " + stopwatch + "]");
         }
-        return disjunctResults(searchResults);
+    }
+
+    /**
+     * Depth-first exploration of the transition system, used by the {@link SearchStrategy#DEPTH_FIRST} and
+     * {@link SearchStrategy#ITERATIVE_DEEPENING} search strategies. The states on the current path are kept on a
+     * stack together with their unexplored successors, so the depth of a state is its position in the stack.
+     */
+    private class DepthFirstSearch {
+
+        private final SearchResults searchResults;
+        private final Rule pattern;
+        private final int depth;
+        private final SearchType searchType;
+        private final TermContext context;
+        private final boolean substitution;
+
+        private int steps = 0;
+        /**
+         * Set if a depth-limited exploration did not expand some states because they were at the limit.
+         */
+        private boolean cutoff;
+        /**
+         * The states already reported by the current iteration of the iterative deepening search, or null.
+         */
+        private Set<ConstrainedTerm> reported;
+
+        DepthFirstSearch(
+                SearchResults searchResults,
+                Rule pattern,
+                int depth,
+                SearchType searchType,
+                TermContext context,
+                boolean substitution) {
+            this.searchResults = searchResults;
+            this.pattern = pattern;
+            this.depth = depth;
+            this.searchType = searchType;
+            this.context = context;
+            this.substitution = substitution;
+        }
+
+        /**
+         * Searches depth-first, skipping the states which are already in {@code visited}. If the depth of the search
+         * is bounded, a visited state is expanded again when it is reached at a smaller depth than before, since
+         * more states are then within the bound from it.
+         *
+         * @return {@code true} if the search is over
+         */
+        boolean search(ConstrainedTerm initialTerm, StateSet<ConstrainedTerm> visited) {
+            return explore(initialTerm, visited, -1);
+        }
+
+        /**
+         * Searches depth-first with limits 1, 2, ... until either the depth of the search is reached or the
+         * exploration is no longer cut off by the limit. Each iteration only reports the results at its limit, each
+         * state at most once, so results are reported in order of depth, as in the breadth-first search.
+         *
+         * @return {@code true} if the search is over
+         */
+        boolean iterativeDeepening(ConstrainedTerm initialTerm) {
+            for (int limit = 1; depth < 0 || limit <= depth; limit++) {
+                cutoff = false;
+                reported = new HashSet<>();
+                if (explore(initialTerm, null, limit)) {
+                    return true;
+                }
+                if (!cutoff) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Explores the states reachable from the initial state. If {@code visited} is null, only the states on the
+         * current path are remembered, to avoid cycles. If {@code limit} is non-negative, the states at depth
+         * {@code limit} are not expanded and only the results at that depth are reported.
+         *
+         * @return {@code true} if the search is over
+         */
+        private boolean explore(ConstrainedTerm initialTerm, StateSet<ConstrainedTerm> visited, int limit) {
+            Deque<PathFrame> stack = new ArrayDeque<>();
+            Set<ConstrainedTerm> path = visited == null ? new HashSet<>() : null;
+
+            if (pushSuccessors(initialTerm, newSuperheated.contains(initialTerm), 0, limit, stack, visited, path)) {
+                return true;
+            }
+            while (!stack.isEmpty()) {
+                PathFrame frame = stack.peek();
+                if (!frame.successors.hasNext()) {
+                    stack.pop();
+                    if (path != null) {
+                        path.remove(frame.term);
+                    }
+                    continue;
+                }
+
+                ConstrainedTerm result = frame.successors.next();
+                int resultDepth = stack.size();
+                // If we aren't searching for only final results, then
+                // also add this as a result if it matches the pattern.
+                if ((limit < 0 || resultDepth == limit)
+                        && (searchType != SearchType.FINAL || resultDepth == depth)) {
+                    if (report(result)) {
+                        return true;
+                    }
+                }
+                // Continue searching if we haven't reached our target
+                // depth and we haven't already visited this state.
+                if (resultDepth != depth && (visited != null ?
+                        visited.add(result, depth < 0 ? 0 : resultDepth) :
+                        !path.contains(result))) {
+                    if (resultDepth == limit) {
+                        cutoff = true;
+                    } else if (pushSuccessors(result, frame.superheated.contains(result), resultDepth, limit, stack,
+                            visited, path)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Computes the successors of the given state and pushes them on the stack, together with those which are
+         * superheated.
+         *
+         * @return {@code true} if the search is over
+         */
+        private boolean pushSuccessors(
+                ConstrainedTerm term,
+                boolean isSuperheated,
+                int termDepth,
+                int limit,
+                Deque<PathFrame> stack,
+                StateSet<ConstrainedTerm> visited,
+                Set<ConstrainedTerm> path) {
+            if (searchResults.isDone()) {
+                return true;
+            }
+            /* only the state being expanded needs to be looked up among the superheated states */
+            superheated.clear();
+            if (isSuperheated) {
+                superheated.add(term);
+            }
+            newSuperheated.clear();
+
+            List<ConstrainedTerm> results = computeRewriteStep(term, steps++, false);
+            Set<ConstrainedTerm> heated = newSuperheated.isEmpty() ?
+                    Collections.emptySet() :
+                    new HashSet<>(newSuperheated);
+            newSuperheated.clear();
+            searchResults.expanded(stack.size(), visited != null ? visited.size() : steps);
+            if (results.isEmpty() && searchType == SearchType.FINAL && (limit < 0 || termDepth == limit - 1)) {
+                if (report(term)) {
+                    return true;
+                }
+            }
+
+            stack.push(new PathFrame(term, results.iterator(), heated));
+            if (path != null) {
+                path.add(term);
+            }
+            return false;
+        }
+
+        /**
+         * Adds the results of the given state, unless the current iteration already reported it.
+         *
+         * @return {@code true} if the search is over
+         */
+        private boolean report(ConstrainedTerm term) {
+            if (reported != null && !reported.add(term)) {
+                return false;
+            }
+            return addSearchResult(searchResults, term, pattern, context, substitution);
+        }
+    }
+
+    /**
+     * A state on the path of a depth-first search, with its successors which are not explored yet and those of
+     * its successors which are superheated.
+     */
+    private static class PathFrame {
+        final ConstrainedTerm term;
+        final Iterator<ConstrainedTerm> successors;
+        final Set<ConstrainedTerm> superheated;
+
+        PathFrame(ConstrainedTerm term, Iterator<ConstrainedTerm> successors, Set<ConstrainedTerm> superheated) {
+            this.term = term;
+            this.successors = successors;
+            this.superheated = superheated;
+        }
+    }
+
+    /**
+     * Breadth-first search in which each frontier is expanded concurrently on a fork-join pool. Every worker thread
+     * uses its own {@link FastRuleMatcher}, and every expanded state its own {@link TermContext}, which only shares
+     * the fresh counter; the visited set is shared between the workers. Frontiers are still processed
+     * one at a time, so the depth limit is exact, and no results are added once the search is over.
+     * <p>
+     * If {@code deterministic} is set, the successors of a frontier are merged in frontier order after the whole
+     * frontier has been expanded. This yields the same results, in the same order, as the sequential search.
+     * Otherwise, each worker merges its successors as soon as they are computed.
+     *
+     * @return the number of steps taken
+     */
+    private int parallelSearch(
+            Map<ConstrainedTerm, Integer> queue,
+            StateSet<ConstrainedTerm> visited,
+            SearchResults searchResults,
+            Rule pattern,
+            int depth,
+            SearchType searchType,
+            TermContext context,
+            boolean substitution,
+            int searchThreads,
+            boolean deterministic) {
+        ThreadLocal<FastRuleMatcher> matchers = ThreadLocal.withInitial(
+                () -> new FastRuleMatcher(context.global(), definition.ruleTable.size()));
+        ForkJoinPool pool = new ForkJoinPool(searchThreads);
+
+        List<Pair<ConstrainedTerm, Integer>> frontier = queue.entrySet().stream()
+                .map(e -> Pair.of(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+        int step;
+        try {
+            for (step = 0; !frontier.isEmpty() && !searchResults.isDone(); ++step) {
+                superheated.clear();
+                superheated.addAll(newSuperheated);
+                newSuperheated.clear();
+
+                Map<ConstrainedTerm, Integer> nextFrontier = Collections.synchronizedMap(Maps.newLinkedHashMap());
+                List<Callable<SearchExpansion>> tasks = new ArrayList<>(frontier.size());
+                int frontierSize = frontier.size();
+                for (Pair<ConstrainedTerm, Integer> entry : frontier) {
+                    tasks.add(() -> {
+                        if (searchResults.isDone()) {
+                            return null;
+                        }
+                        TermContext workerContext = entry.getLeft().termContext().forkSharingCounter();
+                        ConstrainedTerm term = new ConstrainedTerm(entry.getLeft().term(), entry.getLeft().constraint(), workerContext);
+                        SearchExpansion expansion = expand(matchers.get(), term, entry.getRight(), pattern, depth, searchType, workerContext, substitution);
+                        searchResults.expanded(frontierSize, visited.size());
+                        if (!deterministic) {
+                            mergeExpansion(expansion, visited, nextFrontier, searchResults, depth);
+                        }
+                        return expansion;
+                    });
+                }
+
+                List<Future<SearchExpansion>> expansions = tasks.stream().map(pool::submit).collect(Collectors.toList());
+                searchResults.deliverUntilDone(expansions);
+                if (deterministic) {
+                    for (Future<SearchExpansion> expansion : expansions) {
+                        if (searchResults.isDone()) {
+                            break;
+                        }
+                        mergeExpansion(expansion.get(), visited, nextFrontier, searchResults, depth);
+                    }
+                } else {
+                    for (Future<SearchExpansion> expansion : expansions) {
+                        expansion.get();
+                    }
+                }
+
+                frontier = nextFrontier.entrySet().stream()
+                        .map(e -> Pair.of(e.getKey(), e.getValue()))
+                        .collect(Collectors.toList());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw KEMException.criticalError("Interrupted while searching", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw KEMException.criticalError("Search worker failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return step;
+    }
+
+    /**
+     * The successors of a single state of the search frontier, together with the search results contributed by the
+     * state and by each of its successors. Computed by the worker threads of {@link #parallelSearch}.
+     */
+    private static class SearchExpansion {
+        final int depth;
+        final List<K> finalResults;
+        final List<ConstrainedTerm> successors;
+        final List<List<K>> successorResults;
+
+        SearchExpansion(int depth, List<K> finalResults, List<ConstrainedTerm> successors, List<List<K>> successorResults) {
+            this.depth = depth;
+            this.finalResults = finalResults;
+            this.successors = successors;
+            this.successorResults = successorResults;
+        }
+    }
+
+    private SearchExpansion expand(
+            FastRuleMatcher matcher,
+            ConstrainedTerm term,
+            int currentDepth,
+            Rule pattern,
+            int depth,
+            SearchType searchType,
+            TermContext context,
+            boolean substitution) {
+        List<ConstrainedTerm> results = fastComputeRewriteStep(matcher, term, false, false, false);
+
+        List<K> finalResults = results.isEmpty() && searchType == SearchType.FINAL ?
+                matchSearchPattern(term, pattern, context, substitution) :
+                Collections.emptyList();
+
+        List<List<K>> successorResults = new ArrayList<>(results.size());
+        for (ConstrainedTerm result : results) {
+            successorResults.add(transition && (searchType != SearchType.FINAL || currentDepth + 1 == depth) ?
+                    matchSearchPattern(result, pattern, context, substitution) :
+                    Collections.emptyList());
+        }
+        return new SearchExpansion(currentDepth, finalResults, results, successorResults);
+    }
+
+    /**
+     * Adds the successors of an expanded state to the next frontier and its results to the search results. Mirrors
+     * the body of the sequential search loop; may be called concurrently.
+     */
+    private void mergeExpansion(
+            SearchExpansion expansion,
+            StateSet<ConstrainedTerm> visited,
+            Map<ConstrainedTerm, Integer> nextFrontier,
+            SearchResults searchResults,
+            int depth) {
+        if (expansion == null || searchResults.addAll(expansion.finalResults)) {
+            return;
+        }
+
+        for (int i = 0; i < expansion.successors.size(); i++) {
+            ConstrainedTerm result = expansion.successors.get(i);
+            if (!transition) {
+                nextFrontier.put(result, expansion.depth);
+                break;
+            } else {
+                if (expansion.depth + 1 != depth && visited.add(result)) {
+                    nextFrontier.put(result, expansion.depth + 1);
+                }
+                if (searchResults.addAll(expansion.successorResults.get(i))) {
+                    return;
+                }
+            }
+        }
     }
 
     private K kApplyConversion(K k) {
@@ -584,8 +1100,8 @@ public class SymbolicRewriter {
         return KORE.KApply(KORE.KLabel(KLabels.ML_AND), kApplyConversion(conjunct.toKore()), KORE.KApply(KORE.KLabel(KLabels.ML_TRUE)));
     }
 
-    private K disjunctResults(List<K> results) {
-        return results.stream().map(x -> x instanceof ConjunctiveFormula ? processConjuncts((ConjunctiveFormula) x) : x)
+    static K disjunctResults(List<K> results) {
+        return results.stream()
                 .reduce(KORE.KApply(KORE.KLabel(KLabels.ML_FALSE)), (x, y) -> KORE.KApply(KORE.KLabel(KLabels.ML_OR), x, y));
     }
 
@@ -0,0 +1,154 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.kframework.backend.java.kil.ConstrainedTerm;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.symbolic.BottomUpVisitor;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * A {@link StateSet} which stores a 64-bit fingerprint and the depth of each state instead of the state itself,
+ * so that the memory used per state is constant.
+ * <p>
+ * Two distinct states with the same fingerprint are considered equal; for the number of states that can be
+ * explored in practice, the probability of such a collision is negligible. Since the states themselves are not
+ * retained, the set can neither be iterated nor shrunk. The set is thread-safe.
+ */
+public class FingerprintSet<E> implements StateSet<E> {
+
+    /**
+     * Marks an empty slot of the table; the fingerprint with this value is tracked by {@link #containsZero}.
+     */
+    private static final long EMPTY = 0;
+
+    private final ToLongFunction<? super E> fingerprint;
+    private long[] table = new long[1 << 10];
+    /**
+     * The depth of the fingerprint in the same slot of {@link #table}.
+     */
+    private int[] depths = new int[1 << 10];
+    private int size = 0;
+    private boolean containsZero = false;
+    private int zeroDepth;
+
+    public FingerprintSet(ToLongFunction<? super E> fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Returns a fingerprint of the given term made of two structural hashes: the hash code of the term in the upper
+     * half, and the sum of the mixed hash codes of all its subterms in the lower half. Both only use the cached hash
+     * codes of the subterms, and the sum does not depend on the order in which the subterms of collections are
+     * visited.
+     */
+    public static long fingerprint(Term term) {
+        long[] sum = {0};
+        term.accept(new BottomUpVisitor() {
+            @Override
+            public void visit(Term subterm) {
+                sum[0] += mix(subterm.hashCode());
+            }
+        });
+        return ((long) term.hashCode() << 32) | (mix(sum[0]) & 0xffffffffL);
+    }
+
+    public static long fingerprint(ConstrainedTerm constrainedTerm) {
+        return fingerprint(constrainedTerm.term()) * 31 + fingerprint(constrainedTerm.constraint());
+    }
+
+    /**
+     * The 64-bit finalizer of MurmurHash3.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public boolean add(E element, int depth) {
+        long fingerprint = this.fingerprint.applyAsLong(element);
+        synchronized (this) {
+            if (fingerprint == EMPTY) {
+                if (containsZero) {
+                    if (zeroDepth <= depth) {
+                        return false;
+                    }
+                } else {
+                    containsZero = true;
+                    size++;
+                }
+                zeroDepth = depth;
+                return true;
+            }
+
+            int index = indexOf(table, fingerprint);
+            if (table[index] == fingerprint) {
+                if (depths[index] <= depth) {
+                    return false;
+                }
+                depths[index] = depth;
+                return true;
+            }
+            table[index] = fingerprint;
+            depths[index] = depth;
+            size++;
+            if (2 * size > table.length) {
+                resize();
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public boolean contains(E element) {
+        long fingerprint = this.fingerprint.applyAsLong(element);
+        synchronized (this) {
+            if (fingerprint == EMPTY) {
+                return containsZero;
+            }
+            return table[indexOf(table, fingerprint)] == fingerprint;
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "FingerprintSet(" + size() + " elements)";
+    }
+
+    /**
+     * Returns the slot which either contains the given fingerprint or is the empty slot where it should be inserted.
+     */
+    private static int indexOf(long[] table, long fingerprint) {
+        int mask = table.length - 1;
+        int index = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        while (table[index] != EMPTY && table[index] != fingerprint) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void resize() {
+        long[] newTable = new long[table.length * 2];
+        int[] newDepths = new int[table.length * 2];
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != EMPTY) {
+                int index = indexOf(newTable, table[i]);
+                newTable[index] = table[i];
+                newDepths[index] = depths[i];
+            }
+        }
+        table = newTable;
+        depths = newDepths;
+    }
+
+}
@@ -0,0 +1,173 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Rule;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.symbolic.BottomUpVisitor;
+import org.kframework.kil.Attribute;
+import org.kframework.kil.Attributes;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Memo tables for the results of function evaluation, one bounded LRU table per {@link KLabelConstant}.
+ * <p>
+ * Only ground applications of functions marked with the {@code memo} attribute are memoized, or, when
+ * {@code memoizePureFunctions} is set, of any function proven pure. A function is pure if it is not marked
+ * {@code impure}, is not hooked to an I/O or reflection builtin, its rules do not generate fresh constants and
+ * do not apply KLabel variables, and every function its rules mention is itself pure.
+ */
+public class FunctionMemoization {
+
+    public static final String MEMO_KEY = "memo";
+
+    private final int tableSize;
+    private final boolean memoizePureFunctions;
+
+    private final Map<KLabelConstant, Optional<Cache<KList, Term>>> tables = new ConcurrentHashMap<>();
+
+    private volatile Definition definition;
+    private volatile Set<KLabelConstant> impureFunctions;
+
+    public FunctionMemoization(int tableSize, boolean memoizePureFunctions) {
+        this.tableSize = tableSize;
+        this.memoizePureFunctions = memoizePureFunctions;
+    }
+
+    /**
+     * Returns the result of the given function application, evaluating it with the given evaluator unless the
+     * result is memoized already. The result is memoized if the application is ground, the function is
+     * memoizable and the evaluator did evaluate the application.
+     */
+    public Term evaluate(KItem kItem, Definition definition, Function<KItem, Term> evaluator) {
+        Cache<KList, Term> table = kItem.isGround() ? tableOf((KLabelConstant) kItem.kLabel(), definition) : null;
+        if (table == null) {
+            return evaluator.apply(kItem);
+        }
+        KList kList = (KList) kItem.kList();
+        Term result = table.getIfPresent(kList);
+        if (result == null) {
+            result = evaluator.apply(kItem);
+            /* an unevaluated result may be due to an impure builtin, so it is never remembered */
+            if (result != kItem) {
+                table.put(kList, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the memo table of the given function, or {@code null} if its applications must not be memoized.
+     */
+    public Cache<KList, Term> tableOf(KLabelConstant kLabel, Definition definition) {
+        if (this.definition != definition) {
+            synchronized (this) {
+                if (this.definition != definition) {
+                    impureFunctions = computeImpureFunctions(definition);
+                    tables.clear();
+                    this.definition = definition;
+                }
+            }
+        }
+        return tables.computeIfAbsent(kLabel, this::createTable).orElse(null);
+    }
+
+    private Optional<Cache<KList, Term>> createTable(KLabelConstant kLabel) {
+        if (tableSize <= 0
+                || impureFunctions.contains(kLabel)
+                || kLabel.getAttr(MEMO_KEY) == null && !memoizePureFunctions) {
+            return Optional.empty();
+        }
+        return Optional.of(CacheBuilder.newBuilder().maximumSize(tableSize).recordStats().build());
+    }
+
+    /**
+     * Returns the hit and miss counters of every memo table created so far, summed up.
+     */
+    public CacheStats stats() {
+        CacheStats stats = new CacheStats(0, 0, 0, 0, 0, 0);
+        for (Optional<Cache<KList, Term>> table : tables.values()) {
+            if (table.isPresent()) {
+                stats = stats.plus(table.get().stats());
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Computes the set of function labels whose evaluation may depend on anything other than their arguments.
+     */
+    private static Set<KLabelConstant> computeImpureFunctions(Definition definition) {
+        Set<KLabelConstant> impure = new HashSet<>();
+        for (Map.Entry<String, Attributes> entry : definition.kLabelAttributes().entrySet()) {
+            String hook = entry.getValue().getAttr(Attribute.HOOK_KEY);
+            if (entry.getValue().getAttr(Attribute.IMPURE_KEY) != null
+                    || hook != null && (hook.startsWith("IO.") || hook.startsWith("KREFLECTION."))) {
+                impure.add(KLabelConstant.of(entry.getKey(), definition));
+            }
+        }
+
+        Map<KLabelConstant, Set<KLabelConstant>> callees = new HashMap<>();
+        for (KLabelConstant kLabel : definition.functionRules().keySet()) {
+            KLabelCollector collector = new KLabelCollector();
+            for (Rule rule : definition.functionRules().get(kLabel)) {
+                if (!rule.freshConstants().isEmpty() || !rule.freshVariables().isEmpty()) {
+                    collector.dynamic = true;
+                }
+                rule.leftHandSide().accept(collector);
+                rule.rightHandSide().accept(collector);
+                rule.lookups().accept(collector);
+                rule.requires().forEach(t -> t.accept(collector));
+                rule.ensures().forEach(t -> t.accept(collector));
+            }
+            if (collector.dynamic) {
+                impure.add(kLabel);
+            }
+            callees.put(kLabel, collector.kLabels);
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<KLabelConstant, Set<KLabelConstant>> entry : callees.entrySet()) {
+                if (!impure.contains(entry.getKey())
+                        && entry.getValue().stream().anyMatch(impure::contains)) {
+                    impure.add(entry.getKey());
+                    changed = true;
+                }
+            }
+        }
+        return impure;
+    }
+
+    private static class KLabelCollector extends BottomUpVisitor {
+        private final Set<KLabelConstant> kLabels = new HashSet<>();
+        private boolean dynamic = false;
+
+        @Override
+        public void visit(KLabelConstant kLabelConstant) {
+            kLabels.add(kLabelConstant);
+        }
+
+        @Override
+        public void visit(KItem kItem) {
+            if (!(kItem.kLabel() instanceof KLabelConstant)) {
+                dynamic = true;
+            }
+            super.visit(kItem);
+        }
+    }
+}
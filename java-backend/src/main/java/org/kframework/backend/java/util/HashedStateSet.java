@@ -0,0 +1,42 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import java.util.Map;
+
+/**
+ * A {@link StateSet} keeping the states themselves, as the keys of a map to their depths.
+ */
+class HashedStateSet<E> implements StateSet<E> {
+
+    private final Map<E, Integer> depths;
+
+    HashedStateSet(Map<E, Integer> depths) {
+        this.depths = depths;
+    }
+
+    @Override
+    public boolean add(E state, int depth) {
+        while (true) {
+            Integer previous = depths.putIfAbsent(state, depth);
+            if (previous == null) {
+                return true;
+            }
+            if (previous <= depth) {
+                return false;
+            }
+            if (depths.replace(state, previous, depth)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(E state) {
+        return depths.containsKey(state);
+    }
+
+    @Override
+    public int size() {
+        return depths.size();
+    }
+}
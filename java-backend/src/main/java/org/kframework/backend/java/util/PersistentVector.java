@@ -0,0 +1,378 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list represented as a height-balanced binary tree whose leaves are chunks of up to
+ * {@link #CHUNK_SIZE} elements.
+ * <p>
+ * Concatenating, slicing, indexing and updating take O(log n) time, and the results share every untouched
+ * subtree with the operands. Each node also keeps the hash code of its elements, so {@link #hashCode()} takes
+ * constant time and unequal vectors are usually told apart without comparing their elements.
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+    static final int CHUNK_SIZE = 32;
+
+    private static final Leaf EMPTY_LEAF = new Leaf(new Object[0]);
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(EMPTY_LEAF);
+
+    private final Node root;
+
+    private PersistentVector(Node root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    public static <E> PersistentVector<E> of(E element) {
+        return new PersistentVector<>(new Leaf(new Object[]{element}));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof PersistentVector) {
+            return (PersistentVector<E>) elements;
+        }
+        Builder<E> builder = new Builder<>();
+        elements.forEach(builder::add);
+        return builder.build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= root.size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + root.size);
+        }
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            if (index < branch.left.size) {
+                node = branch.left;
+            } else {
+                index -= branch.left.size;
+                node = branch.right;
+            }
+        }
+        return (E) ((Leaf) node).elements[index];
+    }
+
+    @Override
+    public int size() {
+        return root.size;
+    }
+
+    /**
+     * Returns the concatenation of this vector and the given one.
+     */
+    public PersistentVector<E> concat(PersistentVector<? extends E> other) {
+        return new PersistentVector<>(join(root, other.root));
+    }
+
+    /**
+     * Returns the vector of the elements between {@code fromIndex} (inclusive) and {@code toIndex} (exclusive).
+     */
+    public PersistentVector<E> slice(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > root.size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("slice [" + fromIndex + ", " + toIndex + ") out of bounds for size " + root.size);
+        }
+        return new PersistentVector<>(drop(take(root, toIndex), fromIndex));
+    }
+
+    /**
+     * Returns this vector with the element on position {@code index} replaced by the given one.
+     */
+    public PersistentVector<E> updated(int index, E element) {
+        if (index < 0 || index >= root.size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + root.size);
+        }
+        return new PersistentVector<>(updated(root, index, element));
+    }
+
+    @Override
+    public PersistentVector<E> subList(int fromIndex, int toIndex) {
+        return slice(fromIndex, toIndex);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new VectorIterator<>(root);
+    }
+
+    @Override
+    public int hashCode() {
+        return root.power + root.hash;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object instanceof PersistentVector) {
+            PersistentVector<?> vector = (PersistentVector<?>) object;
+            if (root == vector.root) {
+                return true;
+            }
+            if (root.size != vector.root.size || hashCode() != vector.hashCode()) {
+                return false;
+            }
+        }
+        return super.equals(object);
+    }
+
+    /**
+     * A node of the tree. Besides its size and height, each node keeps the polynomial hash of its elements
+     * and the matching power of 31, such that the hash code of the list of its elements is their sum.
+     */
+    private static abstract class Node implements Serializable {
+        final int size;
+        final int height;
+        final int hash;
+        final int power;
+
+        Node(int size, int height, int hash, int power) {
+            this.size = size;
+            this.height = height;
+            this.hash = hash;
+            this.power = power;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] elements;
+
+        Leaf(Object[] elements) {
+            super(elements.length, 0, hash(elements), power(elements.length));
+            this.elements = elements;
+        }
+
+        private static int hash(Object[] elements) {
+            int hash = 0;
+            for (Object element : elements) {
+                hash = 31 * hash + Objects.hashCode(element);
+            }
+            return hash;
+        }
+
+        private static int power(int length) {
+            int power = 1;
+            for (int i = 0; i < length; i++) {
+                power *= 31;
+            }
+            return power;
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node left;
+        final Node right;
+
+        Branch(Node left, Node right) {
+            super(left.size + right.size,
+                    Math.max(left.height, right.height) + 1,
+                    left.hash * right.power + right.hash,
+                    left.power * right.power);
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    /**
+     * Concatenates two balanced trees into a balanced tree, merging the adjacent leaves if they fit in a chunk.
+     */
+    private static Node join(Node left, Node right) {
+        if (left.size == 0) {
+            return right;
+        }
+        if (right.size == 0) {
+            return left;
+        }
+
+        if (left instanceof Leaf && right instanceof Leaf) {
+            if (left.size + right.size <= CHUNK_SIZE) {
+                Object[] elements = Arrays.copyOf(((Leaf) left).elements, left.size + right.size);
+                System.arraycopy(((Leaf) right).elements, 0, elements, left.size, right.size);
+                return new Leaf(elements);
+            }
+            return new Branch(left, right);
+        }
+
+        if (left.height > right.height + 1 || right instanceof Leaf) {
+            Branch branch = (Branch) left;
+            return balance(branch.left, join(branch.right, right));
+        }
+        if (right.height > left.height + 1 || left instanceof Leaf) {
+            Branch branch = (Branch) right;
+            return balance(join(left, branch.left), branch.right);
+        }
+        return new Branch(left, right);
+    }
+
+    /**
+     * Creates a branch of the given trees, whose heights differ by at most 2, rotating it if needed.
+     */
+    private static Node balance(Node left, Node right) {
+        if (left.height > right.height + 1) {
+            Branch branch = (Branch) left;
+            if (branch.left.height >= branch.right.height) {
+                return new Branch(branch.left, new Branch(branch.right, right));
+            } else {
+                Branch inner = (Branch) branch.right;
+                return new Branch(new Branch(branch.left, inner.left), new Branch(inner.right, right));
+            }
+        }
+        if (right.height > left.height + 1) {
+            Branch branch = (Branch) right;
+            if (branch.right.height >= branch.left.height) {
+                return new Branch(new Branch(left, branch.left), branch.right);
+            } else {
+                Branch inner = (Branch) branch.left;
+                return new Branch(new Branch(left, inner.left), new Branch(inner.right, branch.right));
+            }
+        }
+        return new Branch(left, right);
+    }
+
+    /**
+     * Returns the tree of the first {@code n} elements of the given tree.
+     */
+    private static Node take(Node node, int n) {
+        if (n == 0) {
+            return EMPTY_LEAF;
+        }
+        if (n == node.size) {
+            return node;
+        }
+        if (node instanceof Leaf) {
+            return new Leaf(Arrays.copyOf(((Leaf) node).elements, n));
+        }
+        Branch branch = (Branch) node;
+        return n <= branch.left.size ?
+                take(branch.left, n) :
+                join(branch.left, take(branch.right, n - branch.left.size));
+    }
+
+    /**
+     * Returns the tree of the given tree without its first {@code n} elements.
+     */
+    private static Node drop(Node node, int n) {
+        if (n == 0) {
+            return node;
+        }
+        if (n == node.size) {
+            return EMPTY_LEAF;
+        }
+        if (node instanceof Leaf) {
+            return new Leaf(Arrays.copyOfRange(((Leaf) node).elements, n, node.size));
+        }
+        Branch branch = (Branch) node;
+        return n >= branch.left.size ?
+                drop(branch.right, n - branch.left.size) :
+                join(drop(branch.left, n), branch.right);
+    }
+
+    private static Node updated(Node node, int index, Object element) {
+        if (node instanceof Leaf) {
+            Object[] elements = ((Leaf) node).elements.clone();
+            elements[index] = element;
+            return new Leaf(elements);
+        }
+        Branch branch = (Branch) node;
+        return index < branch.left.size ?
+                new Branch(updated(branch.left, index, element), branch.right) :
+                new Branch(branch.left, updated(branch.right, index - branch.left.size, element));
+    }
+
+    private static final class VectorIterator<E> implements Iterator<E> {
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private Object[] chunk = EMPTY_LEAF.elements;
+        private int offset = 0;
+
+        VectorIterator(Node root) {
+            stack.push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (offset == chunk.length) {
+                if (stack.isEmpty()) {
+                    return false;
+                }
+                Node node = stack.pop();
+                while (node instanceof Branch) {
+                    stack.push(((Branch) node).right);
+                    node = ((Branch) node).left;
+                }
+                chunk = ((Leaf) node).elements;
+                offset = 0;
+            }
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return (E) chunk[offset++];
+        }
+    }
+
+    /**
+     * Builds a vector by appending elements and vectors, filling the leaves up to {@link #CHUNK_SIZE} elements.
+     */
+    public static final class Builder<E> {
+        private Node tree = EMPTY_LEAF;
+        private Object[] chunk = new Object[CHUNK_SIZE];
+        private int chunkSize = 0;
+
+        public Builder<E> add(E element) {
+            if (chunkSize == CHUNK_SIZE) {
+                flush();
+            }
+            chunk[chunkSize++] = element;
+            return this;
+        }
+
+        /**
+         * Appends the given vector, sharing its structure instead of copying its elements.
+         */
+        public Builder<E> addAll(PersistentVector<? extends E> vector) {
+            flush();
+            tree = join(tree, vector.root);
+            return this;
+        }
+
+        public int size() {
+            return tree.size + chunkSize;
+        }
+
+        private void flush() {
+            if (chunkSize > 0) {
+                tree = join(tree, new Leaf(Arrays.copyOf(chunk, chunkSize)));
+                chunkSize = 0;
+            }
+        }
+
+        public PersistentVector<E> build() {
+            flush();
+            return new PersistentVector<>(tree);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.kframework.backend.java.kil.Rule;
 import org.kframework.backend.java.kil.Term;
 import org.kframework.backend.java.kil.TermContext;
 import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.rewritemachine.RHSCompiler.RHSConstructor;
 import org.kframework.backend.java.rewritemachine.RHSInstruction;
 import org.kframework.backend.java.symbolic.ConjunctiveFormula;
 import org.kframework.backend.java.symbolic.Equality;
@@ -72,8 +73,11 @@ public class RewriteEngineUtils {
         for (Equality equality : rule.lookups().equalities()) {
             Term lookupOrChoice = equality.leftHandSide();
             Term nonLookupOrChoice =  equality.rightHandSide();
-            List<RHSInstruction> instructions = rule.instructionsOfLookups().get(i);
-            Term evalLookupOrChoice = construct(instructions, crntSubst, context);
+            Term evalLookupOrChoice = construct(
+                    rule.instructionsOfLookups().get(i),
+                    rule.constructorsOfLookups().get(i),
+                    crntSubst,
+                    context);
 
             boolean resolved = false;
             if (evalLookupOrChoice instanceof Bottom
@@ -140,7 +144,11 @@ public class RewriteEngineUtils {
                 // TODO(YilongL): in the future, we may have to accumulate
                 // the substitution obtained from evaluating the side
                 // condition
-                Term evaluatedReq = construct(rule.instructionsOfRequires().get(i), crntSubst, context);
+                Term evaluatedReq = construct(
+                        rule.instructionsOfRequires().get(i),
+                        rule.constructorsOfRequires().get(i),
+                        crntSubst,
+                        context);
                 if (!evaluatedReq.equals(BoolToken.TRUE)) {
                     if (!evaluatedReq.isGround()
                             && context.getTopConstraint() != null
@@ -187,6 +195,21 @@ public class RewriteEngineUtils {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Constructs a term from the given instructions, or with their compiled form if {@code --compile-rhs} is set.
+     */
+    public static Term construct(
+            List<RHSInstruction> rhsInstructions,
+            RHSConstructor rhsConstructor,
+            Map<Variable, Term> solution,
+            TermContext context) {
+        GlobalContext global = context.global();
+        if (global.krunOptions != null && global.krunOptions.experimental.compileRHS) {
+            return rhsConstructor.construct(solution, context);
+        }
+        return construct(rhsInstructions, solution, context);
+    }
+
     public static Term construct(List<RHSInstruction> rhsInstructions, Map<Variable, Term> solution, TermContext context) {
         GlobalContext global = context.global();
 
@@ -0,0 +1,144 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.kframework.utils.errorsystem.KExceptionManager;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the results of the queries checked by a {@link Z3Wrapper}.
+ * <p>
+ * A query is identified by a 128-bit hash of the prelude, the timeout and the query itself, so the queries
+ * should be translated with normalized variable names to be found again after variable renaming.
+ * Only definite (sat or unsat) results are cached, since an unknown result may be due to a timeout or a
+ * failure of the solver. The results may also be kept in a store file, which lets later runs reuse them.
+ * The store is a sequence of fixed-size records (the hash followed by the result), and new results are
+ * appended as they are computed.
+ */
+public class SMTResultCache implements AutoCloseable {
+
+    public static final String STORE_FILE = "smt-cache.bin";
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final int HASH_BYTES = HASH_FUNCTION.bits() / 8;
+
+    private final Z3Wrapper z3;
+    private final KExceptionManager kem;
+    private final HashCode preludeHash;
+    private final Map<HashCode, Boolean> results = new ConcurrentHashMap<>();
+
+    /**
+     * The stream appending to the store file, or null if the results are only kept in memory.
+     */
+    private DataOutputStream store;
+
+    /**
+     * @param storeFile the store file to load the results from and save them to, or null to keep the results
+     *                  in memory only
+     */
+    public SMTResultCache(Z3Wrapper z3, File storeFile, KExceptionManager kem) {
+        this.z3 = z3;
+        this.kem = kem;
+        this.preludeHash = HASH_FUNCTION.hashString(z3.SMT_PRELUDE, StandardCharsets.UTF_8);
+        if (storeFile != null) {
+            try {
+                if (storeFile.exists()) {
+                    load(storeFile);
+                }
+                store = new DataOutputStream(new FileOutputStream(storeFile, true));
+            } catch (IOException e) {
+                kem.registerInternalWarning("Could not open the SMT result cache " + storeFile, e);
+            }
+        }
+    }
+
+    private void load(File storeFile) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(storeFile)))) {
+            byte[] hash = new byte[HASH_BYTES];
+            while (true) {
+                try {
+                    input.readFully(hash);
+                    results.put(HashCode.fromBytes(hash), input.readBoolean());
+                } catch (EOFException e) {
+                    /* a truncated record is the last one and is ignored */
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cached result of the given query, checking it with Z3 if it is not cached yet.
+     */
+    public boolean isUnsat(String query, int timeout) {
+        HashCode hash = HASH_FUNCTION.newHasher()
+                .putBytes(preludeHash.asBytes())
+                .putInt(timeout)
+                .putString(query, StandardCharsets.UTF_8)
+                .hash();
+        Boolean result = results.get(hash);
+        if (result == null) {
+            Z3Wrapper.Result z3Result = z3.check(query, timeout);
+            if (z3Result == Z3Wrapper.Result.UNKNOWN) {
+                return false;
+            }
+            result = z3Result == Z3Wrapper.Result.UNSAT;
+            if (results.putIfAbsent(hash, result) == null) {
+                save(hash, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of results cached so far, including those loaded from the store file.
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Closes the store file. Results computed afterwards are only kept in memory.
+     */
+    @Override
+    public synchronized void close() {
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                kem.registerInternalWarning("Could not close the SMT result cache", e);
+            }
+            store = null;
+        }
+    }
+
+    private synchronized void save(HashCode hash, boolean result) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.write(ByteBuffer.allocate(HASH_BYTES + 1)
+                    .put(hash.asBytes())
+                    .put((byte) (result ? 1 : 0))
+                    .array());
+            store.flush();
+        } catch (IOException e) {
+            kem.registerInternalWarning("Could not save to the SMT result cache", e);
+            store = null;
+        }
+    }
+}
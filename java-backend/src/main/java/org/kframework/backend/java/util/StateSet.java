@@ -0,0 +1,38 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The states visited by a search, each with the smallest depth at which it has been reached so far.
+ */
+public interface StateSet<E> {
+
+    /**
+     * Records that the given state was reached at the given depth.
+     *
+     * @return {@code true} if the state had not been reached before at this depth or a smaller one
+     */
+    boolean add(E state, int depth);
+
+    /**
+     * Records that the given state was reached, regardless of its depth.
+     *
+     * @return {@code true} if the state had not been reached before
+     */
+    default boolean add(E state) {
+        return add(state, 0);
+    }
+
+    boolean contains(E state);
+
+    int size();
+
+    /**
+     * Returns a set which keeps the states themselves in a hash table, thread-safe if {@code concurrent} is set.
+     */
+    static <E> StateSet<E> hashed(boolean concurrent) {
+        return new HashedStateSet<>(concurrent ? new ConcurrentHashMap<>() : new HashMap<>());
+    }
+}
@@ -2,12 +2,21 @@
 package org.kframework.backend.java.util;
 
 import com.google.common.collect.ImmutableSet;
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Expr;
+import com.microsoft.z3.FuncDecl;
 import com.microsoft.z3.Params;
+import com.microsoft.z3.Quantifier;
 import com.microsoft.z3.Solver;
+import com.microsoft.z3.Sort;
 import com.microsoft.z3.Status;
+import com.microsoft.z3.Symbol;
 import com.microsoft.z3.Z3Exception;
+import com.microsoft.z3.enumerations.Z3_decl_kind;
+import com.microsoft.z3.enumerations.Z3_sort_kind;
 import org.kframework.main.GlobalOptions;
 import org.kframework.utils.OS;
+import org.kframework.utils.errorsystem.KEMException;
 import org.kframework.utils.errorsystem.KExceptionManager;
 import org.kframework.utils.file.FileUtil;
 import org.kframework.utils.options.SMTOptions;
@@ -17,23 +26,62 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Traian
  */
-public class Z3Wrapper {
+public class Z3Wrapper implements AutoCloseable {
 
     private static final int Z3_RESTART_LIMIT = 3;
 
     private static final Set<String> Z3_QUERY_RESULTS = ImmutableSet.of("unknown", "sat", "unsat");
 
+    /**
+     * The outcome of checking a query. {@link #UNKNOWN} also stands for timeouts and solver failures.
+     */
+    public enum Result {
+        SAT, UNSAT, UNKNOWN
+    }
+
+    private static final String Z3_READY = "ready";
+
+    /**
+     * How long a query waiting for an idle session waits before checking whether it may start a new one.
+     */
+    private static final long POLL_MILLISECONDS = 10;
+
     public final String SMT_PRELUDE;
     private final SMTOptions options;
     private final GlobalOptions globalOptions;
     private final KExceptionManager kem;
     private final FileUtil files;
 
+    /**
+     * The maximum number of solver sessions, which are created lazily when all the existing ones are in use.
+     */
+    private final int poolSize;
+    private final BlockingQueue<Z3Session> idleSessions = new LinkedBlockingQueue<>();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    /**
+     * Whether the pool is closed, in which case the sessions are stopped as soon as their query is checked.
+     */
+    private volatile boolean closed = false;
+
+    private final AtomicLong queryCount = new AtomicLong();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong waitTime = new AtomicLong();
+
     public Z3Wrapper(
             SMTOptions options,
             KExceptionManager kem,
@@ -45,74 +93,314 @@ public class Z3Wrapper {
         this.files = files;
 
         SMT_PRELUDE = options.smtPrelude == null ? "" : files.loadFromWorkingDirectory(options.smtPrelude);
+        poolSize = Math.max(options.z3Sessions, 1);
     }
 
-    public synchronized boolean isUnsat(String query, int timeout) {
-        if (options.z3Executable) {
-            return checkQueryWithExternalProcess(query, timeout);
-        } else {
-            return checkQueryWithLibrary(query, timeout);
+    /**
+     * Checks the given query with one of the solver sessions of the pool, waiting for one to become idle if
+     * all of them are in use.
+     */
+    public Result check(String query, int timeout) {
+        Z3Session session = leaseSession();
+        try {
+            if (options.z3Executable) {
+                return session.checkQueryWithExternalProcess(query, timeout);
+            } else {
+                return session.checkQueryWithLibrary(query, timeout);
+            }
+        } finally {
+            idleSessions.add(session);
+            if (closed) {
+                closeIdleSessions();
+            }
         }
     }
 
-    private boolean checkQueryWithLibrary(String query, int timeout) {
-        boolean result = false;
+    private Z3Session leaseSession() {
+        queryCount.incrementAndGet();
+        Z3Session session = idleSessions.poll();
+        if (session != null) {
+            return session;
+        }
+        if (sessionCount.incrementAndGet() <= poolSize) {
+            return new Z3Session();
+        }
+        sessionCount.decrementAndGet();
+
+        int depth = queueDepth.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+        long start = System.nanoTime();
         try {
-            com.microsoft.z3.Context context = new com.microsoft.z3.Context();
-            Solver solver = context.mkSolver();
-            Params params = context.mkParams();
-            params.add("timeout", timeout);
-            solver.setParameters(params);
-            solver.add(context.parseSMTLIB2String(SMT_PRELUDE + query, null, null, null, null));
-            result = solver.check() == Status.UNSATISFIABLE;
-            context.dispose();
-        } catch (Z3Exception e) {
-            kem.registerCriticalWarning(
-                    "failed to translate smtlib expression:\n" + SMT_PRELUDE + query);
-        } catch (UnsatisfiedLinkError e) {
-            System.err.println(System.getProperty("java.library.path"));
-            throw e;
+            while (true) {
+                session = idleSessions.poll(POLL_MILLISECONDS, TimeUnit.MILLISECONDS);
+                if (session != null) {
+                    return session;
+                }
+                /* the pool may have been closed, stopping the session this query was waiting for */
+                if (sessionCount.incrementAndGet() <= poolSize) {
+                    return new Z3Session();
+                }
+                sessionCount.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw KEMException.criticalError("Interrupted while waiting for an SMT solver session", e);
+        } finally {
+            waitTime.addAndGet(System.nanoTime() - start);
+            queueDepth.decrementAndGet();
         }
-        return result;
     }
 
-    private boolean checkQueryWithExternalProcess(String query, int timeout) {
-        String result = "";
-        try {
-            for (int i = 0; i < Z3_RESTART_LIMIT; i++) {
-                ProcessBuilder pb = files.getProcessBuilder().command(
-                        OS.current().getNativeExecutable("z3"),
-                        "-in",
-                        "-smt2",
-                        "-t:" + timeout);
-                pb.redirectInput(ProcessBuilder.Redirect.PIPE);
-                pb.redirectOutput(ProcessBuilder.Redirect.PIPE);
-                Process z3Process = pb.start();
-                BufferedWriter input = new BufferedWriter(new OutputStreamWriter(
-                    z3Process.getOutputStream()));
-                BufferedReader output = new BufferedReader(new InputStreamReader(
-                    z3Process.getInputStream()));
-                input.write(SMT_PRELUDE + query + "(check-sat)\n");
-                input.flush();
-                result = output.readLine();
-                z3Process.destroy();
+    /**
+     * Stops the solver sessions, i.e., their external Z3 processes and library contexts. The sessions in use are
+     * stopped once their query is checked. Queries may still be checked afterwards, each with a new session.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeIdleSessions();
+    }
+
+    private void closeIdleSessions() {
+        for (Z3Session session = idleSessions.poll(); session != null; session = idleSessions.poll()) {
+            session.close();
+            sessionCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of queries checked so far, the maximum number of queries that waited at the same time
+     * for an idle session, and the total time spent waiting.
+     */
+    public String statistics() {
+        return "[" + queryCount.get() + " SMT queries, " + sessionCount.get() + " solver sessions, "
+                + maxQueueDepth.get() + " max queue depth, "
+                + TimeUnit.NANOSECONDS.toMillis(waitTime.get()) + " ms waiting]";
+    }
+
+    /**
+     * An independent solver instance, used by one query at a time.
+     */
+    private class Z3Session {
 
-                if (result != null) {
-                    break;
+        /**
+         * The Z3 context and solver reused by the queries checked with the library, or null if not yet created
+         * or discarded after a failure. The prelude is asserted once when the context is created, and each query is
+         * asserted in its own scope of the solver.
+         */
+        private com.microsoft.z3.Context context;
+        private Solver solver;
+        /**
+         * The uninterpreted sorts and functions of the prelude, with their names, which the queries are parsed
+         * with instead of parsing the prelude again.
+         */
+        private Symbol[] preludeSortNames;
+        private Sort[] preludeSorts;
+        private Symbol[] preludeDeclNames;
+        private FuncDecl[] preludeDecls;
+
+        private Result checkQueryWithLibrary(String query, int timeout) {
+            Result result = Result.UNKNOWN;
+            try {
+                if (context == null) {
+                    context = new com.microsoft.z3.Context();
+                    solver = context.mkSolver();
+                    loadPrelude();
+                }
+                Params params = context.mkParams();
+                params.add("timeout", timeout);
+                solver.setParameters(params);
+                solver.push();
+                try {
+                    solver.add(parseQuery(query));
+                    Status status = solver.check();
+                    result = status == Status.UNSATISFIABLE ? Result.UNSAT
+                            : status == Status.SATISFIABLE ? Result.SAT
+                            : Result.UNKNOWN;
+                } finally {
+                    solver.pop();
                 }
+            } catch (Z3Exception e) {
+                kem.registerCriticalWarning(
+                        "failed to translate smtlib expression:\n" + SMT_PRELUDE + query);
+                disposeContext();
+            } catch (UnsatisfiedLinkError e) {
+                System.err.println(System.getProperty("java.library.path"));
+                throw e;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            return result;
         }
-        if (result == null) {
-            result = "unknown";
-            if (globalOptions.debug) {
-                System.err.println("Z3 crashed on query:\n" + SMT_PRELUDE + query + "(check-sat)\n");
+
+        /**
+         * Parses the prelude, asserts it in the base scope of the solver and collects the uninterpreted sorts and
+         * functions occurring in it.
+         */
+        private void loadPrelude() throws Z3Exception {
+            BoolExpr prelude = context.parseSMTLIB2String(SMT_PRELUDE, null, null, null, null);
+            solver.add(prelude);
+            Set<Sort> sorts = new LinkedHashSet<>();
+            Set<FuncDecl> decls = new LinkedHashSet<>();
+            Set<Expr> visited = new HashSet<>();
+            Deque<Expr> pending = new ArrayDeque<>();
+            pending.push(prelude);
+            while (!pending.isEmpty()) {
+                Expr expr = pending.pop();
+                if (!visited.add(expr)) {
+                    continue;
+                }
+                if (expr.isQuantifier()) {
+                    pending.push(((Quantifier) expr).getBody());
+                } else if (expr.isApp()) {
+                    FuncDecl decl = expr.getFuncDecl();
+                    if (decl.getDeclKind() == Z3_decl_kind.Z3_OP_UNINTERPRETED) {
+                        decls.add(decl);
+                        for (Sort sort : decl.getDomain()) {
+                            addUninterpreted(sorts, sort);
+                        }
+                        addUninterpreted(sorts, decl.getRange());
+                    }
+                    for (Expr arg : expr.getArgs()) {
+                        pending.push(arg);
+                    }
+                }
+            }
+            preludeSorts = sorts.toArray(new Sort[sorts.size()]);
+            preludeSortNames = new Symbol[preludeSorts.length];
+            for (int i = 0; i < preludeSorts.length; i++) {
+                preludeSortNames[i] = preludeSorts[i].getName();
+            }
+            preludeDecls = decls.toArray(new FuncDecl[decls.size()]);
+            preludeDeclNames = new Symbol[preludeDecls.length];
+            for (int i = 0; i < preludeDecls.length; i++) {
+                preludeDeclNames[i] = preludeDecls[i].getName();
+            }
+        }
+
+        private void addUninterpreted(Set<Sort> sorts, Sort sort) throws Z3Exception {
+            if (sort.getSortKind() == Z3_sort_kind.Z3_UNINTERPRETED_SORT) {
+                sorts.add(sort);
+            }
+        }
+
+        /**
+         * Parses the query with the sorts and functions of the prelude. Falls back to parsing it together with the
+         * prelude if it uses a declaration of the prelude which does not occur in its assertions.
+         */
+        private BoolExpr parseQuery(String query) throws Z3Exception {
+            try {
+                return context.parseSMTLIB2String(query, preludeSortNames, preludeSorts, preludeDeclNames, preludeDecls);
+            } catch (Z3Exception e) {
+                return context.parseSMTLIB2String(SMT_PRELUDE + query, null, null, null, null);
+            }
+        }
+
+        private void disposeContext() {
+            if (context != null) {
+                try {
+                    context.dispose();
+                } catch (Z3Exception e) {
+                    // the context is discarded anyway
+                }
+                context = null;
+                solver = null;
+                preludeSortNames = null;
+                preludeSorts = null;
+                preludeDeclNames = null;
+                preludeDecls = null;
+            }
+        }
+
+        /**
+         * Stops the external Z3 process and disposes of the library context of this session.
+         */
+        private void close() {
+            stopZ3Process();
+            disposeContext();
+        }
+
+        /**
+         * The external Z3 process reused by the queries, or null if not yet started or killed after a failure.
+         * The prelude is loaded once when the process starts, and each query is checked in its own push/pop scope.
+         */
+        private Process z3Process;
+        private BufferedWriter z3Input;
+        private BufferedReader z3Output;
+
+        private Result checkQueryWithExternalProcess(String query, int timeout) {
+            String result = null;
+            for (int i = 0; result == null && i < Z3_RESTART_LIMIT; i++) {
+                try {
+                    if (z3Process == null || !z3Process.isAlive()) {
+                        startZ3Process();
+                    }
+                    z3Input.write("(set-option :timeout " + timeout + ")\n(push)\n" + query + "(check-sat)\n(pop)\n");
+                    z3Input.flush();
+                    result = z3Output.readLine();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    result = null;
+                }
+                if (result == null) {
+                    stopZ3Process();
+                }
+            }
+            if (result == null) {
+                result = "unknown";
+                if (globalOptions.debug) {
+                    System.err.println("Z3 crashed on query:\n" + SMT_PRELUDE + query + "(check-sat)\n");
+                }
+            } else if (!Z3_QUERY_RESULTS.contains(result)) {
+                if (globalOptions.debug) {
+                    System.err.println("Unexpected Z3 query result:\n" + result);
+                }
+                /* the rest of the output of Z3 for this query is unknown, so start over with a new process */
+                stopZ3Process();
+            }
+            switch (result) {
+            case "unsat":
+                return Result.UNSAT;
+            case "sat":
+                return Result.SAT;
+            default:
+                return Result.UNKNOWN;
+            }
+        }
+
+        /**
+         * Starts a new Z3 process, loads the prelude and waits for Z3 to acknowledge it.
+         */
+        private void startZ3Process() throws IOException {
+            ProcessBuilder pb = files.getProcessBuilder().command(
+                    OS.current().getNativeExecutable("z3"),
+                    "-in",
+                    "-smt2");
+            pb.redirectInput(ProcessBuilder.Redirect.PIPE);
+            pb.redirectOutput(ProcessBuilder.Redirect.PIPE);
+            z3Process = pb.start();
+            z3Input = new BufferedWriter(new OutputStreamWriter(
+                z3Process.getOutputStream()));
+            z3Output = new BufferedReader(new InputStreamReader(
+                z3Process.getInputStream()));
+            z3Input.write(SMT_PRELUDE + "(echo \"" + Z3_READY + "\")\n");
+            z3Input.flush();
+            String line;
+            while ((line = z3Output.readLine()) != null && !line.equals(Z3_READY)) {
+                if (globalOptions.debug) {
+                    System.err.println("Unexpected Z3 output while loading the prelude:\n" + line);
+                }
+            }
+            if (line == null) {
+                throw new IOException("Z3 exited while loading the prelude");
+            }
+        }
+
+        private void stopZ3Process() {
+            if (z3Process != null) {
+                z3Process.destroy();
+                z3Process = null;
+                z3Input = null;
+                z3Output = null;
             }
-        } else if (globalOptions.debug && !Z3_QUERY_RESULTS.contains(result)) {
-            System.err.println("Unexpected Z3 query result:\n" + result);
         }
-        return result.equals("unsat");
     }
 }
-
@@ -91,4 +91,37 @@ public class BuiltinMapTest {
         Assert.assertEquals(null, resultMap);
     }
 
+    @Test
+    public void testMapUpdateIsPersistent() throws Exception {
+        BuiltinMap.Builder builder = BuiltinMap.builder(termContext.global());
+        for (int i = 0; i < 100; i++) {
+            builder.put(IntToken.of(i), IntToken.of(i));
+        }
+        BuiltinMap builtinMap = (BuiltinMap) builder.build();
+
+        BuiltinMap updatedMap = (BuiltinMap) BuiltinMapOperations.update(
+                builtinMap,
+                IntToken.of(0),
+                IntToken.of(1),
+                termContext);
+        BuiltinMap removedMap = (BuiltinMap) BuiltinMapOperations.remove(
+                updatedMap,
+                IntToken.of(0),
+                termContext);
+
+        Assert.assertEquals(IntToken.of(0), builtinMap.get(IntToken.of(0)));
+        Assert.assertEquals(IntToken.of(1), updatedMap.get(IntToken.of(0)));
+        Assert.assertEquals(100, updatedMap.concreteSize());
+        Assert.assertEquals(null, removedMap.get(IntToken.of(0)));
+        Assert.assertEquals(99, removedMap.concreteSize());
+
+        builder = BuiltinMap.builder(termContext.global());
+        for (int i = 99; i > 0; i--) {
+            builder.put(IntToken.of(i), IntToken.of(i));
+        }
+        BuiltinMap expectedMap = (BuiltinMap) builder.build();
+        Assert.assertEquals(expectedMap, removedMap);
+        Assert.assertEquals(expectedMap.hashCode(), removedMap.hashCode());
+    }
+
 }
@@ -0,0 +1,121 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.kil.Attribute;
+import org.kframework.kil.Attributes;
+import org.kframework.utils.BaseTestCase;
+import org.mockito.Mock;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class FunctionRuleIndexTest extends BaseTestCase {
+
+    @Mock
+    Definition definition;
+
+    private final ListMultimap<KLabelConstant, Rule> functionRules = ArrayListMultimap.create();
+
+    private KLabelConstant f, g, a, b, c;
+    private Rule fa, fX, fb, fOwise, fa2, f1, gab, gXb, gaY, gOwise;
+
+    @Before
+    public void setUp() {
+        f = kLabel("idx.f", true);
+        g = kLabel("idx.g", true);
+        a = kLabel("idx.a", false);
+        b = kLabel("idx.b", false);
+        c = kLabel("idx.c", false);
+
+        fa = rule(f, apply(a));
+        fX = rule(f, new Variable("X", Sort.KITEM));
+        fb = rule(f, apply(b));
+        fOwise = rule(f, new Variable("Y", Sort.KITEM));
+        fa2 = rule(f, apply(a));
+        f1 = rule(f, IntToken.of(1));
+        when(fOwise.isOwise()).thenReturn(true);
+
+        gab = rule(g, apply(a), apply(b));
+        gXb = rule(g, new Variable("X", Sort.KITEM), apply(b));
+        gaY = rule(g, apply(a), new Variable("Y", Sort.KITEM));
+        gOwise = rule(g, new Variable("X", Sort.KITEM), new Variable("Y", Sort.KITEM));
+        when(gOwise.isOwise()).thenReturn(true);
+    }
+
+    private KLabelConstant kLabel(String label, boolean function) {
+        Attributes attributes = new Attributes();
+        if (function) {
+            attributes.add(Attribute.FUNCTION);
+        }
+        when(definition.kLabelAttributesOf(label)).thenReturn(attributes);
+        return KLabelConstant.of(label, definition);
+    }
+
+    private static KList kList(Term... arguments) {
+        return arguments.length == 1 ? KList.singleton(arguments[0]) : (KList) KList.concatenate(arguments);
+    }
+
+    private static KItem apply(KLabelConstant kLabel, Term... arguments) {
+        return new KItem(kLabel, kList(arguments), Sort.KITEM, true);
+    }
+
+    private Rule rule(KLabelConstant kLabel, Term... arguments) {
+        Rule rule = mock(Rule.class);
+        when(rule.leftHandSide()).thenReturn(apply(kLabel, arguments));
+        functionRules.put(kLabel, rule);
+        return rule;
+    }
+
+    /**
+     * Returns the candidates of the index of the given function for the given arguments, after checking that they
+     * are the rules of the function in definition order, except for rules whose arguments cannot match.
+     */
+    private List<Rule> candidates(KLabelConstant kLabel, Term... arguments) {
+        List<Rule> rules = functionRules.get(kLabel);
+        List<Rule> candidates = new FunctionRuleIndex(rules).get(kList(arguments));
+        assertEquals(rules.stream().filter(candidates::contains).collect(Collectors.toList()), candidates);
+        return candidates;
+    }
+
+    @Test
+    public void testCandidatesKeepDefinitionOrder() {
+        assertEquals(ImmutableList.of(fa, fX, fOwise, fa2), candidates(f, apply(a)));
+        assertEquals(ImmutableList.of(fX, fb, fOwise), candidates(f, apply(b)));
+        assertEquals(ImmutableList.of(fX, fOwise, f1), candidates(f, IntToken.of(1)));
+        assertEquals(ImmutableList.of(fX, fOwise), candidates(f, IntToken.of(2)));
+        assertEquals(ImmutableList.of(fX, fOwise), candidates(f, apply(c)));
+    }
+
+    @Test
+    public void testArgumentsWithoutHeadMatchEveryRule() {
+        List<Rule> rules = functionRules.get(f);
+        assertEquals(rules, candidates(f, new Variable("Z", Sort.KITEM)));
+        assertEquals(rules, candidates(f, apply(g, apply(a), apply(b))));
+        assertEquals(functionRules.get(g), candidates(g, apply(c), new Variable("L", Sort.KLIST)));
+    }
+
+    @Test
+    public void testMostSelectiveArgumentIsUsed() {
+        assertEquals(ImmutableList.of(gab, gXb, gaY, gOwise), candidates(g, apply(a), apply(b)));
+        assertEquals(ImmutableList.of(gXb, gOwise), candidates(g, apply(b), apply(b)));
+        assertEquals(ImmutableList.of(gaY, gOwise), candidates(g, apply(a), apply(c)));
+        assertEquals(ImmutableList.of(gXb, gOwise), candidates(g, apply(c), apply(c)));
+        assertEquals(ImmutableList.of(gaY, gOwise), candidates(g, new Variable("Z", Sort.KITEM), apply(c)));
+    }
+
+    @Test
+    public void testOwiseRuleIsAlwaysCandidate() {
+        for (Term argument : new Term[]{apply(a), apply(b), apply(c), IntToken.of(1), new Variable("Z", Sort.KITEM)}) {
+            assertTrue(candidates(f, argument).contains(fOwise));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.kil.Attributes;
+import org.kframework.utils.BaseTestCase;
+import org.mockito.Mock;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class HashConsingTest extends BaseTestCase {
+
+    @Mock
+    Definition definition;
+
+    @Before
+    public void setUp() {
+        when(definition.signaturesOf("foo")).thenReturn(Collections.emptySet());
+        when(definition.allSorts()).thenReturn(Collections.singleton(Sort.of("Foo@FOO")));
+        when(definition.kLabelAttributesOf("foo")).thenReturn(new Attributes());
+    }
+
+    private KList kList(long... values) {
+        Term[] terms = new Term[values.length];
+        for (int i = 0; i < values.length; i++) {
+            terms[i] = IntToken.of(values[i]);
+        }
+        return (KList) KList.concatenate(terms);
+    }
+
+    private KItem foo(KList kList) {
+        return new KItem(KLabelConstant.of("foo", definition), kList, Sort.of("Foo@FOO"), true);
+    }
+
+    @Test
+    public void testEqualTermsInternToSameInstance() {
+        HashConsing hashConsing = new HashConsing();
+        KList l1 = hashConsing.internKList(kList(1, 2));
+        KList l2 = hashConsing.internKList(kList(1, 2));
+        assertSame(l1, l2);
+        assertSame(l1.get(0), hashConsing.internToken(IntToken.of(1)));
+
+        KItem k1 = hashConsing.intern(foo(l1));
+        KItem candidate = foo(l2);
+        KItem k2 = hashConsing.intern(candidate);
+        assertSame(k1, k2);
+        assertEquals(k1, candidate);
+        assertEquals(candidate, k1);
+        assertNotEquals(k1, hashConsing.intern(foo(hashConsing.internKList(kList(2, 1)))));
+    }
+
+    @Test
+    public void testEqualityAcrossTables() {
+        HashConsing first = new HashConsing();
+        HashConsing second = new HashConsing();
+        assertEquals(IntToken.of(1), IntToken.of(1));
+        assertEquals(first.internToken(IntToken.of(1)), second.internToken(IntToken.of(1)));
+        assertEquals(first.internKList(kList(1, 2)), second.internKList(kList(1, 2)));
+        assertEquals(first.intern(foo(kList(3, 4))), second.intern(foo(kList(3, 4))));
+    }
+}
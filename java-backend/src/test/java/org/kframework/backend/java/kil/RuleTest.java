@@ -0,0 +1,102 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kframework.attributes.Att;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.symbolic.ConjunctiveFormula;
+import org.kframework.krun.KRunOptions;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.options.SMTOptions;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RuleTest {
+
+    private static final List<String> FLAG_ATTRIBUTES = ImmutableList.of(
+            Att.heat(), Att.cool(), "stream", "owise",
+            Att.refers_THIS_CONFIGURATION(), Att.refers_RESTORE_CONFIGURATION());
+
+    @Mock
+    Definition definition;
+
+    @Mock
+    KExceptionManager kem;
+
+    private GlobalContext global;
+
+    @Before
+    public void setUp() {
+        when(definition.functionRules()).thenReturn(HashMultimap.<KLabelConstant, Rule>create());
+        when(definition.kLabels()).thenReturn(new HashSet<>());
+        global = new GlobalContext(null, false, new GlobalOptions(), new KRunOptions(), kem, new SMTOptions(),
+                new HashMap<>(), FileUtil.testFileUtil(), null);
+        global.setDefinition(definition);
+    }
+
+    private Rule rule(String... attributes) {
+        org.kframework.kil.Rule oldRule = new org.kframework.kil.Rule();
+        for (String attribute : attributes) {
+            oldRule.addAttribute(attribute, "");
+        }
+        return new Rule("", new Variable("X", Sort.KITEM), IntToken.of(1), ImmutableList.of(), ImmutableList.of(),
+                ImmutableSet.of(), ImmutableSet.of(), ConjunctiveFormula.of(global), oldRule, global);
+    }
+
+    /**
+     * Checks that each precomputed flag of the rule agrees with the attribute it stands for.
+     */
+    private static void assertFlags(Rule rule) {
+        assertEquals(rule.containsAttribute(Att.heat()), rule.isHeat());
+        assertEquals(rule.containsAttribute(Att.cool()), rule.isCool());
+        assertEquals(rule.containsAttribute("stream"), rule.isStream());
+        assertEquals(rule.containsAttribute("owise"), rule.isOwise());
+        assertEquals(rule.containsAttribute(Att.refers_THIS_CONFIGURATION()), rule.refersThisConfiguration());
+        assertEquals(rule.containsAttribute(Att.refers_RESTORE_CONFIGURATION()), rule.refersRestoreConfiguration());
+    }
+
+    @Test
+    public void testNoFlags() {
+        Rule rule = rule("structural");
+        assertFlags(rule);
+        assertFalse(rule.isHeat() || rule.isCool() || rule.isStream() || rule.isOwise()
+                || rule.refersThisConfiguration() || rule.refersRestoreConfiguration());
+    }
+
+    @Test
+    public void testEachFlag() {
+        for (String attribute : FLAG_ATTRIBUTES) {
+            Rule rule = rule(attribute);
+            assertTrue(rule.containsAttribute(attribute));
+            assertFlags(rule);
+        }
+    }
+
+    @Test
+    public void testCombinedFlags() {
+        Rule heat = rule(Att.heat(), "stream", Att.refers_THIS_CONFIGURATION());
+        assertFlags(heat);
+        assertTrue(heat.isHeat() && heat.isStream() && heat.refersThisConfiguration());
+        assertFalse(heat.isCool() || heat.isOwise() || heat.refersRestoreConfiguration());
+
+        Rule cool = rule(Att.cool(), "owise", Att.refers_RESTORE_CONFIGURATION());
+        assertFlags(cool);
+        assertTrue(cool.isCool() && cool.isOwise() && cool.refersRestoreConfiguration());
+        assertFalse(cool.isHeat() || cool.isStream() || cool.refersThisConfiguration());
+    }
+}
@@ -0,0 +1,72 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import org.junit.Test;
+import org.kframework.utils.errorsystem.KEMException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SymbolLoadingTest {
+
+    /**
+     * Creates a sort as if by another process, without adding it to the cache.
+     */
+    private static Sort foreignSort(String name, int ordinal) throws Exception {
+        Constructor<Sort> constructor = Sort.class.getDeclaredConstructor(String.class, int.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(name, ordinal);
+    }
+
+    private static Object roundTrip(Object object) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+             SymbolLoading loading = SymbolLoading.start()) {
+            Object result = in.readObject();
+            loading.commit();
+            return result;
+        }
+    }
+
+    @Test
+    public void testLoadNewSorts() throws Exception {
+        int ordinal = Sort.maxOrdinal.get() + 100;
+        List<?> loaded = (List<?>) roundTrip(Arrays.asList(foreignSort("New@LOADING", ordinal), Sort.KITEM));
+        assertSame(Sort.of("New@LOADING"), loaded.get(0));
+        assertEquals(ordinal, Sort.of("New@LOADING").ordinal());
+        assertSame(Sort.KITEM, loaded.get(1));
+        assertTrue(Sort.maxOrdinal.get() > ordinal);
+    }
+
+    @Test
+    public void testRejectOrdinalOfAnotherSort() throws Exception {
+        int ordinal = Sort.maxOrdinal.get() + 100;
+        try {
+            roundTrip(Arrays.asList(foreignSort("Valid@LOADING", ordinal), foreignSort("Clash@LOADING", Sort.KITEM.ordinal())));
+            fail();
+        } catch (KEMException e) {
+        }
+        assertNotEquals(ordinal, Sort.of("Valid@LOADING").ordinal());
+        assertNotEquals(Sort.KITEM.ordinal(), Sort.of("Clash@LOADING").ordinal());
+    }
+
+    @Test
+    public void testRejectOrdinalOfSameSort() throws Exception {
+        try {
+            roundTrip(foreignSort(Sort.KITEM.name(), Sort.KITEM.ordinal() + 1));
+            fail();
+        } catch (KEMException e) {
+        }
+    }
+}
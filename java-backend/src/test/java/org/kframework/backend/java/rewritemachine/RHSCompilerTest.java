@@ -0,0 +1,162 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.rewritemachine;
+
+import com.google.common.collect.HashMultimap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.BuiltinList;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.KSequence;
+import org.kframework.backend.java.kil.Rule;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.TermContext;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.util.RewriteEngineUtils;
+import org.kframework.backend.java.util.Subsorts;
+import org.kframework.kil.Attributes;
+import org.kframework.krun.KRunOptions;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.options.SMTOptions;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RHSCompilerTest {
+
+    @Mock
+    Definition definition;
+
+    @Mock
+    Subsorts subsorts;
+
+    @Mock
+    KExceptionManager kem;
+
+    private GlobalContext interpreted;
+    private GlobalContext compiled;
+    private KLabelConstant f, g, listOperator, listUnit;
+
+    private final Variable x = new Variable("X", Sort.INT);
+    private final Variable y = new Variable("Y", Sort.KITEM);
+    private final Variable l = new Variable("L", Sort.LIST);
+    private final Variable r = new Variable("R", Sort.KSEQUENCE);
+
+    @Before
+    public void setUp() {
+        when(definition.functionRules()).thenReturn(HashMultimap.<KLabelConstant, Rule>create());
+        when(definition.kLabels()).thenReturn(new HashSet<>());
+        when(definition.subsorts()).thenReturn(subsorts);
+        when(subsorts.isSubsortedEq(Sort.LIST, Sort.LIST)).thenReturn(true);
+        f = kLabel("rhsTest.f");
+        g = kLabel("rhsTest.g");
+        listOperator = kLabel("_List_");
+        listUnit = kLabel(".List");
+
+        interpreted = globalContext(false);
+        compiled = globalContext(true);
+    }
+
+    private KLabelConstant kLabel(String label) {
+        when(definition.kLabelAttributesOf(label)).thenReturn(new Attributes());
+        return KLabelConstant.of(label, definition);
+    }
+
+    private GlobalContext globalContext(boolean compileRHS) {
+        KRunOptions krunOptions = new KRunOptions();
+        krunOptions.experimental.compileRHS = compileRHS;
+        GlobalContext global = new GlobalContext(null, false, new GlobalOptions(), krunOptions, kem, new SMTOptions(),
+                new HashMap<>(), FileUtil.testFileUtil(), null);
+        global.setDefinition(definition);
+        return global;
+    }
+
+    private KItem apply(KLabelConstant kLabel, Term... arguments) {
+        KList kList = arguments.length == 1 ? KList.singleton(arguments[0]) : (KList) KList.concatenate(arguments);
+        return KItem.of(kLabel, kList, interpreted);
+    }
+
+    private Term list(Term... elements) {
+        return BuiltinList.builder(Sort.LIST, listOperator, listUnit, interpreted).addAll(elements).build();
+    }
+
+    private static Term kSequence(Term... contents) {
+        KSequence.Builder builder = KSequence.builder();
+        for (Term term : contents) {
+            builder.concatenate(term);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Constructs the given right-hand side with and without {@code --compile-rhs}, checks that both results are
+     * equal and returns the result.
+     */
+    private Term construct(Term rightHandSide, Map<Variable, Term> solution) {
+        GenerateRHSInstructions visitor = new GenerateRHSInstructions();
+        rightHandSide.accept(visitor);
+        List<RHSInstruction> instructions = visitor.getInstructions();
+        RHSCompiler.RHSConstructor constructor = RHSCompiler.compile(instructions);
+
+        Term expected = RewriteEngineUtils.construct(instructions, constructor, solution,
+                TermContext.builder(interpreted).build());
+        Term actual = RewriteEngineUtils.construct(instructions, constructor, solution,
+                TermContext.builder(compiled).build());
+        assertEquals(expected, actual);
+        return actual;
+    }
+
+    @Test
+    public void testSingleInstruction() {
+        Map<Variable, Term> solution = new HashMap<>();
+        solution.put(x, IntToken.of(1));
+        assertEquals(IntToken.of(1), construct(x, solution));
+        assertEquals(IntToken.of(2), construct(IntToken.of(2), solution));
+        assertEquals(y, construct(y, solution));
+    }
+
+    @Test
+    public void testNestedCollections() {
+        Term rightHandSide = kSequence(
+                apply(f, x, list(IntToken.of(0), y, l)),
+                apply(g, apply(f, y, x)),
+                r);
+
+        Map<Variable, Term> solution = new HashMap<>();
+        solution.put(x, IntToken.of(1));
+        solution.put(y, apply(g, IntToken.of(2)));
+        solution.put(l, list(IntToken.of(3), IntToken.of(4)));
+        solution.put(r, kSequence(apply(g, IntToken.of(5)), apply(g, IntToken.of(6))));
+
+        Term expected = kSequence(
+                apply(f, IntToken.of(1), list(IntToken.of(0), apply(g, IntToken.of(2)), IntToken.of(3), IntToken.of(4))),
+                apply(g, apply(f, apply(g, IntToken.of(2)), IntToken.of(1))),
+                apply(g, IntToken.of(5)),
+                apply(g, IntToken.of(6)));
+        assertEquals(expected, construct(rightHandSide, solution));
+    }
+
+    @Test
+    public void testUnboundVariablesAreKept() {
+        Term rightHandSide = kSequence(apply(f, x, list(y, l)), r);
+        Map<Variable, Term> solution = new HashMap<>();
+        solution.put(y, IntToken.of(1));
+        assertEquals(kSequence(apply(f, x, list(IntToken.of(1), l)), r), construct(rightHandSide, solution));
+    }
+}
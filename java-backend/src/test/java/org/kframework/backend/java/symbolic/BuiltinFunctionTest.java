@@ -0,0 +1,149 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kframework.backend.java.builtins.BoolToken;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.TermContext;
+import org.kframework.kil.Attribute;
+import org.kframework.kil.Attributes;
+import org.kframework.utils.errorsystem.KException;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BuiltinFunctionTest {
+
+    @Mock
+    Definition definition;
+
+    @Mock
+    TermContext context;
+
+    @Mock
+    KExceptionManager kem;
+
+    private final Map<String, Attributes> attributes = new HashMap<>();
+    private final Map<String, MethodHandle> hookProvider = new HashMap<>();
+
+    private BuiltinFunction builtins;
+
+    private static IntToken zero(TermContext context) {
+        return IntToken.of(0);
+    }
+
+    private static IntToken negate(IntToken x, TermContext context) {
+        return IntToken.of(x.bigIntegerValue().negate());
+    }
+
+    private static IntToken add(IntToken x, IntToken y, TermContext context) {
+        return IntToken.of(x.bigIntegerValue().add(y.bigIntegerValue()));
+    }
+
+    private static IntToken add3(IntToken x, IntToken y, IntToken z, TermContext context) {
+        return IntToken.of(x.bigIntegerValue().add(y.bigIntegerValue()).add(z.bigIntegerValue()));
+    }
+
+    private static IntToken add4(IntToken x, IntToken y, IntToken z, IntToken w, TermContext context) {
+        return IntToken.of(x.bigIntegerValue().add(y.bigIntegerValue()).add(z.bigIntegerValue()).add(w.bigIntegerValue()));
+    }
+
+    private static Term count(Object... args) {
+        assertTrue(args[args.length - 1] instanceof TermContext);
+        return IntToken.of(args.length);
+    }
+
+    @Before
+    public void setUp() throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        hook("zero", lookup.findStatic(BuiltinFunctionTest.class, "zero",
+                MethodType.methodType(IntToken.class, TermContext.class)));
+        hook("negate", lookup.findStatic(BuiltinFunctionTest.class, "negate",
+                MethodType.methodType(IntToken.class, IntToken.class, TermContext.class)));
+        hook("add", lookup.findStatic(BuiltinFunctionTest.class, "add",
+                MethodType.methodType(IntToken.class, IntToken.class, IntToken.class, TermContext.class)));
+        hook("add3", lookup.findStatic(BuiltinFunctionTest.class, "add3",
+                MethodType.methodType(IntToken.class, IntToken.class, IntToken.class, IntToken.class, TermContext.class)));
+        hook("add4", lookup.findStatic(BuiltinFunctionTest.class, "add4",
+                MethodType.methodType(IntToken.class, IntToken.class, IntToken.class, IntToken.class, IntToken.class, TermContext.class)));
+        hook("count", lookup.findStatic(BuiltinFunctionTest.class, "count",
+                MethodType.methodType(Term.class, Object[].class)));
+        hook("missing", null);
+        label("hookTest.unhooked", new Attributes());
+
+        when(definition.kLabelAttributes()).thenReturn(attributes);
+        builtins = new BuiltinFunction(definition, hookProvider, kem, Stage.REWRITING);
+    }
+
+    private void hook(String name, MethodHandle implementation) {
+        Attributes attrs = new Attributes();
+        attrs.add(Attribute.of(Attribute.HOOK_KEY, "TEST." + name));
+        label("hookTest." + name, attrs);
+        if (implementation != null) {
+            hookProvider.put("TEST." + name, implementation);
+        }
+    }
+
+    private void label(String label, Attributes attrs) {
+        attributes.put(label, attrs);
+        when(definition.kLabelAttributesOf(label)).thenReturn(attrs);
+    }
+
+    private Term invoke(String name, Term... arguments) throws Throwable {
+        return builtins.invoke(context, KLabelConstant.of("hookTest." + name, definition), arguments);
+    }
+
+    @Test
+    public void testExactArities() throws Throwable {
+        assertEquals(IntToken.of(0), invoke("zero"));
+        assertEquals(IntToken.of(-1), invoke("negate", IntToken.of(1)));
+        assertEquals(IntToken.of(3), invoke("add", IntToken.of(1), IntToken.of(2)));
+        assertEquals(IntToken.of(6), invoke("add3", IntToken.of(1), IntToken.of(2), IntToken.of(3)));
+        assertEquals(IntToken.of(10), invoke("add4", IntToken.of(1), IntToken.of(2), IntToken.of(3), IntToken.of(4)));
+    }
+
+    @Test
+    public void testTypeMismatch() throws Throwable {
+        assertNull(invoke("negate", BoolToken.TRUE));
+        assertNull(invoke("add", IntToken.of(1), BoolToken.TRUE));
+        assertNull(invoke("add3", BoolToken.TRUE, IntToken.of(2), IntToken.of(3)));
+        assertNull(invoke("add4", IntToken.of(1), IntToken.of(2), IntToken.of(3), BoolToken.FALSE));
+    }
+
+    @Test
+    public void testArityMismatch() throws Throwable {
+        assertNull(invoke("zero", IntToken.of(1)));
+        assertNull(invoke("add", IntToken.of(1)));
+        assertNull(invoke("add4", IntToken.of(1), IntToken.of(2), IntToken.of(3)));
+    }
+
+    @Test
+    public void testGenericHook() throws Throwable {
+        assertEquals(IntToken.of(1), invoke("count"));
+        assertEquals(IntToken.of(3), invoke("count", IntToken.of(1), BoolToken.TRUE));
+    }
+
+    @Test
+    public void testIsBuiltinKLabel() {
+        assertTrue(builtins.isBuiltinKLabel(KLabelConstant.of("hookTest.add4", definition)));
+        assertTrue(builtins.isBuiltinKLabel(KLabelConstant.of("hookTest.count", definition)));
+        assertFalse(builtins.isBuiltinKLabel(KLabelConstant.of("hookTest.unhooked", definition)));
+        assertFalse(builtins.isBuiltinKLabel(KLabelConstant.of("hookTest.missing", definition)));
+        verify(kem).register(any(KException.class));
+    }
+}
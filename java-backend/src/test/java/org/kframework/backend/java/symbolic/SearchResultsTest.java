@@ -0,0 +1,156 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.junit.Test;
+import org.kframework.kore.K;
+import org.kframework.rewriter.SearchObserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.kframework.kore.KORE.*;
+
+public class SearchResultsTest {
+
+    private static class Recorder implements SearchObserver {
+        final List<K> results = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        int progressReports = 0;
+
+        @Override
+        public void result(K result) {
+            results.add(result);
+            threads.add(Thread.currentThread());
+        }
+
+        @Override
+        public void progress(int frontierSize, int visitedCount) {
+            progressReports++;
+            threads.add(Thread.currentThread());
+        }
+    }
+
+    private static K token(String name) {
+        return KToken(name, Sort("Id"));
+    }
+
+    private static List<K> tokens(String prefix, int count) {
+        List<K> tokens = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tokens.add(token(prefix + i));
+        }
+        return tokens;
+    }
+
+    /**
+     * Adds the given lists of results from the given number of worker threads, then delivers them on this thread.
+     */
+    private static void addFromWorkers(SearchResults searchResults, List<List<K>> results, int threads)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> tasks = results.stream()
+                    .map(list -> pool.submit((Callable<Boolean>) () -> searchResults.addAll(list)))
+                    .collect(Collectors.toList());
+            searchResults.deliverUntilDone(tasks);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testResultsAreDeliveredInOrder() {
+        Recorder observer = new Recorder();
+        SearchResults searchResults = new SearchResults(observer, new AtomicBoolean(false), -1);
+        assertFalse(searchResults.addAll(Arrays.asList(token("a"), token("b"))));
+        assertEquals(Arrays.asList(token("a"), token("b")), observer.results);
+        assertFalse(searchResults.addAll(Collections.singletonList(token("c"))));
+        assertEquals(Arrays.asList(token("a"), token("b"), token("c")), observer.results);
+    }
+
+    @Test
+    public void testWorkerResultsAreDeliveredByTheSearchingThread() throws InterruptedException {
+        Recorder observer = new Recorder();
+        SearchResults searchResults = new SearchResults(observer, new AtomicBoolean(false), -1);
+        List<List<K>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            results.add(tokens("w" + i + "x", 3));
+        }
+        addFromWorkers(searchResults, results, 4);
+
+        assertEquals(150, observer.results.size());
+        for (List<K> list : results) {
+            int first = observer.results.indexOf(list.get(0));
+            assertEquals(list, observer.results.subList(first, first + list.size()));
+        }
+        assertTrue(observer.threads.stream().allMatch(Thread.currentThread()::equals));
+    }
+
+    @Test
+    public void testExactBound() throws InterruptedException {
+        Recorder observer = new Recorder();
+        SearchResults searchResults = new SearchResults(observer, new AtomicBoolean(false), 5);
+        assertFalse(searchResults.addAll(tokens("a", 4)));
+        assertTrue(searchResults.addAll(tokens("b", 1)));
+        assertTrue(searchResults.isDone());
+        assertTrue(searchResults.addAll(tokens("c", 1)));
+        assertEquals(5, observer.results.size());
+
+        Recorder parallelObserver = new Recorder();
+        SearchResults parallelResults = new SearchResults(parallelObserver, new AtomicBoolean(false), 7);
+        List<List<K>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            results.add(tokens("w" + i + "x", 3));
+        }
+        addFromWorkers(parallelResults, results, 4);
+        assertEquals(7, parallelObserver.results.size());
+        assertTrue(parallelResults.isDone());
+    }
+
+    @Test
+    public void testCancellation() {
+        Recorder observer = new Recorder();
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        SearchResults searchResults = new SearchResults(observer, cancelled, -1);
+        assertFalse(searchResults.addAll(tokens("a", 2)));
+        cancelled.set(true);
+        assertTrue(searchResults.isDone());
+        assertTrue(searchResults.addAll(tokens("b", 2)));
+        assertEquals(tokens("a", 2), observer.results);
+    }
+
+    @Test
+    public void testProgressIsReportedPeriodically() throws InterruptedException {
+        Recorder observer = new Recorder();
+        SearchResults searchResults = new SearchResults(observer, new AtomicBoolean(false), -1);
+        for (int i = 0; i < 2 * SearchResults.PROGRESS_INTERVAL + 1; i++) {
+            searchResults.expanded(1, i);
+        }
+        assertEquals(2, observer.progressReports);
+
+        Recorder parallelObserver = new Recorder();
+        SearchResults parallelResults = new SearchResults(parallelObserver, new AtomicBoolean(false), -1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> task = pool.submit(() -> {
+                for (int i = 0; i < SearchResults.PROGRESS_INTERVAL; i++) {
+                    parallelResults.expanded(1, i);
+                }
+            });
+            parallelResults.deliverUntilDone(Collections.singletonList(task));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(1, parallelObserver.progressReports);
+        assertTrue(parallelObserver.threads.stream().allMatch(Thread.currentThread()::equals));
+    }
+}
@@ -0,0 +1,221 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.BuiltinList;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Rule;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.TermContext;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.util.Subsorts;
+import org.kframework.kil.Attributes;
+import org.kframework.krun.KRunOptions;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.options.SMTOptions;
+import org.pcollections.HashTreePSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SymbolicRewriterTest {
+
+    private final Variable x = new Variable("X", Sort.INT);
+    private final Variable y = new Variable("Y", Sort.INT);
+    private final Variable z = new Variable("Z", Sort.INT);
+    private final Variable unrelated = new Variable("U", Sort.INT);
+
+    private Rule rule;
+    private GlobalContext global;
+    private TermContext context;
+    private KLabelConstant f, g;
+    private Term subject;
+
+    @Before
+    public void setUp() {
+        rule = mock(Rule.class);
+        when(rule.variableSet()).thenReturn(HashTreePSet.from(ImmutableSet.of(x, y, z)));
+
+        Definition definition = mock(Definition.class);
+        Subsorts subsorts = mock(Subsorts.class);
+        when(definition.functionRules()).thenReturn(HashMultimap.<KLabelConstant, Rule>create());
+        when(definition.kLabels()).thenReturn(new HashSet<>());
+        when(definition.kLabelAttributesOf(anyString())).thenReturn(new Attributes());
+        when(definition.subsorts()).thenReturn(subsorts);
+        when(subsorts.isSubsortedEq(Sort.LIST, Sort.LIST)).thenReturn(true);
+        global = new GlobalContext(null, false, new GlobalOptions(), new KRunOptions(), mock(KExceptionManager.class),
+                new SMTOptions(), new HashMap<>(), FileUtil.testFileUtil(), null);
+        global.setDefinition(definition);
+        context = TermContext.builder(global).build();
+        f = KLabelConstant.of("buildRHSTest.f", definition);
+        g = KLabelConstant.of("buildRHSTest.g", definition);
+
+        /* f(g(1), ListItem(1) ListItem(g(2)) ListItem(3), g(4) ~> g(5)) */
+        subject = apply(f,
+                apply(g, IntToken.of(1)),
+                BuiltinList.builder(Sort.LIST, KLabelConstant.of("_List_", definition),
+                        KLabelConstant.of(".List", definition), global)
+                        .addAll(IntToken.of(1), apply(g, IntToken.of(2)), IntToken.of(3)).build(),
+                BuiltinList.kSequenceBuilder(global).addAll(apply(g, IntToken.of(4)), apply(g, IntToken.of(5))).build());
+    }
+
+    private KItem apply(KLabelConstant kLabel, Term... arguments) {
+        return KItem.of(kLabel, KList.concatenate(arguments), global);
+    }
+
+    private static Term kList(Term... terms) {
+        return KList.concatenate(terms);
+    }
+
+    private static ConjunctiveFormula binding(Variable variable, Term term) {
+        return ConjunctiveFormula.of(ImmutableMapSubstitution.singleton(variable, term), (GlobalContext) null);
+    }
+
+    @Test
+    public void testConcreteStepCreatesNoFreshVariables() {
+        int counter = Variable.getCounter();
+        Map<Variable, Variable> renaming = SymbolicRewriter.renameRuleVariables(
+                rule, kList(IntToken.of(1), IntToken.of(2)), ConjunctiveFormula.of((GlobalContext) null));
+        assertTrue(renaming.isEmpty());
+        assertEquals(counter, Variable.getCounter());
+    }
+
+    @Test
+    public void testVariablesNotOfTheRuleAreKept() {
+        int counter = Variable.getCounter();
+        Map<Variable, Variable> renaming = SymbolicRewriter.renameRuleVariables(
+                rule, kList(unrelated, IntToken.of(2)), binding(unrelated, IntToken.of(3)));
+        assertTrue(renaming.isEmpty());
+        assertEquals(counter, Variable.getCounter());
+    }
+
+    @Test
+    public void testRuleVariablesLeftInTermOrConstraintAreRenamed() {
+        Map<Variable, Variable> renaming = SymbolicRewriter.renameRuleVariables(
+                rule, kList(x, unrelated), binding(y, IntToken.of(1)));
+        assertEquals(ImmutableSet.of(x, y), renaming.keySet());
+        Variable freshX = renaming.get(x);
+        Variable freshY = renaming.get(y);
+        assertNotEquals(x, freshX);
+        assertNotEquals(y, freshY);
+        assertNotEquals(freshX, freshY);
+        assertEquals(Sort.INT, freshX.sort());
+        assertFalse(rule.variableSet().contains(freshX));
+        assertFalse(rule.variableSet().contains(freshY));
+    }
+
+    @Test
+    public void testRuleVariablesLeftOnlyInConstraintAreRenamed() {
+        Map<Variable, Variable> renaming = SymbolicRewriter.renameRuleVariables(
+                rule, kList(IntToken.of(1), IntToken.of(2)), binding(unrelated, kList(z, IntToken.of(1))));
+        assertEquals(ImmutableSet.of(z), renaming.keySet());
+    }
+
+    /**
+     * Splices the given rewrites into the subject by copying the children at every level along the paths, as
+     * buildRHS did before it replaced the children in place.
+     */
+    private Term pathWalk(Term subject, Substitution<Variable, Term> substitution, List<Pair<List<Integer>, Term>> rewrites) {
+        if (rewrites.size() == 1 && rewrites.get(0).getLeft().isEmpty()) {
+            return rewrites.get(0).getRight().substituteAndEvaluate(substitution, context);
+        }
+        List<Term> contents = subject instanceof KItem
+                ? ((KList) ((KItem) subject).kList()).getContents()
+                : ((BuiltinList) subject).children;
+        List<Term> newContents = new ArrayList<>();
+        for (int i = 0; i < contents.size(); i++) {
+            int position = i;
+            List<Pair<List<Integer>, Term>> innerRewrites = rewrites.stream()
+                    .filter(rewrite -> rewrite.getLeft().get(0) == position)
+                    .map(rewrite -> Pair.of(rewrite.getLeft().subList(1, rewrite.getLeft().size()), rewrite.getRight()))
+                    .collect(Collectors.toList());
+            newContents.add(innerRewrites.isEmpty() ? contents.get(i) : pathWalk(contents.get(i), substitution, innerRewrites));
+        }
+        if (subject instanceof KItem) {
+            return KItem.of(((KItem) subject).kLabel(), KList.concatenate(newContents), global).applyAnywhereRules(context);
+        } else {
+            BuiltinList list = (BuiltinList) subject;
+            return BuiltinList.builder(list.sort, list.operatorKLabel, list.unitKLabel, global).addAll(newContents).build();
+        }
+    }
+
+    private static List<Integer> path(int[] positions) {
+        return Arrays.stream(positions).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Splices a single rewrite into the subject along the given path and checks the result against the path walk.
+     */
+    private Term buildRHS(Substitution<Variable, Term> substitution, int[] positions, Term rhs) {
+        Term actual = SymbolicRewriter.buildRHS(subject, substitution, positions, 0, rhs, context);
+        assertEquals(pathWalk(subject, substitution, Collections.singletonList(Pair.of(path(positions), rhs))), actual);
+        assertEquals(actual, SymbolicRewriter.buildRHS(subject, substitution,
+                new ArrayList<>(Collections.singletonList(Pair.of(positions, rhs))), 0, context));
+        return actual;
+    }
+
+    @Test
+    public void testSingleRewrite() {
+        Substitution<Variable, Term> substitution = ImmutableMapSubstitution.singleton(x, IntToken.of(7));
+        Term actual = buildRHS(substitution, new int[]{0, 0}, x);
+        assertEquals(IntToken.of(7), ((KList) ((KItem) ((KList) ((KItem) actual).kList()).get(0)).kList()).get(0));
+
+        buildRHS(substitution, new int[]{1, 1, 0}, IntToken.of(9));
+        buildRHS(substitution, new int[]{1, 2}, apply(g, x));
+        buildRHS(substitution, new int[]{2, 1}, apply(g, IntToken.of(6)));
+        buildRHS(substitution, new int[]{2}, IntToken.of(8));
+    }
+
+    @Test
+    public void testRewriteToKListIsFlattened() {
+        Term actual = buildRHS(ImmutableMapSubstitution.empty(), new int[]{0}, KList.concatenate(IntToken.of(1), IntToken.of(2)));
+        assertEquals(4, ((KList) ((KItem) actual).kList()).getContents().size());
+    }
+
+    @Test
+    public void testMultipleRewrites() {
+        Substitution<Variable, Term> substitution = ImmutableMapSubstitution.singleton(x, IntToken.of(7));
+        List<Pair<int[], Term>> rewrites = new ArrayList<>();
+        rewrites.add(Pair.of(new int[]{2, 0, 0}, x));
+        rewrites.add(Pair.of(new int[]{1, 2}, IntToken.of(10)));
+        rewrites.add(Pair.of(new int[]{0, 0}, IntToken.of(11)));
+        rewrites.add(Pair.of(new int[]{1, 0}, apply(g, x)));
+        rewrites.add(Pair.of(new int[]{2, 1}, IntToken.of(12)));
+        List<Pair<List<Integer>, Term>> paths = rewrites.stream()
+                .map(rewrite -> Pair.of(path(rewrite.getLeft()), rewrite.getRight()))
+                .collect(Collectors.toList());
+
+        assertEquals(pathWalk(subject, substitution, paths),
+                SymbolicRewriter.buildRHS(subject, substitution, rewrites, 0, context));
+    }
+
+    @Test
+    public void testWithElements() {
+        KList kList = (KList) KList.concatenate(IntToken.of(1), apply(g, IntToken.of(2)), IntToken.of(3));
+        assertEquals(KList.concatenate(IntToken.of(4), apply(g, IntToken.of(2)), IntToken.of(5)),
+                kList.withElements(new int[]{0, 2}, new Term[]{IntToken.of(4), IntToken.of(5)}));
+        assertEquals(KList.concatenate(IntToken.of(1), IntToken.of(6), IntToken.of(7), IntToken.of(3)),
+                kList.withElements(new int[]{1}, new Term[]{KList.concatenate(IntToken.of(6), IntToken.of(7))}));
+    }
+}
@@ -0,0 +1,95 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.kil.Attributes;
+import org.kframework.utils.BaseTestCase;
+import org.mockito.Mock;
+
+import java.util.Collections;
+
+public class FingerprintSetTest extends BaseTestCase {
+
+    @Mock
+    Definition definition;
+
+    @Before
+    public void setUp() {
+        when(definition.signaturesOf("foo")).thenReturn(Collections.emptySet());
+        when(definition.allSorts()).thenReturn(Collections.singleton(Sort.of("Foo@FOO")));
+        when(definition.kLabelAttributesOf("foo")).thenReturn(new Attributes());
+    }
+
+    @Test
+    public void testAddContains() {
+        FingerprintSet<String> set = new FingerprintSet<>(String::hashCode);
+        assertTrue(set.add("a"));
+        assertFalse(set.add("a"));
+        assertTrue(set.contains("a"));
+        assertFalse(set.contains("b"));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testResize() {
+        FingerprintSet<Integer> set = new FingerprintSet<>(i -> i);
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(set.add(i));
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(set.contains(i));
+            assertFalse(set.add(i));
+        }
+        assertFalse(set.contains(10000));
+        assertEquals(10000, set.size());
+    }
+
+    private static void testDepths(StateSet<String> set) {
+        assertTrue(set.add("a", 3));
+        assertFalse(set.add("a", 3));
+        assertFalse(set.add("a", 4));
+        assertTrue(set.add("a", 1));
+        assertFalse(set.add("a", 2));
+        assertTrue(set.contains("a"));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testDepths() {
+        testDepths(new FingerprintSet<>(String::hashCode));
+        testDepths(new FingerprintSet<>(s -> 0));
+        testDepths(StateSet.hashed(false));
+        testDepths(StateSet.hashed(true));
+    }
+
+    private KItem foo(int... args) {
+        KList.Builder builder = KList.builder();
+        for (int arg : args) {
+            builder.concatenate(IntToken.of(arg));
+        }
+        return new KItem(KLabelConstant.of("foo", definition), builder.build(), Sort.of("Foo@FOO"), true);
+    }
+
+    @Test
+    public void testTermFingerprint() {
+        assertEquals(FingerprintSet.fingerprint(foo(1, 2)), FingerprintSet.fingerprint(foo(1, 2)));
+        assertNotEquals(FingerprintSet.fingerprint(foo(1, 2)), FingerprintSet.fingerprint(foo(2, 1)));
+        assertNotEquals(FingerprintSet.fingerprint(foo(1, 2)), FingerprintSet.fingerprint(foo(1, 2, 3)));
+
+        FingerprintSet<KItem> set = new FingerprintSet<>(FingerprintSet::fingerprint);
+        assertTrue(set.add(foo(1, 2)));
+        assertFalse(set.add(foo(1, 2)));
+        assertTrue(set.add(foo(2, 1)));
+    }
+
+}
@@ -0,0 +1,148 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Rule;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.symbolic.ConjunctiveFormula;
+import org.kframework.kil.Attribute;
+import org.kframework.kil.Attributes;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FunctionMemoizationTest {
+
+    @Mock
+    Definition definition;
+
+    private final Map<String, Attributes> attributes = new HashMap<>();
+    private final Multimap<KLabelConstant, Rule> functionRules = ArrayListMultimap.create();
+
+    private KLabelConstant memo, unmarked, io, impure, fresh, callsIo;
+
+    @Before
+    public void setUp() {
+        when(definition.kLabelAttributes()).thenReturn(attributes);
+        when(definition.functionRules()).thenReturn(functionRules);
+
+        memo = function("memoTest.memo", Attribute.of(FunctionMemoization.MEMO_KEY, ""));
+        unmarked = function("memoTest.unmarked");
+        io = function("memoTest.io", Attribute.of(FunctionMemoization.MEMO_KEY, ""),
+                Attribute.of(Attribute.HOOK_KEY, "IO.log"));
+        impure = function("memoTest.impure", Attribute.of(FunctionMemoization.MEMO_KEY, ""),
+                Attribute.of(Attribute.IMPURE_KEY, ""));
+        fresh = function("memoTest.fresh", Attribute.of(FunctionMemoization.MEMO_KEY, ""));
+        callsIo = function("memoTest.callsIo", Attribute.of(FunctionMemoization.MEMO_KEY, ""));
+
+        functionRules.put(memo, rule(apply(memo, IntToken.of(0)), IntToken.of(1), false));
+        functionRules.put(fresh, rule(apply(fresh, IntToken.of(0)), IntToken.of(1), true));
+        functionRules.put(callsIo, rule(apply(callsIo, IntToken.of(0)), apply(io, IntToken.of(0)), false));
+    }
+
+    private KLabelConstant function(String label, Attribute<?>... extra) {
+        Attributes attrs = new Attributes();
+        attrs.add(Attribute.FUNCTION);
+        for (Attribute<?> attribute : extra) {
+            attrs.add(attribute);
+        }
+        attributes.put(label, attrs);
+        when(definition.kLabelAttributesOf(label)).thenReturn(attrs);
+        return KLabelConstant.of(label, definition);
+    }
+
+    private static KItem apply(KLabelConstant kLabel, Term argument) {
+        return new KItem(kLabel, KList.singleton(argument), Sort.INT, true);
+    }
+
+    private static Rule rule(Term leftHandSide, Term rightHandSide, boolean fresh) {
+        Rule rule = mock(Rule.class);
+        when(rule.leftHandSide()).thenReturn(leftHandSide);
+        when(rule.rightHandSide()).thenReturn(rightHandSide);
+        when(rule.lookups()).thenReturn(ConjunctiveFormula.of((GlobalContext) null));
+        when(rule.requires()).thenReturn(ImmutableList.of());
+        when(rule.ensures()).thenReturn(ImmutableList.of());
+        when(rule.freshConstants()).thenReturn(fresh ? ImmutableSet.of(new Variable("F", Sort.INT)) : ImmutableSet.of());
+        when(rule.freshVariables()).thenReturn(ImmutableSet.of());
+        return rule;
+    }
+
+    /**
+     * Evaluates the given application twice and returns the number of times the evaluator was called.
+     */
+    private static int evaluations(FunctionMemoization memoization, Definition definition, KItem kItem, Term result) {
+        AtomicInteger count = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            assertSame(result, memoization.evaluate(kItem, definition, k -> {
+                count.incrementAndGet();
+                return result;
+            }));
+        }
+        return count.get();
+    }
+
+    @Test
+    public void testMemoizedResultIsReused() {
+        FunctionMemoization memoization = new FunctionMemoization(16, false);
+        assertEquals(1, evaluations(memoization, definition, apply(memo, IntToken.of(0)), IntToken.of(1)));
+        assertEquals(0, evaluations(memoization, definition, apply(memo, IntToken.of(0)), IntToken.of(1)));
+        assertEquals(3, memoization.stats().hitCount());
+        assertEquals(1, memoization.stats().missCount());
+    }
+
+    @Test
+    public void testUnmarkedFunctionsAreOnlyMemoizedWhenPure() {
+        assertNull(new FunctionMemoization(16, false).tableOf(unmarked, definition));
+        assertNotNull(new FunctionMemoization(16, true).tableOf(unmarked, definition));
+        assertNull(new FunctionMemoization(0, true).tableOf(memo, definition));
+    }
+
+    @Test
+    public void testImpureFunctionsAreNeverMemoized() {
+        FunctionMemoization memoization = new FunctionMemoization(16, true);
+        assertNotNull(memoization.tableOf(memo, definition));
+        assertNull(memoization.tableOf(io, definition));
+        assertNull(memoization.tableOf(impure, definition));
+        assertNull(memoization.tableOf(fresh, definition));
+        assertNull(memoization.tableOf(callsIo, definition));
+        assertEquals(2, evaluations(memoization, definition, apply(io, IntToken.of(0)), IntToken.of(1)));
+        assertEquals(2, evaluations(memoization, definition, apply(fresh, IntToken.of(0)), IntToken.of(1)));
+        assertEquals(2, evaluations(memoization, definition, apply(callsIo, IntToken.of(0)), IntToken.of(1)));
+    }
+
+    @Test
+    public void testNonGroundApplicationsAreNeverMemoized() {
+        FunctionMemoization memoization = new FunctionMemoization(16, false);
+        KItem kItem = apply(memo, new Variable("X", Sort.INT));
+        assertEquals(2, evaluations(memoization, definition, kItem, IntToken.of(1)));
+        assertEquals(0, memoization.stats().requestCount());
+    }
+
+    @Test
+    public void testUnevaluatedApplicationsAreNeverMemoized() {
+        FunctionMemoization memoization = new FunctionMemoization(16, false);
+        KItem kItem = apply(memo, IntToken.of(2));
+        assertEquals(2, evaluations(memoization, definition, kItem, kItem));
+    }
+}
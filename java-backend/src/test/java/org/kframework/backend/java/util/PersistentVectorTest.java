@@ -0,0 +1,73 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class PersistentVectorTest {
+
+    @Test
+    public void testAppendAndGet() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            vector = vector.concat(PersistentVector.of(i));
+            expected.add(i);
+        }
+        assertEquals(10000, vector.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(Integer.valueOf(i), vector.get(i));
+        }
+        assertEquals(expected, vector);
+        assertEquals(expected.hashCode(), vector.hashCode());
+    }
+
+    @Test
+    public void testAgainstArrayList() {
+        Random random = new Random(0);
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<Integer> expected = new ArrayList<>();
+        for (int step = 0; step < 1000; step++) {
+            switch (random.nextInt(4)) {
+            case 0:
+                PersistentVector.Builder<Integer> builder = new PersistentVector.Builder<>();
+                for (int i = random.nextInt(100); i > 0; i--) {
+                    int element = random.nextInt();
+                    builder.add(element);
+                    expected.add(element);
+                }
+                vector = vector.concat(builder.build());
+                break;
+            case 1:
+                int fromIndex = random.nextInt(expected.size() + 1);
+                int toIndex = fromIndex + random.nextInt(expected.size() - fromIndex + 1);
+                expected = new ArrayList<>(expected.subList(fromIndex, toIndex));
+                vector = vector.slice(fromIndex, toIndex);
+                break;
+            case 2:
+                if (!expected.isEmpty()) {
+                    int index = random.nextInt(expected.size());
+                    expected.set(index, step);
+                    vector = vector.updated(index, step);
+                }
+                break;
+            default:
+                expected.addAll(0, new ArrayList<>(expected));
+                vector = vector.concat(vector);
+                if (expected.size() > 10000) {
+                    expected = new ArrayList<>(expected.subList(0, 1000));
+                    vector = vector.slice(0, 1000);
+                }
+            }
+            assertEquals(expected, vector);
+            assertEquals(vector, expected);
+            assertEquals(expected.hashCode(), vector.hashCode());
+        }
+    }
+
+}
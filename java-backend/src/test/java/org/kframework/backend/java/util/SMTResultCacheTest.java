@@ -0,0 +1,139 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import com.google.common.collect.HashMultimap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Rule;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.symbolic.ConjunctiveFormula;
+import org.kframework.backend.java.symbolic.Equality;
+import org.kframework.backend.java.symbolic.ImmutableMapSubstitution;
+import org.kframework.backend.java.symbolic.KILtoSMTLib;
+import org.kframework.backend.java.symbolic.PersistentUniqueList;
+import org.kframework.kil.Attribute;
+import org.kframework.kil.Attributes;
+import org.kframework.krun.KRunOptions;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.options.SMTOptions;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SMTResultCacheTest {
+
+    @Mock
+    Definition definition;
+
+    @Mock
+    KExceptionManager kem;
+
+    private GlobalContext global;
+    private Z3Wrapper z3;
+    private KLabelConstant plus;
+
+    @Before
+    public void setUp() {
+        when(definition.functionRules()).thenReturn(HashMultimap.<KLabelConstant, Rule>create());
+        when(definition.kLabels()).thenReturn(new HashSet<>());
+        Attributes attributes = new Attributes();
+        attributes.add(Attribute.FUNCTION);
+        attributes.add(Attribute.of(Attribute.SMTLIB_KEY, "+"));
+        when(definition.kLabelAttributesOf("smtCacheTest.plus")).thenReturn(attributes);
+        plus = KLabelConstant.of("smtCacheTest.plus", definition);
+
+        global = new GlobalContext(null, false, new GlobalOptions(), new KRunOptions(), kem, new SMTOptions(), null,
+                FileUtil.testFileUtil(), null);
+        global.setDefinition(definition);
+        z3 = spy(new Z3Wrapper(new SMTOptions(), kem, new GlobalOptions(), FileUtil.testFileUtil()));
+    }
+
+    /**
+     * Translates the constraint {@code x + y = 0} with normalized variable names.
+     */
+    private String query(String x, String y) {
+        KItem sum = new KItem(plus, KList.concatenate(new Variable(x, Sort.INT), new Variable(y, Sort.INT)),
+                Sort.INT, true);
+        ConjunctiveFormula constraint = ConjunctiveFormula.of(
+                ImmutableMapSubstitution.empty(),
+                PersistentUniqueList.singleton(new Equality(sum, IntToken.of(0), global)),
+                PersistentUniqueList.empty(),
+                global);
+        return KILtoSMTLib.translateConstraint(constraint, true);
+    }
+
+    @Test
+    public void testAlphaEquivalentQueriesShareEntry() {
+        doReturn(Z3Wrapper.Result.UNSAT).when(z3).check(anyString(), anyInt());
+        SMTResultCache cache = new SMTResultCache(z3, null, kem);
+        String query = query("X", "Y");
+        assertEquals(query, query("A", "B"));
+        assertTrue(cache.isUnsat(query("X", "Y"), 100));
+        assertTrue(cache.isUnsat(query("A", "B"), 100));
+        verify(z3, times(1)).check(anyString(), anyInt());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testUnknownResultsAreNotCached() throws IOException {
+        doReturn(Z3Wrapper.Result.UNKNOWN).when(z3).check(anyString(), anyInt());
+        File file = File.createTempFile("smt-cache", ".bin");
+        try {
+            SMTResultCache cache = new SMTResultCache(z3, file, kem);
+            assertFalse(cache.isUnsat("(assert true)", 100));
+            assertFalse(cache.isUnsat("(assert true)", 100));
+            cache.close();
+            verify(z3, times(2)).check(anyString(), anyInt());
+            assertEquals(0, cache.size());
+            assertEquals(0, file.length());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testStoreRoundTrip() throws IOException {
+        doReturn(Z3Wrapper.Result.UNSAT).when(z3).check("(assert false)", 100);
+        doReturn(Z3Wrapper.Result.SAT).when(z3).check("(assert true)", 100);
+        File file = File.createTempFile("smt-cache", ".bin");
+        try {
+            SMTResultCache first = new SMTResultCache(z3, file, kem);
+            assertTrue(first.isUnsat("(assert false)", 100));
+            assertFalse(first.isUnsat("(assert true)", 100));
+            first.close();
+
+            Z3Wrapper unused = spy(new Z3Wrapper(new SMTOptions(), kem, new GlobalOptions(), FileUtil.testFileUtil()));
+            SMTResultCache second = new SMTResultCache(unused, file, kem);
+            assertEquals(2, second.size());
+            assertTrue(second.isUnsat("(assert false)", 100));
+            assertFalse(second.isUnsat("(assert true)", 100));
+            second.close();
+            verify(unused, never()).check(anyString(), anyInt());
+
+            /* a different timeout is a different query */
+            doReturn(Z3Wrapper.Result.SAT).when(unused).check("(assert false)", 200);
+            SMTResultCache third = new SMTResultCache(unused, file, kem);
+            assertFalse(third.isUnsat("(assert false)", 200));
+            third.close();
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.OS;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.options.SMTOptions;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Checks the solver sessions of {@link Z3Wrapper} with both the Z3 library and the external Z3 process. The tests are
+ * skipped if the corresponding Z3 is not installed.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class Z3WrapperTest {
+
+    private static final String PRELUDE = "(declare-fun p () Int)\n(assert (= p 5))\n";
+    private static final String SAT_QUERY = "(declare-fun x () Int)\n(assert (= x p))\n";
+    private static final String UNSAT_QUERY = "(declare-fun x () Int)\n(assert (> x p))\n(assert (< x p))\n";
+
+    @Mock
+    KExceptionManager kem;
+
+    private File prelude;
+
+    @After
+    public void tearDown() {
+        if (prelude != null) {
+            prelude.delete();
+        }
+    }
+
+    private static boolean hasLibrary() {
+        try {
+            new com.microsoft.z3.Context().dispose();
+            return true;
+        } catch (LinkageError | Exception e) {
+            return false;
+        }
+    }
+
+    private static boolean hasExecutable() {
+        try {
+            return new ProcessBuilder(OS.current().getNativeExecutable("z3"), "-version").start().waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Creates a wrapper with the given number of sessions, checking queries with the external Z3 process or with the
+     * Z3 library, and skips the test if that Z3 is not installed.
+     */
+    private Z3Wrapper z3(boolean executable, int sessions) throws IOException {
+        assumeTrue(executable ? hasExecutable() : hasLibrary());
+        prelude = File.createTempFile("prelude", ".smt2");
+        Files.write(prelude.toPath(), PRELUDE.getBytes(StandardCharsets.UTF_8));
+        SMTOptions options = new SMTOptions();
+        options.z3Executable = executable;
+        options.z3Sessions = sessions;
+        options.smtPrelude = prelude.getAbsolutePath();
+        return new Z3Wrapper(options, kem, new GlobalOptions(), FileUtil.testFileUtil());
+    }
+
+    /**
+     * Checks queries one after the other with a single session, so that each query is checked in the scope left
+     * by the previous one.
+     */
+    private void testQueriesAreIsolated(boolean executable) throws IOException {
+        try (Z3Wrapper z3 = z3(executable, 1)) {
+            assertEquals(Z3Wrapper.Result.UNSAT,
+                    z3.check("(declare-fun x () Int)\n(assert (> x 0))\n(assert (< x 0))\n", 1000));
+            /* the assertions of the previous query are gone, and x may be declared again */
+            assertEquals(Z3Wrapper.Result.SAT, z3.check("(declare-fun x () Int)\n(assert (= x 1))\n", 1000));
+            /* the declarations of the previous queries are gone */
+            assertEquals(Z3Wrapper.Result.UNKNOWN, z3.check("(assert (= x 1))\n", 1000));
+            /* the prelude is kept for every query */
+            assertEquals(Z3Wrapper.Result.UNSAT, z3.check("(assert (= p 6))\n", 1000));
+            assertEquals(Z3Wrapper.Result.SAT, z3.check("(declare-fun x () Int)\n(assert (= x p))\n", 1000));
+        }
+    }
+
+    @Test
+    public void testQueriesAreIsolatedWithLibrary() throws IOException {
+        testQueriesAreIsolated(false);
+    }
+
+    @Test
+    public void testQueriesAreIsolatedWithExternalProcess() throws IOException {
+        testQueriesAreIsolated(true);
+    }
+
+    private static int statistic(Z3Wrapper z3, String name) {
+        Matcher matcher = Pattern.compile("(\\d+) " + name).matcher(z3.statistics());
+        assertTrue(matcher.find());
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    /**
+     * Checks the given number of queries from each of the given threads, alternating between satisfiable and
+     * unsatisfiable ones. Each thread counts the latch down once its first query is checked.
+     */
+    private static List<Future<Void>> checkConcurrently(ExecutorService executor, Z3Wrapper z3, int threads,
+                                                        int queries, CountDownLatch started) {
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int offset = i;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < queries; j++) {
+                    boolean sat = (offset + j) % 2 == 0;
+                    assertEquals(sat ? Z3Wrapper.Result.SAT : Z3Wrapper.Result.UNSAT,
+                            z3.check(sat ? SAT_QUERY : UNSAT_QUERY, 1000));
+                    if (j == 0) {
+                        started.countDown();
+                    }
+                }
+                return null;
+            }));
+        }
+        return futures;
+    }
+
+    private static void await(List<Future<Void>> futures)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        for (Future<Void> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+    }
+
+    private void testPoolSmallerThanThreads(boolean executable)
+            throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (Z3Wrapper z3 = z3(executable, 2)) {
+            await(checkConcurrently(executor, z3, 8, 20, new CountDownLatch(0)));
+            assertEquals(8 * 20, statistic(z3, "SMT queries"));
+            int sessions = statistic(z3, "solver sessions");
+            assertTrue(sessions >= 1 && sessions <= 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPoolSmallerThanThreadsWithLibrary()
+            throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        testPoolSmallerThanThreads(false);
+    }
+
+    @Test
+    public void testPoolSmallerThanThreadsWithExternalProcess()
+            throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        testPoolSmallerThanThreads(true);
+    }
+
+    /**
+     * Closes a pool of a single session once every thread checked a query, while the other queries of the threads
+     * are waiting for the session. The waiting queries are still checked, and every session is stopped once the
+     * queries are done.
+     */
+    private void testCloseWhileWaiting(boolean executable)
+            throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try (Z3Wrapper z3 = z3(executable, 1)) {
+            CountDownLatch started = new CountDownLatch(6);
+            List<Future<Void>> futures = checkConcurrently(executor, z3, 6, 20, started);
+            started.await();
+            z3.close();
+            await(futures);
+            assertEquals(0, statistic(z3, "solver sessions"));
+
+            assertEquals(Z3Wrapper.Result.SAT, z3.check(SAT_QUERY, 1000));
+            assertEquals(0, statistic(z3, "solver sessions"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCloseWhileWaitingWithLibrary()
+            throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        testCloseWhileWaiting(false);
+    }
+
+    @Test
+    public void testCloseWhileWaitingWithExternalProcess()
+            throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        testCloseWhileWaiting(true);
+    }
+}
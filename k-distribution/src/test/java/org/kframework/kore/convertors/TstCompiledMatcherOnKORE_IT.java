@@ -0,0 +1,47 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+
+package org.kframework.kore.convertors;
+
+import org.junit.Test;
+import org.kframework.AbstractTest;
+import org.kframework.RewriterResult;
+import org.kframework.attributes.Source;
+import org.kframework.kore.K;
+import org.kframework.krun.KRunOptions;
+import org.kframework.rewriter.Rewriter;
+import org.kframework.utils.KoreUtils;
+
+import java.net.URISyntaxException;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that rewriting with the compiled rule matcher takes the same steps as with the interpreted rule automaton.
+ */
+public class TstCompiledMatcherOnKORE_IT extends AbstractTest {
+
+    @Test
+    public void kore_imp() throws URISyntaxException {
+        KoreUtils utils = new KoreUtils("/convertor-tests/kore_imp.k", "IMP", "IMP-SYNTAX", kem);
+        String pgm = "int s, n; n = 10; while(0<=n) { s = s + n; n = n + -1; }";
+        K parsed = utils.getParsed(pgm, Source.apply("generated by " + getClass().getSimpleName()));
+
+        KRunOptions compiledOptions = new KRunOptions();
+        compiledOptions.experimental.compiledMatcher = true;
+        try (Rewriter interpreted = utils.getRewriter(new KRunOptions());
+             Rewriter compiled = utils.getRewriter(compiledOptions)) {
+            RewriterResult expected;
+            int depth = 0;
+            do {
+                expected = interpreted.execute(parsed, Optional.of(depth));
+                RewriterResult actual = compiled.execute(parsed, Optional.of(depth));
+                assertEquals("Steps differ at depth " + depth, expected.rewriteSteps(), actual.rewriteSteps());
+                assertEquals("Configurations differ at depth " + depth, expected.k(), actual.k());
+                depth += 7;
+            } while (expected.rewriteSteps().get() == depth - 7);
+
+            assertEquals(interpreted.execute(parsed, Optional.empty()).k(), compiled.execute(parsed, Optional.empty()).k());
+        }
+    }
+}
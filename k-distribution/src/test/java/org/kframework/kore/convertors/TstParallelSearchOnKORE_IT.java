@@ -0,0 +1,84 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+
+package org.kframework.kore.convertors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.AbstractTest;
+import org.kframework.attributes.Source;
+import org.kframework.builtin.BooleanUtils;
+import org.kframework.definition.Rule;
+import org.kframework.kore.K;
+import org.kframework.kore.KORE;
+import org.kframework.krun.KRunOptions;
+import org.kframework.rewriter.Rewriter;
+import org.kframework.rewriter.SearchType;
+import org.kframework.utils.KoreUtils;
+
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a breadth-first search expanding each frontier with several threads finds the same solutions as a
+ * sequential search, in the same order when the search is deterministic.
+ */
+public class TstParallelSearchOnKORE_IT extends AbstractTest {
+
+    private static final Rule PATTERN = new Rule(KORE.KVariable("X"), BooleanUtils.TRUE, BooleanUtils.TRUE, KORE.Att());
+
+    private KoreUtils utils;
+    private K parsed;
+
+    @Before
+    public void setUp() throws URISyntaxException {
+        utils = new KoreUtils("/convertor-tests/choice.k", "CHOICE", "CHOICE-SYNTAX", kem);
+        parsed = utils.getParsed("12", Source.apply("generated by " + getClass().getSimpleName()));
+    }
+
+    private List<K> search(int searchThreads, boolean deterministicSearch, Optional<Integer> depth, SearchType searchType) {
+        KRunOptions krunOptions = new KRunOptions();
+        krunOptions.experimental.searchThreads = searchThreads;
+        krunOptions.experimental.deterministicSearch = deterministicSearch;
+        List<K> results = new ArrayList<>();
+        try (Rewriter rewriter = utils.getRewriter(krunOptions)) {
+            rewriter.search(parsed, depth, Optional.empty(), PATTERN, searchType, false, results::add,
+                    new AtomicBoolean(false));
+        }
+        return results;
+    }
+
+    private void assertSameSolutions(Optional<Integer> depth, SearchType searchType) {
+        List<K> sequential = search(1, false, depth, searchType);
+        assertTrue(sequential.size() > 1);
+        assertEquals("Duplicate solutions", sequential.size(), new HashSet<>(sequential).size());
+        for (int searchThreads : new int[]{2, 4, 8}) {
+            List<K> parallel = search(searchThreads, false, depth, searchType);
+            assertEquals(sequential.size(), parallel.size());
+            assertEquals(new HashSet<>(sequential), new HashSet<>(parallel));
+            assertEquals(sequential, search(searchThreads, true, depth, searchType));
+        }
+    }
+
+    @Test
+    public void testFinalStates() {
+        assertSameSolutions(Optional.empty(), SearchType.FINAL);
+    }
+
+    @Test
+    public void testReachableStates() {
+        assertSameSolutions(Optional.empty(), SearchType.STAR);
+        assertSameSolutions(Optional.of(4), SearchType.STAR);
+    }
+
+    @Test
+    public void testStatesAtDepth() {
+        assertSameSolutions(Optional.of(5), SearchType.FINAL);
+        assertSameSolutions(Optional.of(3), SearchType.PLUS);
+    }
+}
@@ -0,0 +1,123 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+
+package org.kframework.kore.convertors;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.AbstractTest;
+import org.kframework.HookProvider;
+import org.kframework.attributes.Source;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.symbolic.InitializeRewriter;
+import org.kframework.backend.java.symbolic.PrecompiledDefinition;
+import org.kframework.backend.java.symbolic.Stage;
+import org.kframework.definition.Module;
+import org.kframework.kompile.KompileOptions;
+import org.kframework.kore.K;
+import org.kframework.krun.KRunOptions;
+import org.kframework.krun.ioserver.filesystem.portable.PortableFileSystem;
+import org.kframework.main.GlobalOptions;
+import org.kframework.rewriter.Rewriter;
+import org.kframework.utils.KoreUtils;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.options.SMTOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a definition saved by kompile is loaded by krun and rewrites like a definition initialized by krun, and
+ * that it is not loaded if the settings or the compiled definition it was saved with changed.
+ */
+public class TstPrecompiledDefinitionOnKORE_IT extends AbstractTest {
+
+    private KoreUtils utils;
+    private Module module;
+    private K parsed;
+    private File kompiledDir;
+    private FileUtil files;
+
+    @Before
+    public void setUp() throws URISyntaxException, IOException {
+        utils = new KoreUtils("/convertor-tests/kore_imp.k", "IMP", "IMP-SYNTAX", kem);
+        module = utils.compiledDef.executionModule();
+        String pgm = "int s, n; n = 10; while(0<=n) { s = s + n; n = n + -1; }";
+        parsed = utils.getParsed(pgm, Source.apply("generated by " + getClass().getSimpleName()));
+
+        kompiledDir = Files.createTempDir();
+        files = new FileUtil(kompiledDir, kompiledDir, new File("."), kompiledDir, new GlobalOptions(), System.getenv());
+        Files.touch(files.resolveKompiled("compiled.bin"));
+        PrecompiledDefinition.save(module, kem, files, new GlobalOptions(), new KompileOptions());
+        assertTrue(files.resolveKompiled(PrecompiledDefinition.FILE).exists());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(kompiledDir);
+    }
+
+    private GlobalContext initializingContext(boolean deterministicFunctions, SMTOptions smtOptions) {
+        return new GlobalContext(new PortableFileSystem(kem, files), deterministicFunctions, new GlobalOptions(),
+                new KRunOptions(), kem, smtOptions, HookProvider.get(kem), files, Stage.INITIALIZING);
+    }
+
+    private Rewriter precompiledRewriter() {
+        KRunOptions krunOptions = new KRunOptions();
+        return new InitializeRewriter(new PortableFileSystem(kem, files), false, new GlobalOptions(), kem,
+                new SMTOptions(), HookProvider.get(kem), new KompileOptions(), krunOptions, files,
+                new InitializeRewriter.InitializeDefinition(true)).apply(module);
+    }
+
+    @Test
+    public void testLoadedDefinitionRewrites() {
+        GlobalContext global = initializingContext(false, new SMTOptions());
+        Definition definition = PrecompiledDefinition.load(module, kem, global);
+        assertNotNull(definition);
+        assertSame(definition, global.getDefinition());
+        global.close();
+
+        try (Rewriter expected = utils.getRewriter(); Rewriter actual = precompiledRewriter()) {
+            for (Optional<Integer> depth : Arrays.asList(Optional.of(25), Optional.<Integer>empty())) {
+                assertEquals(expected.execute(parsed, depth).k(), actual.execute(parsed, depth).k());
+                assertEquals(expected.execute(parsed, depth).rewriteSteps(), actual.execute(parsed, depth).rewriteSteps());
+            }
+        }
+    }
+
+    @Test
+    public void testChangedSettingsAreNotLoaded() {
+        GlobalContext deterministic = initializingContext(true, new SMTOptions());
+        assertNull(PrecompiledDefinition.load(module, kem, deterministic));
+        deterministic.close();
+
+        SMTOptions floatsAsPO = new SMTOptions();
+        floatsAsPO.floatsAsPO = true;
+        GlobalContext changedSMT = initializingContext(false, floatsAsPO);
+        assertNull(PrecompiledDefinition.load(module, kem, changedSMT));
+        changedSMT.close();
+    }
+
+    @Test
+    public void testChangedCompiledDefinitionIsNotLoaded() {
+        File compiled = files.resolveKompiled("compiled.bin");
+        assertTrue(compiled.setLastModified(compiled.lastModified() - 60000));
+
+        GlobalContext global = initializingContext(false, new SMTOptions());
+        assertNull(PrecompiledDefinition.load(module, kem, global));
+        assertNotNull(new InitializeRewriter.InitializeDefinition(true).invoke(module, kem, global));
+        global.close();
+
+        try (Rewriter expected = utils.getRewriter(); Rewriter actual = precompiledRewriter()) {
+            assertEquals(expected.execute(parsed, Optional.empty()).k(), actual.execute(parsed, Optional.empty()).k());
+        }
+    }
+}
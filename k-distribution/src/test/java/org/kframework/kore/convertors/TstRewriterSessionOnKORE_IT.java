@@ -0,0 +1,96 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+
+package org.kframework.kore.convertors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.AbstractTest;
+import org.kframework.RewriterResult;
+import org.kframework.attributes.Source;
+import org.kframework.kore.K;
+import org.kframework.rewriter.ExecutingRewriterSession;
+import org.kframework.rewriter.Rewriter;
+import org.kframework.rewriter.RewriterSession;
+import org.kframework.utils.KoreUtils;
+
+import java.net.URISyntaxException;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that stepping a configuration through a session in chunks, including after resetting it to a checkpoint,
+ * reaches the same configuration in the same number of steps as a single execution.
+ */
+public class TstRewriterSessionOnKORE_IT extends AbstractTest {
+
+    private KoreUtils utils;
+    private K parsed;
+
+    @Before
+    public void setUp() throws URISyntaxException {
+        utils = new KoreUtils("/convertor-tests/kore_imp.k", "IMP", "IMP-SYNTAX", kem);
+        String pgm = "int s, n; n = 10; while(0<=n) { s = s + n; n = n + -1; }";
+        parsed = utils.getParsed(pgm, Source.apply("generated by " + getClass().getSimpleName()));
+    }
+
+    /**
+     * Steps the session in chunks of the given size until no rule applies, checking the configuration and the
+     * number of steps after each chunk against a single execution of the same total depth.
+     *
+     * @return the total number of steps taken
+     */
+    private int stepInChunks(Rewriter rewriter, RewriterSession session, int initialSteps, int chunk) {
+        int total = initialSteps;
+        int taken;
+        do {
+            taken = session.step(chunk);
+            total += taken;
+            RewriterResult expected = rewriter.execute(parsed, Optional.of(total));
+            assertEquals("Steps differ at depth " + total, expected.rewriteSteps().get().intValue(), total);
+            assertEquals("Configurations differ at depth " + total, expected.k(), session.k());
+        } while (taken == chunk);
+        return total;
+    }
+
+    @Test
+    public void testChunksMatchSingleExecution() {
+        try (Rewriter rewriter = utils.getRewriter()) {
+            RewriterResult expected = rewriter.execute(parsed, Optional.empty());
+            for (int chunk : new int[]{1, 7, 50}) {
+                RewriterSession session = rewriter.startSession(parsed);
+                assertEquals(expected.rewriteSteps().get().intValue(), stepInChunks(rewriter, session, 0, chunk));
+                assertEquals(expected.k(), session.k());
+            }
+        }
+    }
+
+    @Test
+    public void testResetToCheckpoint() {
+        try (Rewriter rewriter = utils.getRewriter()) {
+            RewriterSession session = rewriter.startSession(parsed);
+            assertEquals(20, session.step(20));
+            K checkpoint = session.k();
+            session.step(15);
+
+            session.reset(checkpoint);
+            assertEquals(checkpoint, session.k());
+            int total = stepInChunks(rewriter, session, 20, 9);
+            assertEquals(rewriter.execute(parsed, Optional.empty()).rewriteSteps().get().intValue(), total);
+        }
+    }
+
+    @Test
+    public void testDefaultSessionMatchesBackendSession() {
+        try (Rewriter rewriter = utils.getRewriter()) {
+            RewriterSession backend = rewriter.startSession(parsed);
+            RewriterSession executing = new ExecutingRewriterSession(rewriter, parsed);
+            int taken;
+            do {
+                taken = backend.step(11);
+                assertEquals(taken, executing.step(11));
+                assertEquals(backend.k(), executing.k());
+            } while (taken == 11);
+        }
+    }
+}
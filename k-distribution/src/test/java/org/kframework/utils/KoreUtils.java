@@ -52,6 +52,11 @@ public class KoreUtils {
     public final BiFunction<String, Source, K> programParser;
     public InitializeRewriter initializeRewriter;
     public Rewriter rewriter;
+    private final FileSystem fs;
+    private final FileUtil files;
+    private final KompileOptions kompileOptions;
+    private final JavaExecutionOptions javaExecutionOptions;
+    private final Map<String, MethodHandle> hookProvider;
 
     protected File testResource(String baseName) throws URISyntaxException {
         return new File(KoreUtils.class.getResource(baseName).toURI());
@@ -75,9 +80,10 @@ public class KoreUtils {
         KRunOptions krunOptions = new KRunOptions();
         krunOptions.search = search;
 
-        JavaExecutionOptions javaExecutionOptions = new JavaExecutionOptions();
-        FileUtil files = FileUtil.testFileUtil();
-        FileSystem fs = new PortableFileSystem(kem, files);
+        javaExecutionOptions = new JavaExecutionOptions();
+        files = FileUtil.testFileUtil();
+        fs = new PortableFileSystem(kem, files);
+        this.kompileOptions = kompileOptions;
 
         Kompile kompile = new Kompile(kompileOptions, FileUtil.testFileUtil(), kem, false);
         compiledDef = kompile.run(definitionFile, mainModuleName, mainProgramsModuleName,
@@ -85,9 +91,13 @@ public class KoreUtils {
 
         programParser = compiledDef.getProgramParser(this.kem);
 
-        Map<String, MethodHandle> hookProvider = HookProvider.get(kem);
+        hookProvider = HookProvider.get(kem);
+        initializeRewriter = newInitializeRewriter(krunOptions);
+    }
+
+    private InitializeRewriter newInitializeRewriter(KRunOptions krunOptions) {
         InitializeRewriter.InitializeDefinition initializeDefinition = new InitializeRewriter.InitializeDefinition();
-        initializeRewriter = new InitializeRewriter(fs, javaExecutionOptions.deterministicFunctions, krunOptions.global, kem, krunOptions.experimental.smt, hookProvider, kompileOptions, krunOptions, files, initializeDefinition);
+        return new InitializeRewriter(fs, javaExecutionOptions.deterministicFunctions, krunOptions.global, kem, krunOptions.experimental.smt, hookProvider, kompileOptions, krunOptions, files, initializeDefinition);
     }
 
     public K getParsed(String program, Source source) throws URISyntaxException {
@@ -119,6 +129,13 @@ public class KoreUtils {
         return rewriter;
     }
 
+    /**
+     * Returns a new rewriter of the definition with the given options.
+     */
+    public Rewriter getRewriter(KRunOptions krunOptions) {
+        return newInitializeRewriter(krunOptions).apply(compiledDef.executionModule());
+    }
+
 
     public Module getUnparsingModule() {
         return compiledDef.getExtensionModule(compiledDef.languageParsingModule());
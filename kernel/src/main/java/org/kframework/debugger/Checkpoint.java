@@ -0,0 +1,64 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.debugger;
+
+/**
+ * A checkpoint in the history of a {@link DebuggerState}.
+ * <p>
+ * Checkpoints are immutable and linked to the previous checkpoint of the same history, so states stepped or copied
+ * from one another share their common history instead of copying it. The configuration of a checkpoint is kept by
+ * the {@link CheckpointStore} that created it, either in full or as a delta against the previous checkpoint.
+ */
+public final class Checkpoint {
+
+    private final int stepNum;
+    private final Checkpoint previous;
+    /**
+     * The number of deltas to apply to the nearest full checkpoint to restore this one; 0 if this one is full.
+     */
+    final int deltaDepth;
+    /**
+     * The location of the encoded configuration in the store.
+     */
+    final CheckpointStore.Slot slot;
+
+    Checkpoint(int stepNum, Checkpoint previous, int deltaDepth, CheckpointStore.Slot slot) {
+        this.stepNum = stepNum;
+        this.previous = previous;
+        this.deltaDepth = deltaDepth;
+        this.slot = slot;
+    }
+
+    public int getStepNum() {
+        return stepNum;
+    }
+
+    /**
+     * Returns the previous checkpoint of the history, or null if this is the first one.
+     */
+    public Checkpoint getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Returns the latest checkpoint of the history ending with this one whose step number is at most the given one,
+     * or null if there is no such checkpoint.
+     */
+    public Checkpoint floor(int stepNum) {
+        Checkpoint checkpoint = this;
+        while (checkpoint != null && checkpoint.stepNum > stepNum) {
+            checkpoint = checkpoint.previous;
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Returns the first checkpoint of the history ending with this one.
+     */
+    public Checkpoint first() {
+        Checkpoint checkpoint = this;
+        while (checkpoint.previous != null) {
+            checkpoint = checkpoint.previous;
+        }
+        return checkpoint;
+    }
+}
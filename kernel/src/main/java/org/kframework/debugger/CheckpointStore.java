@@ -0,0 +1,182 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.debugger;
+
+import org.kframework.kore.K;
+import org.kframework.parser.binary.BinaryParser;
+import org.kframework.unparser.ToBinary;
+import org.kframework.utils.errorsystem.KEMException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps the configurations of the {@link Checkpoint}s of the debugger in the binary KAST format.
+ * <p>
+ * Every {@link #FULL_CHECKPOINT_INTERVAL}th checkpoint of a history is stored in full, and the other ones as the
+ * delta of their binary KAST against the previous checkpoint. Consecutive checkpoints usually differ in a small
+ * part of the configuration, and the delta only keeps the bytes between the longest common prefix and the longest
+ * common suffix of the two encodings. The encoded checkpoints are kept on the heap, or appended to a file from which
+ * they are read back with positional reads. The file is deleted when the store is closed.
+ */
+public class CheckpointStore implements AutoCloseable {
+
+    public static final int FULL_CHECKPOINT_INTERVAL = 16;
+
+    /**
+     * The location of an encoded checkpoint.
+     */
+    interface Slot {
+        byte[] read();
+    }
+
+    /**
+     * The file the checkpoints are spilled to and its channel, or null if they are kept on the heap.
+     */
+    private final File spillFile;
+    private final FileChannel spill;
+    private long spillSize = 0;
+
+    /**
+     * The last added checkpoint and its encoded configuration, against which the next checkpoint is usually encoded.
+     */
+    private Checkpoint lastCheckpoint;
+    private byte[] lastBytes;
+
+    /**
+     * Creates a store keeping the checkpoints on the heap.
+     */
+    public CheckpointStore() {
+        spillFile = null;
+        spill = null;
+    }
+
+    /**
+     * Creates a store spilling the checkpoints to the given file, which is overwritten.
+     */
+    public CheckpointStore(File spillFile) {
+        this.spillFile = spillFile;
+        try {
+            spill = FileChannel.open(spillFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw KEMException.criticalError("Could not open checkpoint file " + spillFile, e);
+        }
+    }
+
+    /**
+     * Adds the checkpoint of the given configuration after the given one.
+     *
+     * @param previous the last checkpoint of the history, or null to start a new history
+     */
+    public Checkpoint add(Checkpoint previous, int stepNum, K k) {
+        byte[] bytes = ToBinary.apply(k);
+        Checkpoint checkpoint;
+        if (previous == null || previous.deltaDepth + 1 >= FULL_CHECKPOINT_INTERVAL) {
+            checkpoint = new Checkpoint(stepNum, previous, 0, store(bytes));
+        } else {
+            checkpoint = new Checkpoint(stepNum, previous, previous.deltaDepth + 1, store(delta(bytes(previous), bytes)));
+        }
+        lastCheckpoint = checkpoint;
+        lastBytes = bytes;
+        return checkpoint;
+    }
+
+    /**
+     * Returns the configuration of the given checkpoint.
+     */
+    public K load(Checkpoint checkpoint) {
+        return BinaryParser.parse(bytes(checkpoint));
+    }
+
+    private byte[] bytes(Checkpoint checkpoint) {
+        if (checkpoint == lastCheckpoint) {
+            return lastBytes;
+        }
+        byte[] encoded = checkpoint.slot.read();
+        return checkpoint.deltaDepth == 0 ? encoded : applyDelta(bytes(checkpoint.getPrevious()), encoded);
+    }
+
+    /**
+     * Encodes the target as the length of its common prefix and suffix with the base, followed by the bytes between.
+     */
+    static byte[] delta(byte[] base, byte[] target) {
+        int max = Math.min(base.length, target.length);
+        int prefix = 0;
+        while (prefix < max && base[prefix] == target[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix && base[base.length - 1 - suffix] == target[target.length - 1 - suffix]) {
+            suffix++;
+        }
+        return ByteBuffer.allocate(8 + target.length - prefix - suffix)
+                .putInt(prefix)
+                .putInt(suffix)
+                .put(target, prefix, target.length - prefix - suffix)
+                .array();
+    }
+
+    static byte[] applyDelta(byte[] base, byte[] delta) {
+        ByteBuffer buffer = ByteBuffer.wrap(delta);
+        int prefix = buffer.getInt();
+        int suffix = buffer.getInt();
+        int middle = buffer.remaining();
+        byte[] target = new byte[prefix + middle + suffix];
+        System.arraycopy(base, 0, target, 0, prefix);
+        buffer.get(target, prefix, middle);
+        System.arraycopy(base, base.length - suffix, target, prefix + middle, suffix);
+        return target;
+    }
+
+    private Slot store(byte[] encoded) {
+        if (spill == null) {
+            return () -> encoded;
+        }
+        long offset = spillSize;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(encoded);
+            while (buffer.hasRemaining()) {
+                spillSize += spill.write(buffer, spillSize);
+            }
+        } catch (IOException e) {
+            throw KEMException.criticalError("Could not write checkpoint to file", e);
+        }
+        return () -> readSpilled(offset, encoded.length);
+    }
+
+    private byte[] readSpilled(long offset, int length) {
+        byte[] encoded = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        try {
+            while (buffer.hasRemaining()) {
+                if (spill.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of checkpoint file");
+                }
+            }
+        } catch (IOException e) {
+            throw KEMException.criticalError("Could not read checkpoint from file", e);
+        }
+        return encoded;
+    }
+
+    /**
+     * Closes and deletes the file the checkpoints are spilled to, if any. The checkpoints of this store cannot be
+     * loaded afterwards.
+     */
+    @Override
+    public void close() {
+        if (spill == null) {
+            return;
+        }
+        try {
+            spill.close();
+        } catch (IOException e) {
+            throw KEMException.criticalError("Could not close checkpoint file " + spillFile, e);
+        } finally {
+            spillFile.delete();
+        }
+    }
+}
@@ -1,14 +1,11 @@
 // Copyright (c) 2015-2016 K Team. All Rights Reserved.
 package org.kframework.debugger;
 
-import com.google.common.collect.Maps;
 import org.kframework.kore.K;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.NavigableMap;
-import java.util.TreeMap;
 
 /**
  * Created by Manasvi on 6/15/15.
@@ -24,7 +21,7 @@ import java.util.TreeMap;
  */
 public class DebuggerState {
 
-    private final NavigableMap<Integer, K> checkpointMap;
+    private final Checkpoint lastCheckpoint;
 
     private final List<DebuggerMatchResult> watchList;
 
@@ -32,15 +29,15 @@ public class DebuggerState {
 
     private final int stepNum;
 
-    public DebuggerState(K currentK, int stepNum, NavigableMap<Integer, K> checkpointMap, List<DebuggerMatchResult> watchList) {
-        this.checkpointMap = new TreeMap<>(checkpointMap);
+    public DebuggerState(K currentK, int stepNum, Checkpoint lastCheckpoint, List<DebuggerMatchResult> watchList) {
+        this.lastCheckpoint = lastCheckpoint;
         this.watchList = new ArrayList<>(watchList);
         this.currentK = currentK;
         this.stepNum = stepNum;
     }
 
     public DebuggerState(DebuggerState copyState) {
-        this.checkpointMap = new TreeMap<>(copyState.getCheckpointMap());
+        this.lastCheckpoint = copyState.getLastCheckpoint();
         this.watchList = new ArrayList<>(copyState.getWatchList());
         this.currentK = copyState.getCurrentK();
         this.stepNum = copyState.getStepNum();
@@ -55,20 +52,23 @@ public class DebuggerState {
     }
 
     /**
-     * Get the last checkpoint from the Map.
+     * Get the step number of the last checkpoint.
      * The last checkpoint may not have the most recent K.
      *
-     * @return The most recent checkpoint element in the Map
+     * @return The step number of the most recent checkpoint
      */
     public int getlastMapCheckpoint() {
-        return checkpointMap.lastKey();
+        return lastCheckpoint.getStepNum();
     }
 
     public List<DebuggerMatchResult> getWatchList() {
         return Collections.unmodifiableList(watchList);
     }
 
-    public NavigableMap<Integer, K> getCheckpointMap() {
-        return Maps.unmodifiableNavigableMap(checkpointMap);
+    /**
+     * Get the last checkpoint of the history of this state, which links to the previous ones.
+     */
+    public Checkpoint getLastCheckpoint() {
+        return lastCheckpoint;
     }
 }
@@ -17,7 +17,7 @@ import java.util.Optional;
  * happens through the methods described in this
  * interface.
  */
-public interface KDebug {
+public interface KDebug extends AutoCloseable {
 
     /**
      * Change the Checkpoint Interval in the Debugger.
@@ -132,5 +132,11 @@ public interface KDebug {
      * @return The watch number of the watch removed, or -1 if watch not found in the list.
      */
     public int removeWatch(int watchNum);
+
+    /**
+     * Ends the debugger session, releasing the checkpoints it keeps.
+     */
+    @Override
+    public void close();
 }
 
@@ -3,7 +3,7 @@ package org.kframework.debugger;
 
 
 import org.kframework.rewriter.Rewriter;
-import org.kframework.RewriterResult;
+import org.kframework.rewriter.RewriterSession;
 import org.kframework.attributes.Source;
 import org.kframework.definition.Rule;
 import org.kframework.kompile.CompiledDefinition;
@@ -18,10 +18,7 @@ import scala.Tuple2;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.NavigableMap;
 import java.util.Optional;
-import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -33,11 +30,18 @@ public class KoreKDebug implements KDebug {
     private List<DebuggerState> stateList;
     private int activeStateIndex;
     private Rewriter rewriter;
+    /**
+     * The session stepping the configuration of the last stepped state, or null before the first step.
+     */
+    private RewriterSession session;
     private int checkpointInterval;
     private FileUtil files;
     private final KExceptionManager kem;
     private KRunOptions options;
     private CompiledDefinition compiledDef;
+    private final CheckpointStore checkpointStore;
+
+    private static final String CHECKPOINT_FILE = "checkpoints.bin";
 
     /**
      * Start a Debugger Session. The initial Configuration becomes a part of the new and only state of the Debugger
@@ -59,10 +63,12 @@ public class KoreKDebug implements KDebug {
         this.kem = kem;
         this.options = options;
         this.compiledDef = compiledDef;
-        NavigableMap<Integer, K> checkpointMap = new TreeMap<>();
-        checkpointMap.put(DEFAULT_ID, initialK);
+        this.checkpointStore = options.experimental.spillDebuggerCheckpoints ?
+                new CheckpointStore(files.resolveTemp(CHECKPOINT_FILE)) :
+                new CheckpointStore();
+        Checkpoint initialCheckpoint = checkpointStore.add(null, DEFAULT_ID, initialK);
         List<DebuggerMatchResult> watchList = new ArrayList<>();
-        DebuggerState initialState = new DebuggerState(initialK, DEFAULT_ID, checkpointMap, watchList);
+        DebuggerState initialState = new DebuggerState(initialK, DEFAULT_ID, initialCheckpoint, watchList);
         stateList.add(initialState);
         activeStateIndex = DEFAULT_ID;
     }
@@ -75,53 +81,55 @@ public class KoreKDebug implements KDebug {
     @Override
     public DebuggerState step(int currentStateIndex, int steps) {
         DebuggerState currentState = stateList.get(currentStateIndex);
-        K currentK = currentState.getCurrentK();
+        RewriterSession session = sessionFor(currentState.getCurrentK());
         int activeStateCheckpoint = currentState.getStepNum();
-        RewriterResult result;
-        NavigableMap<Integer, K> checkpointMap = new TreeMap<>(currentState.getCheckpointMap());
+        int stepsTaken;
+        Checkpoint lastCheckpoint = currentState.getLastCheckpoint();
         List<DebuggerMatchResult> origWatchList = currentState.getWatchList();
         while (steps >= checkpointInterval) {
-            result = rewriter.execute(currentK, Optional.of(checkpointInterval));
-            if (isFinalState(checkpointInterval, result)) {
-                return processStateData(result.k(),
-                        activeStateCheckpoint + result.rewriteSteps().get(),
+            stepsTaken = session.step(checkpointInterval);
+            if (stepsTaken < checkpointInterval) {
+                return processStateData(session.k(),
+                        activeStateCheckpoint + stepsTaken,
                         currentStateIndex,
-                        checkpointMap,
+                        lastCheckpoint,
                         origWatchList
                 );
             }
             steps -= checkpointInterval;
             activeStateCheckpoint += checkpointInterval;
-            checkpointMap.put(activeStateCheckpoint, result.k());
-            currentK = result.k();
-        }
-        result = rewriter.execute(currentK, Optional.of(steps));
-        if (isFinalState(steps, result)) {
-            return processStateData(result.k(),
-                    activeStateCheckpoint + result.rewriteSteps().get(),
-                    currentStateIndex,
-                    checkpointMap,
-                    origWatchList
-            );
-
+            lastCheckpoint = checkpointStore.add(lastCheckpoint, activeStateCheckpoint, session.k());
         }
-        activeStateCheckpoint += steps;
-        return processStateData(result.k(),
-                activeStateCheckpoint,
+        stepsTaken = session.step(steps);
+        return processStateData(session.k(),
+                activeStateCheckpoint + stepsTaken,
                 currentStateIndex,
-                checkpointMap,
+                lastCheckpoint,
                 origWatchList
         );
     }
 
+    /**
+     * Returns a session whose configuration is the given one, reusing the current session if it was left there
+     * by the previous step.
+     */
+    private RewriterSession sessionFor(K currentK) {
+        if (session == null) {
+            session = rewriter.startSession(currentK);
+        } else if (session.k() != currentK) {
+            session.reset(currentK);
+        }
+        return session;
+    }
+
     /* Private Helper function to do make a new state with the requested data */
-    private DebuggerState processStateData(K finalK, int stepNum, int stateNum, NavigableMap<Integer, K> checkpointMap, List<DebuggerMatchResult> watchList) {
+    private DebuggerState processStateData(K finalK, int stepNum, int stateNum, Checkpoint lastCheckpoint, List<DebuggerMatchResult> watchList) {
         List<DebuggerMatchResult> updatedWatchList = updateWatchList(watchList, finalK);
         stateList.remove(stateNum);
         DebuggerState nextState = new DebuggerState(
                 finalK,
                 stepNum,
-                checkpointMap,
+                lastCheckpoint,
                 updatedWatchList
         );
         stateList.add(stateNum, nextState);
@@ -141,40 +149,31 @@ public class KoreKDebug implements KDebug {
                 .collect(Collectors.toCollection(ArrayList::new));
     }
 
-    private boolean isFinalState(int steps, RewriterResult result) {
-        return result.rewriteSteps().isPresent() && result.rewriteSteps().get() < steps;
-    }
-
-    private boolean isFinalConfiguration(K config) {
-        return rewriter.execute(config, Optional.of(1)).equals(config);
-    }
-
     @Override
     public DebuggerState backStep(int initialStateNum, int steps) {
         DebuggerState currentState = stateList.get(initialStateNum);
         int currentCheckpoint = currentState.getStepNum();
         int target = currentCheckpoint - steps;
-        NavigableMap<Integer, K> currMap = new TreeMap<>(currentState.getCheckpointMap());
-        Map.Entry<Integer, K> relevantEntry = currMap.floorEntry(target);
-        if (relevantEntry == null) {
+        Checkpoint relevantCheckpoint = currentState.getLastCheckpoint().floor(target);
+        if (relevantCheckpoint == null) {
             /* Invalid Operation, no need to change the state */
             return null;
         }
 
-        int floorKey = relevantEntry.getKey();
-        processStateData(relevantEntry.getValue(),
+        int floorKey = relevantCheckpoint.getStepNum();
+        K floorK = checkpointStore.load(relevantCheckpoint);
+        processStateData(floorK,
                 floorKey,
                 initialStateNum,
-                currMap.headMap(floorKey, true),
-                updateWatchList(currentState.getWatchList(), relevantEntry.getValue()));
+                relevantCheckpoint,
+                updateWatchList(currentState.getWatchList(), floorK));
         return step(initialStateNum, target - floorKey);
     }
 
     @Override
     public DebuggerState jumpTo(int initialStateNum, int configurationNum) {
         DebuggerState currentState = stateList.get(initialStateNum);
-        NavigableMap<Integer, K> checkpointMap = new TreeMap<>(currentState.getCheckpointMap());
-        int firstKey = checkpointMap.firstKey();
+        int firstKey = currentState.getLastCheckpoint().first().getStepNum();
         if (configurationNum < firstKey) {
             return null;
         }
@@ -198,7 +197,7 @@ public class KoreKDebug implements KDebug {
             activeState = steppedState;
             steppedState = step(activeStateIndex, checkpointInterval);
         }
-        while (steppedState.getStepNum() - activeState.getStepNum() >= checkpointInterval && !isFinalConfiguration(steppedState.getCurrentK()));
+        while (steppedState.getStepNum() - activeState.getStepNum() >= checkpointInterval);
         return steppedState;
     }
 
@@ -259,7 +258,7 @@ public class KoreKDebug implements KDebug {
         DebuggerState nextState = new DebuggerState(
                 activeState.getCurrentK(),
                 activeState.getStepNum(),
-                new TreeMap<>(activeState.getCheckpointMap()),
+                activeState.getLastCheckpoint(),
                 watchList);
         stateList.add(activeStateIndex, nextState);
     }
@@ -278,10 +277,15 @@ public class KoreKDebug implements KDebug {
                 new DebuggerState(
                         currActiveState.getCurrentK(),
                         currActiveState.getStepNum(),
-                        new TreeMap<>(currActiveState.getCheckpointMap()),
+                        currActiveState.getLastCheckpoint(),
                         updatedList)
 
         );
         return watchNum;
     }
+
+    @Override
+    public void close() {
+        checkpointStore.close();
+    }
 }
@@ -42,14 +42,18 @@ import java.util.stream.Collectors;
 
 public class CompiledDefinition implements Serializable {
     public final KompileOptions kompileOptions;
-    private final Definition parsedDefinition;
-    public final Definition kompiledDefinition;
+    private Definition parsedDefinition;
+    private Definition kompiledDefinition;
     public final Sort programStartSymbol;
     public final HashMap<String, Sort> configurationVariableDefaultSorts = new HashMap<>();
     public final KLabel topCellInitializer;
-    private final Module languageParsingModule;
+    private Module languageParsingModule;
     private transient Map<String, Rule> cachedcompiledPatterns;
     private transient Map<String, Rule> cachedParsedPatterns;
+    /**
+     * The file this definition was loaded from, whose definitions and modules are decoded on first access, or null.
+     */
+    private transient CompiledDefinitionFormat format;
 
 
     public CompiledDefinition(KompileOptions kompileOptions, Definition parsedDefinition, Definition kompiledDefinition, KLabel topCellInitializer) {
@@ -60,6 +64,22 @@ public class CompiledDefinition implements Serializable {
         this.programStartSymbol = configurationVariableDefaultSorts.getOrDefault("$PGM", Sorts.K());
         this.topCellInitializer = topCellInitializer;
         this.languageParsingModule = kompiledDefinition.getModule("LANGUAGE-PARSING").get();
+        initializePatternCaches();
+    }
+
+    CompiledDefinition(KompileOptions kompileOptions, Sort programStartSymbol, Map<String, Sort> configurationVariableDefaultSorts,
+                       KLabel topCellInitializer, CompiledDefinitionFormat format) {
+        this.kompileOptions = kompileOptions;
+        this.programStartSymbol = programStartSymbol;
+        this.configurationVariableDefaultSorts.putAll(configurationVariableDefaultSorts);
+        this.topCellInitializer = topCellInitializer;
+        this.format = format;
+        initializePatternCaches();
+    }
+
+    private void initializePatternCaches() {
+        cachedcompiledPatterns = new ConcurrentHashMap<>();
+        cachedParsedPatterns = new ConcurrentHashMap<>();
     }
 
     private void initializeConfigurationVariableDefaultSorts() {
@@ -97,18 +117,57 @@ public class CompiledDefinition implements Serializable {
     /**
      * The parsed but uncompiled definition
      */
-    public Definition getParsedDefinition() {
+    public synchronized Definition getParsedDefinition() {
+        if (parsedDefinition == null) {
+            parsedDefinition = format.parsedDefinition();
+        }
         return parsedDefinition;
     }
 
+    /**
+     * The compiled definition
+     */
+    public synchronized Definition getKompiledDefinition() {
+        if (kompiledDefinition == null) {
+            kompiledDefinition = format.kompiledDefinition();
+        }
+        return kompiledDefinition;
+    }
+
     /**
      * A module containing the compiled definition
      */
-    public Module executionModule() {
-        return kompiledDefinition.mainModule();
+    public synchronized Module executionModule() {
+        return kompiledDefinition == null ? format.executionModule() : kompiledDefinition.mainModule();
+    }
+
+    public synchronized String mainSyntaxModuleName() {
+        if (parsedDefinition == null) {
+            return format.mainSyntaxModuleName();
+        }
+        return parsedDefinition.att().<String>getOptional(Att.syntaxModule()).get();
+    }
+
+    /**
+     * The name of the main module of the parsed definition
+     */
+    public synchronized String parsedMainModuleName() {
+        return parsedDefinition == null ? format.parsedMainModuleName() : parsedDefinition.mainModule().name();
+    }
+
+    /**
+     * The module of the parsed definition with the given name
+     */
+    public synchronized Option<Module> getParsedModule(String name) {
+        return parsedDefinition == null ? format.parsedModule(name) : parsedDefinition.getModule(name);
     }
 
-    public String mainSyntaxModuleName() { return parsedDefinition.att().<String>getOptional(Att.syntaxModule()).get(); }
+    /**
+     * The module of the compiled definition with the given name
+     */
+    public synchronized Option<Module> getKompiledModule(String name) {
+        return kompiledDefinition == null ? format.kompiledModule(name) : kompiledDefinition.getModule(name);
+    }
 
     /**
      * @return the module used for generating the program (i.e. ground) parser for the module named moduleName
@@ -119,25 +178,30 @@ public class CompiledDefinition implements Serializable {
         Option<Module> moduleOption;
 
         if(moduleName.endsWith(RuleGrammarGenerator.POSTFIX)) {
-            moduleOption = parsedDefinition.getModule(moduleName);
+            moduleOption = getParsedModule(moduleName);
         } else {
-            moduleOption = parsedDefinition.getModule(moduleName + RuleGrammarGenerator.POSTFIX);
+            moduleOption = getParsedModule(moduleName + RuleGrammarGenerator.POSTFIX);
             if (moduleOption.isDefined()) {
                 kem.registerInternalHiddenWarning("Module " + moduleOption.get().name() + " is user-defined.");
             } else {
-                moduleOption = parsedDefinition.getModule(moduleName);
+                moduleOption = getParsedModule(moduleName);
                 if (moduleOption.isDefined()) {
                     kem.registerInternalHiddenWarning("Module " + moduleOption.get().name() + " has been automatically generated.");
                 }
             }
         }
         Option<Module> programParsingModuleOption = moduleOption.isDefined() ?
-                Option.apply(RuleGrammarGenerator.getProgramsGrammar(moduleOption.get(), parsedDefinition)) :
+                Option.apply(RuleGrammarGenerator.getProgramsGrammar(moduleOption.get(), name -> getParsedModule(name).get())) :
                 Option.empty();
         return programParsingModuleOption;
     }
 
-    public Module languageParsingModule() { return languageParsingModule; }
+    public synchronized Module languageParsingModule() {
+        if (languageParsingModule == null) {
+            languageParsingModule = format.languageParsingModule();
+        }
+        return languageParsingModule;
+    }
 
     /**
      * Creates a parser for a module.
@@ -172,10 +236,16 @@ public class CompiledDefinition implements Serializable {
         return cachedParsedPatterns.computeIfAbsent(pattern, p -> new Kompile(kompileOptions, files, kem).parseRule(this, p, source));
     }
 
+    private void writeObject(java.io.ObjectOutputStream stream) throws IOException {
+        getParsedDefinition();
+        getKompiledDefinition();
+        languageParsingModule();
+        stream.defaultWriteObject();
+    }
+
     private void readObject(java.io.ObjectInputStream stream)
             throws IOException, ClassNotFoundException {
         stream.defaultReadObject();
-        cachedcompiledPatterns = new ConcurrentHashMap<>();
-        cachedParsedPatterns = new ConcurrentHashMap<>();
+        initializePatternCaches();
     }
 }
@@ -0,0 +1,402 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.kompile;
+
+import org.kframework.attributes.Att;
+import org.kframework.definition.Definition;
+import org.kframework.definition.Module;
+import org.kframework.definition.Sentence;
+import org.kframework.kore.KLabel;
+import org.kframework.kore.Sort;
+import org.kframework.utils.errorsystem.KEMException;
+import scala.Option;
+import scala.collection.Set;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import static org.kframework.Collections.*;
+
+/**
+ * Reads and writes a {@link CompiledDefinition} in a sectioned binary format, whose sections are decoded on first
+ * access.
+ * <p>
+ * The file starts with the magic bytes "\x7fKDEF", followed by the major and minor version of the format. Then
+ * comes the 4-byte number of sections, and for each section its 8-byte offset in the file and its 4-byte length. So
+ * the file may be larger than 2GB, but a single section may not. Section 0 holds the small fields of the compiled
+ * definition, the names of the main syntax module and of the main parsed module, and the indices of the other
+ * sections, including the index of each module of the parsed and of the kompiled definition by name. Each module of the parsed and kompiled definitions is stored in a
+ * section of its own, and so is each of the two definitions.
+ * <p>
+ * Sections are encoded with Java serialization. A module is stored as the arguments of its constructor, and is rebuilt
+ * from them when decoded, so that its section does not hold the sentences of the modules it imports. The modules a
+ * section refers to, other than the module it stores, are written as references to the sections of these modules.
+ * Each section is memory-mapped on its own when the file is loaded, and is only decoded when its module or definition
+ * is first needed, together with the modules it imports. So krun decodes the modules it uses, from either
+ * definition, without decoding the rest of the definition. KAST binary terms, as written by
+ * {@link org.kframework.unparser.ToBinary}, are not used for the sentences, because they do not keep the attributes
+ * and the classes of the terms of a kompiled definition.
+ */
+public class CompiledDefinitionFormat {
+
+    private static final byte[] MAGIC = {0x7f, 'K', 'D', 'E', 'F'};
+    private static final int MAJOR = 1, MINOR = 2;
+    private static final int PREFIX_LENGTH = MAGIC.length + 2 + 4;
+    private static final int TABLE_ENTRY_LENGTH = 8 + 4;
+    private static final int HEADER_SECTION = 0;
+
+    /**
+     * The content of the header section.
+     */
+    private static class Header implements Serializable {
+        KompileOptions kompileOptions;
+        Sort programStartSymbol;
+        HashMap<String, Sort> configurationVariableDefaultSorts;
+        KLabel topCellInitializer;
+        String mainSyntaxModuleName;
+        String parsedMainModuleName;
+        int parsedDefinition, kompiledDefinition, executionModule, languageParsingModule;
+        /**
+         * The sections of the modules of the parsed definition, by name.
+         */
+        HashMap<String, Integer> parsedModules = new HashMap<>();
+        /**
+         * The sections of the modules of the kompiled definition, by name.
+         */
+        HashMap<String, Integer> kompiledModules = new HashMap<>();
+    }
+
+    /**
+     * The arguments of the constructor of the module stored in a section.
+     */
+    private static class ModuleData implements Serializable {
+        final String name;
+        final Set<Module> imports;
+        final Set<Sentence> unresolvedLocalSentences;
+        final Att att;
+
+        ModuleData(Module module) {
+            this.name = module.name();
+            this.imports = module.imports();
+            this.unresolvedLocalSentences = module.unresolvedLocalSentences();
+            this.att = module.att();
+        }
+
+        Module module() {
+            return new Module(name, imports, unresolvedLocalSentences, att);
+        }
+    }
+
+    /**
+     * Stands for the module stored in the given section.
+     */
+    private static class ModuleReference implements Serializable {
+        final int section;
+
+        ModuleReference(int section) {
+            this.section = section;
+        }
+    }
+
+    /**
+     * The mapped sections, by index.
+     */
+    private final ByteBuffer[] data;
+    /**
+     * The decoded sections, by index; null if a section was not decoded yet.
+     */
+    private final Object[] sections;
+
+    private CompiledDefinitionFormat(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer prefix = read(channel, 0, PREFIX_LENGTH);
+        byte[] magic = new byte[MAGIC.length];
+        prefix.get(magic);
+        if (!Arrays.equals(magic, MAGIC) || prefix.get() != MAJOR || prefix.get() != MINOR) {
+            throw KEMException.criticalError("Kompiled definition is out of date with "
+                    + "the latest version of the K tool. Please re-run kompile and try again.");
+        }
+        int count = prefix.getInt();
+        if (count <= HEADER_SECTION || count > (size - PREFIX_LENGTH) / TABLE_ENTRY_LENGTH
+                || count > Integer.MAX_VALUE / TABLE_ENTRY_LENGTH) {
+            throw new IOException("Invalid number of sections: " + count);
+        }
+        ByteBuffer table = read(channel, PREFIX_LENGTH, count * TABLE_ENTRY_LENGTH);
+        data = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long offset = table.getLong();
+            int length = table.getInt();
+            if (offset < 0 || length < 0 || offset > size - length) {
+                throw new IOException("Section " + i + " is out of bounds");
+            }
+            data[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+        sections = new Object[count];
+    }
+
+    /**
+     * Reads the given number of bytes of the given channel, starting at the given position.
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public static void saveOrDie(File file, CompiledDefinition definition) {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw KEMException.criticalError("Could not create directory " + dir);
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            save(out, definition);
+        } catch (IOException e) {
+            throw KEMException.criticalError("Could not write to " + file, e);
+        }
+    }
+
+    public static void save(OutputStream out, CompiledDefinition definition) throws IOException {
+        Definition parsed = definition.getParsedDefinition();
+        Definition kompiled = definition.getKompiledDefinition();
+
+        IdentityHashMap<Module, Integer> moduleSections = new IdentityHashMap<>();
+        List<Object> roots = new ArrayList<>();
+        roots.add(new Header());
+        for (Module module : mutable(parsed.modules())) {
+            addModule(module, moduleSections, roots);
+        }
+        for (Module module : mutable(kompiled.modules())) {
+            addModule(module, moduleSections, roots);
+        }
+        Header header = (Header) roots.get(HEADER_SECTION);
+        header.kompileOptions = definition.kompileOptions;
+        header.programStartSymbol = definition.programStartSymbol;
+        header.configurationVariableDefaultSorts = definition.configurationVariableDefaultSorts;
+        header.topCellInitializer = definition.topCellInitializer;
+        header.mainSyntaxModuleName = definition.mainSyntaxModuleName();
+        header.parsedMainModuleName = parsed.mainModule().name();
+        for (Module module : mutable(parsed.modules())) {
+            header.parsedModules.put(module.name(), moduleSections.get(module));
+        }
+        for (Module module : mutable(kompiled.modules())) {
+            header.kompiledModules.put(module.name(), moduleSections.get(module));
+        }
+        header.executionModule = addModule(definition.executionModule(), moduleSections, roots);
+        header.languageParsingModule = addModule(definition.languageParsingModule(), moduleSections, roots);
+        header.parsedDefinition = roots.size();
+        roots.add(parsed);
+        header.kompiledDefinition = roots.size();
+        roots.add(kompiled);
+
+        List<byte[]> encoded = new ArrayList<>(roots.size());
+        for (Object root : roots) {
+            encoded.add(encode(root, moduleSections));
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(MAJOR);
+        data.writeByte(MINOR);
+        data.writeInt(encoded.size());
+        long offset = MAGIC.length + 2 + 4 + encoded.size() * 12L;
+        for (byte[] section : encoded) {
+            data.writeLong(offset);
+            data.writeInt(section.length);
+            offset += section.length;
+        }
+        for (byte[] section : encoded) {
+            data.write(section);
+        }
+        data.flush();
+    }
+
+    /**
+     * Assigns a section to the given module, unless it has one already.
+     *
+     * @return the index of the section of the module
+     */
+    private static int addModule(Module module, IdentityHashMap<Module, Integer> moduleSections, List<Object> roots) {
+        return moduleSections.computeIfAbsent(module, m -> {
+            roots.add(m);
+            return roots.size() - 1;
+        });
+    }
+
+    private static byte[] encode(Object root, IdentityHashMap<Module, Integer> moduleSections) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes) {
+            {
+                enableReplaceObject(true);
+            }
+
+            @Override
+            protected Object replaceObject(Object obj) {
+                if (obj == root && obj instanceof Module) {
+                    return new ModuleData((Module) obj);
+                }
+                if (obj instanceof Module) {
+                    Integer section = moduleSections.get(obj);
+                    if (section == null) {
+                        throw KEMException.criticalError("Module " + ((Module) obj).name() + " is not part of the compiled definition.");
+                    }
+                    return new ModuleReference(section);
+                }
+                return obj;
+            }
+        }) {
+            out.writeObject(root);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Maps the given file and decodes its header. The modules and definitions are decoded on first access.
+     */
+    public static CompiledDefinition loadOrDie(File file) {
+        CompiledDefinitionFormat format = open(file);
+        Header header = format.header();
+        return new CompiledDefinition(header.kompileOptions, header.programStartSymbol,
+                header.configurationVariableDefaultSorts, header.topCellInitializer, format);
+    }
+
+    /**
+     * Maps the sections of the given file, without decoding them.
+     */
+    static CompiledDefinitionFormat open(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new CompiledDefinitionFormat(channel);
+        } catch (IOException e) {
+            throw KEMException.criticalError("Could not read from " + file, e);
+        }
+    }
+
+    private Header header() {
+        return (Header) section(HEADER_SECTION);
+    }
+
+    Definition parsedDefinition() {
+        return (Definition) section(header().parsedDefinition);
+    }
+
+    Definition kompiledDefinition() {
+        return (Definition) section(header().kompiledDefinition);
+    }
+
+    Module executionModule() {
+        return (Module) section(header().executionModule);
+    }
+
+    Module languageParsingModule() {
+        return (Module) section(header().languageParsingModule);
+    }
+
+    String mainSyntaxModuleName() {
+        return header().mainSyntaxModuleName;
+    }
+
+    String parsedMainModuleName() {
+        return header().parsedMainModuleName;
+    }
+
+    /**
+     * Returns the module of the parsed definition with the given name, decoding only this module and its imports.
+     */
+    Option<Module> parsedModule(String name) {
+        Integer section = header().parsedModules.get(name);
+        return section == null ? Option.empty() : Option.apply((Module) section(section));
+    }
+
+    /**
+     * Returns the module of the kompiled definition with the given name, decoding only this module and its imports.
+     */
+    Option<Module> kompiledModule(String name) {
+        Integer section = header().kompiledModules.get(name);
+        return section == null ? Option.empty() : Option.apply((Module) section(section));
+    }
+
+    /**
+     * The number of sections decoded so far.
+     */
+    synchronized int decodedSections() {
+        return (int) Arrays.stream(sections).filter(section -> section != null).count();
+    }
+
+    /**
+     * Returns the decoded content of the given section, decoding it and the modules it refers to if needed.
+     */
+    private synchronized Object section(int index) {
+        if (sections[index] == null) {
+            try (ObjectInputStream in = new ObjectInputStream(new ByteBufferInputStream(data[index].duplicate())) {
+                {
+                    enableResolveObject(true);
+                }
+
+                @Override
+                protected Object resolveObject(Object obj) {
+                    if (obj instanceof ModuleReference) {
+                        return section(((ModuleReference) obj).section);
+                    }
+                    if (obj instanceof ModuleData) {
+                        return ((ModuleData) obj).module();
+                    }
+                    return obj;
+                }
+            }) {
+                sections[index] = in.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                throw KEMException.criticalError("Could not decode section " + index + " of the kompiled definition. "
+                        + "Please re-run kompile and try again.", e);
+            }
+        }
+        return sections[index];
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -40,14 +40,19 @@ import scala.util.Right;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static org.kframework.Collections.*;
 import static org.kframework.definition.Constructors.Att;
@@ -74,6 +79,12 @@ public class DefinitionParsing {
     public final AtomicInteger cachedBubbles = new AtomicInteger(0);
     private final boolean isStrict;
     private final List<File> lookupDirectories;
+    private final int parseThreads;
+    /**
+     * the pool parsing the rule and context bubbles of a module concurrently, which only exists while the non-config
+     * bubbles of a definition or module are resolved; see {@link #withParsePool}
+     */
+    private ForkJoinPool parsePool;
 
     public DefinitionParsing(
             List<File> lookupDirectories,
@@ -83,6 +94,18 @@ public class DefinitionParsing {
             boolean cacheParses,
             File cacheFile,
             boolean autoImportDomains) {
+        this(lookupDirectories, isStrict, kem, parser, cacheParses, cacheFile, autoImportDomains, Runtime.getRuntime().availableProcessors());
+    }
+
+    public DefinitionParsing(
+            List<File> lookupDirectories,
+            boolean isStrict,
+            KExceptionManager kem,
+            ParserUtils parser,
+            boolean cacheParses,
+            File cacheFile,
+            boolean autoImportDomains,
+            int parseThreads) {
         this.lookupDirectories = lookupDirectories;
         this.kem = kem;
         this.parser = parser;
@@ -91,6 +114,7 @@ public class DefinitionParsing {
         this.autoImportDomains = autoImportDomains;
         this.loader = new BinaryLoader(this.kem);
         this.isStrict = isStrict;
+        this.parseThreads = parseThreads;
     }
 
     public Module parseModule(CompiledDefinition definition, File definitionFile, boolean autoImportDomains) {
@@ -107,12 +131,12 @@ public class DefinitionParsing {
 
         Module module = modules.iterator().next();
 
-        errors = java.util.Collections.synchronizedSet(Sets.newHashSet());
-        caches = new HashMap<>();
+        errors = java.util.Collections.synchronizedSet(Sets.newLinkedHashSet());
+        caches = new ConcurrentHashMap<>();
 
         if (cacheParses) {
             try {
-                caches = loader.load(Map.class, cacheFile);
+                caches = new ConcurrentHashMap<String, ParseCache>(loader.load(Map.class, cacheFile));
             } catch (FileNotFoundException e) {
             } catch (IOException | ClassNotFoundException e) {
                 kem.registerInternalHiddenWarning("Invalidating serialized cache due to corruption.", e);
@@ -122,7 +146,7 @@ public class DefinitionParsing {
         ResolveConfig resolveConfig = new ResolveConfig(definition.getParsedDefinition(), isStrict, this::parseBubble, this::getParser);
         Module modWithConfig = resolveConfig.apply(module);
 
-        Module parsedMod = resolveNonConfigBubbles(modWithConfig, s -> definition.getParsedDefinition().getModule(s).get(), isStrict);
+        Module parsedMod = withParsePool(() -> resolveNonConfigBubbles(modWithConfig, s -> definition.getParsedDefinition().getModule(s).get(), isStrict));
 
         saveCachesAndReportParsingErrors();
         return parsedMod;
@@ -195,12 +219,12 @@ public class DefinitionParsing {
             definitionWithConfigBubble = definition;
         }
 
-        errors = java.util.Collections.synchronizedSet(Sets.newHashSet());
-        caches = new HashMap<>();
+        errors = java.util.Collections.synchronizedSet(Sets.newLinkedHashSet());
+        caches = new ConcurrentHashMap<>();
 
         if (cacheParses) {
             try {
-                caches = loader.load(Map.class, cacheFile);
+                caches = new ConcurrentHashMap<String, ParseCache>(loader.load(Map.class, cacheFile));
             } catch (FileNotFoundException e) {
             } catch (IOException | ClassNotFoundException e) {
                 kem.registerInternalHiddenWarning("Invalidating serialized cache due to corruption.", e);
@@ -229,10 +253,27 @@ public class DefinitionParsing {
             }
         };
 
-        Definition parsedDef = new DefinitionTransformer(resolveNonConfigBubbles).apply(defWithConfig);
+        Definition parsedDef = withParsePool(() -> new DefinitionTransformer(resolveNonConfigBubbles).apply(defWithConfig));
         return parsedDef;
     }
 
+    /**
+     * Runs the given parse with a pool of {@code parseThreads} threads for parsing bubbles, and shuts the pool down
+     * when the parse is over.
+     */
+    private <T> T withParsePool(Supplier<T> parse) {
+        if (parseThreads <= 1) {
+            return parse.get();
+        }
+        parsePool = new ForkJoinPool(parseThreads);
+        try {
+            return parse.get();
+        } finally {
+            parsePool.shutdown();
+            parsePool = null;
+        }
+    }
+
     private Module resolveNonConfigBubbles(Module module, Function<String, Module> getProcessedModule, boolean isStrict) {
         if (stream(module.localSentences())
                 .filter(s -> s instanceof Bubble)
@@ -244,42 +285,62 @@ public class DefinitionParsing {
         ParseCache cache = loadCache(ruleParserModule);
         ParseInModule parser = RuleGrammarGenerator.getCombinedGrammar(cache.getModule(), isStrict);
 
-        java.util.Set<Bubble> bubbles = stream(module.localSentences())
-                .parallel()
+        List<Bubble> bubbles = stream(module.localSentences())
                 .filter(s -> s instanceof Bubble)
-                .map(b -> (Bubble) b).collect(Collectors.toSet());
-
-        Set<Sentence> ruleSet = bubbles.stream()
-                .filter(b -> b.sentenceType().equals("rule"))
-                .map(b -> performParse(cache.getCache(), parser, b))
-                .flatMap(r -> {
-                    if (r.isRight()) {
-                        return Stream.of(this.upRule(r.right().get()));
-                    } else {
-                        errors.addAll(r.left().get());
-                        return Stream.empty();
-                    }
-                }).collect(Collections.toSet());
-
-        Set<Sentence> contextSet = bubbles.stream()
-                .filter(b -> b.sentenceType().equals("context"))
-                .map(b -> performParse(cache.getCache(), parser, b))
-                .flatMap(r -> {
-                    if (r.isRight()) {
-                        return Stream.of(this.upContext(r.right().get()));
-                    } else {
-                        errors.addAll(r.left().get());
-                        return Stream.empty();
-                    }
-                }).collect(Collections.toSet());
+                .map(b -> (Bubble) b)
+                .filter(b -> b.sentenceType().equals("rule") || b.sentenceType().equals("context"))
+                .sorted(BUBBLE_ORDER)
+                .collect(Collectors.toList());
+        List<Either<java.util.Set<ParseFailedException>, K>> results = parseBubbles(cache.getCache(), parser, bubbles);
+
+        java.util.Set<Sentence> ruleSet = new HashSet<>();
+        java.util.Set<Sentence> contextSet = new HashSet<>();
+        for (int i = 0; i < bubbles.size(); i++) {
+            Either<java.util.Set<ParseFailedException>, K> r = results.get(i);
+            if (r.isLeft()) {
+                errors.addAll(r.left().get());
+            } else if (bubbles.get(i).sentenceType().equals("rule")) {
+                ruleSet.add(this.upRule(r.right().get()));
+            } else {
+                contextSet.add(this.upContext(r.right().get()));
+            }
+        }
 
         return Module(module.name(), module.imports(),
-                stream((Set<Sentence>) module.localSentences().$bar(ruleSet).$bar(contextSet)).filter(b -> !(b instanceof Bubble)).collect(Collections.toSet()), module.att());
+                stream((Set<Sentence>) module.localSentences().$bar(immutable(ruleSet)).$bar(immutable(contextSet))).filter(b -> !(b instanceof Bubble)).collect(Collections.toSet()), module.att());
+    }
+
+    /**
+     * Orders bubbles by their position in the sources, so parsing errors are reported in a deterministic order.
+     */
+    private static final Comparator<Bubble> BUBBLE_ORDER = Comparator
+            .comparing((Bubble b) -> b.att().<String>get("Source").get())
+            .thenComparing(b -> b.att().<Integer>get("contentStartLine").get())
+            .thenComparing(b -> b.att().<Integer>get("contentStartColumn").get());
+
+    /**
+     * Parses the given bubbles, concurrently if more than one thread is allowed for parsing. The cache is updated by
+     * the parsing threads, so it must be thread-safe.
+     *
+     * @return the results of parsing the bubbles, in the order of the bubbles
+     */
+    private List<Either<java.util.Set<ParseFailedException>, K>> parseBubbles(Map<String, ParsedSentence> cache, ParseInModule parser, List<Bubble> bubbles) {
+        if (parsePool == null || bubbles.size() <= 1) {
+            return bubbles.stream().map(b -> performParse(cache, parser, b)).collect(Collectors.toList());
+        }
+        // generate the grammar here, once, rather than in every parsing thread
+        parser.getGrammar();
+        List<ForkJoinTask<Either<java.util.Set<ParseFailedException>, K>>> tasks = new ArrayList<>(bubbles.size());
+        for (Bubble b : bubbles) {
+            tasks.add(parsePool.submit(() -> performParse(cache, parser, b)));
+        }
+        // join rethrows the exceptions of the tasks unchecked
+        return tasks.stream().map(ForkJoinTask::join).collect(Collectors.toList());
     }
 
 
     public Rule parseRule(CompiledDefinition compiledDef, String contents, Source source) {
-        Either<java.util.Set<ParseFailedException>, K> res = performParse(new HashMap<>(), RuleGrammarGenerator.getCombinedGrammar(RuleGrammarGenerator.getRuleGrammar(compiledDef.executionModule(), s -> compiledDef.kompiledDefinition.getModule(s).get()), isStrict),
+        Either<java.util.Set<ParseFailedException>, K> res = performParse(new HashMap<>(), RuleGrammarGenerator.getCombinedGrammar(RuleGrammarGenerator.getRuleGrammar(compiledDef.executionModule(), s -> compiledDef.getKompiledDefinition().getModule(s).get()), isStrict),
                 new Bubble("rule", contents, Att().add("contentStartLine", 1).add("contentStartColumn", 1).add("Source", source.source())));
 
         if (res.isLeft()) {
@@ -319,12 +380,10 @@ public class DefinitionParsing {
     }
 
     private ParseCache loadCache(Module parser) {
-        ParseCache cachedParser = caches.get(parser.name());
-        if (cachedParser == null || !equalsSyntax(cachedParser.getModule(), parser) || cachedParser.isStrict() != isStrict) {
-            cachedParser = new ParseCache(parser, isStrict, java.util.Collections.synchronizedMap(new HashMap<>()));
-            caches.put(parser.name(), cachedParser);
-        }
-        return cachedParser;
+        return caches.compute(parser.name(), (name, cachedParser) ->
+                cachedParser == null || !equalsSyntax(cachedParser.getModule(), parser) || cachedParser.isStrict() != isStrict ?
+                        new ParseCache(parser, isStrict, new ConcurrentHashMap<>()) :
+                        cachedParser);
     }
 
     private boolean equalsSyntax(Module _this, Module that) {
@@ -351,8 +410,8 @@ public class DefinitionParsing {
         int startColumn = b.att().<Integer>get("contentStartColumn").get();
         String source = b.att().<String>get("Source").get();
         Tuple2<Either<java.util.Set<ParseFailedException>, K>, java.util.Set<ParseFailedException>> result;
-        if (cache.containsKey(b.contents())) {
-            ParsedSentence parse = cache.get(b.contents());
+        ParsedSentence parse = cache.get(b.contents());
+        if (parse != null) {
             cachedBubbles.getAndIncrement();
             kem.addAllKException(parse.getWarnings().stream().map(e -> e.getKException()).collect(Collectors.toList()));
             return Right.apply(parse.getParse());
@@ -13,6 +13,7 @@ import org.kframework.definition.Constructors;
 import org.kframework.definition.Definition;
 import org.kframework.definition.DefinitionTransformer;
 import org.kframework.definition.Module;
+import org.kframework.definition.ModuleTransformerCache;
 import org.kframework.definition.Rule;
 import org.kframework.definition.Sentence;
 import org.kframework.kore.ADT;
@@ -97,7 +98,8 @@ public class Kompile {
         List<File> lookupDirectories = kompileOptions.outerParsing.includes.stream().map(files::resolveWorkingDirectory).collect(Collectors.toList());
         this.definitionParsing = new DefinitionParsing(
                 lookupDirectories, kompileOptions.strict(), kem,
-                parser, cacheParses, files.resolveKompiled("cache.bin"), !kompileOptions.outerParsing.noPrelude);
+                parser, cacheParses, files.resolveKompiled("cache.bin"), !kompileOptions.outerParsing.noPrelude,
+                kompileOptions.experimental.parseThreads);
         this.sw = sw;
     }
 
@@ -128,8 +130,16 @@ public class Kompile {
     public CompiledDefinition run(Definition parsedDef, Function<Definition, Definition> pipeline) {
         checkDefinition(parsedDef);
 
-        Definition kompiledDefinition = pipeline.apply(parsedDef);
-        sw.printIntermediate("Apply compile pipeline");
+        Definition kompiledDefinition;
+        if (kompileOptions.experimental.incremental) {
+            ModuleCache cache = new ModuleCache(files.resolveKompiled("modules.bin"), kompileOptions, kem);
+            kompiledDefinition = ModuleTransformerCache.withCache(cache, () -> pipeline.apply(parsedDef));
+            cache.save();
+            sw.printIntermediate("Apply compile pipeline [" + cache.reused.get() + "/" + (cache.reused.get() + cache.processed.get()) + " cached module passes]");
+        } else {
+            kompiledDefinition = pipeline.apply(parsedDef);
+            sw.printIntermediate("Apply compile pipeline");
+        }
 
         ConfigurationInfoFromModule configInfo = new ConfigurationInfoFromModule(kompiledDefinition.mainModule());
 
@@ -144,11 +154,11 @@ public class Kompile {
 
         return d -> {
             d = new ResolveIOStreams(d, kem).apply(d);
-            d = new ConvertStrictToContexts(kompileOptions).apply(d);
+            d = new ConvertStrictToContexts(kompileOptions).cached().apply(d);
             d = new ResolveAnonVar().apply(d);
             d = new ConvertContextsToHeatCoolRules(kompileOptions).resolve(d);
-            d = new ResolveHeatCoolAttribute(new HashSet<>(kompileOptions.transition)).apply(d);
-            d = new ResolveSemanticCasts(kompileOptions.backend.equals(Backends.JAVA)).apply(d);
+            d = new ResolveHeatCoolAttribute(new HashSet<>(kompileOptions.transition)).cached().apply(d);
+            d = new ResolveSemanticCasts(kompileOptions.backend.equals(Backends.JAVA)).cached().apply(d);
             d = DefinitionTransformer.fromWithInputDefinitionTransformerClass(GenerateSortPredicateSyntax.class).apply(d);
             d = resolveFreshConstants(d);
             d = AddImplicitComputationCell.transformDefinition(d);
@@ -212,7 +222,7 @@ public class Kompile {
     public Rule compileRule(CompiledDefinition compiledDef, Rule parsedRule) {
         return (Rule) asScalaFunc((Sentence s) -> new ResolveAnonVar().process(s))
                 .andThen((Sentence s) ->  new ResolveSemanticCasts(kompileOptions.backend.equals(Backends.JAVA)).process(s))
-                .andThen(s -> concretizeSentence(s, compiledDef.kompiledDefinition))
+                .andThen(s -> concretizeSentence(s, compiledDef.getKompiledDefinition()))
                 .apply(parsedRule);
     }
 
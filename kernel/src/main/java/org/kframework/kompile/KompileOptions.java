@@ -107,5 +107,11 @@ public class KompileOptions implements Serializable {
         @Parameter(names="--legacy-kast", description="Compile with settings based on the old KAST structure")
         public boolean legacyKast = false;
 
+        @Parameter(names="--parse-threads", description="Number of threads used to parse the rules of each module. Defaults to the number of available processors.")
+        public int parseThreads = Runtime.getRuntime().availableProcessors();
+
+        @Parameter(names="--incremental", description="Reuse the results of the compilation passes on the modules which did not change since the previous kompile.")
+        public boolean incremental = false;
+
     }
 }
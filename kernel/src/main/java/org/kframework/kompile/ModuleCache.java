@@ -0,0 +1,315 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.kompile;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.kframework.attributes.Att;
+import org.kframework.definition.Module;
+import org.kframework.definition.ModuleTransformerCache;
+import org.kframework.definition.Sentence;
+import org.kframework.utils.BinaryLoader;
+import org.kframework.utils.errorsystem.KEMException;
+import org.kframework.utils.errorsystem.KException;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import scala.Function1;
+import scala.collection.Set;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.kframework.Collections.*;
+
+/**
+ * Stores the results of the cached module transformers of kompile in the kompiled directory, so that the next kompile
+ * of the definition only runs them on the modules which changed and on the modules importing those.
+ * <p>
+ * Modules are identified by a hash of the arguments of their constructor: their name, the hashes of the modules they
+ * import, their unresolved local sentences and their attributes. The imports, sentences and attributes are hashed in
+ * the order of their own hashes, so the hash does not depend on the order in which the sets were built. Modules are
+ * stored under their hash in the same form, with their imports as hashes, and are rebuilt with their constructor
+ * when decoded. So an imported module is stored and decoded once, however many modules import it.
+ * <p>
+ * The result of a cached transformer on a module is stored under the hash of the name of the transformer, of the
+ * kompile options configuring the passes and version of K, and of the hash of the module, together with the
+ * exceptions the transformer registered while processing the module. These are registered again when the result is
+ * reused, together with those of the results of the transformer on the imports of the module.
+ * <p>
+ * Only the modules and results used or computed by the last kompile are kept in the file.
+ */
+public class ModuleCache extends ModuleTransformerCache {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+
+    /**
+     * The arguments of the constructor of a module, with its imports as hashes.
+     */
+    private static class ModuleData implements Serializable {
+        final String name;
+        final ArrayList<String> imports;
+        final Set<Sentence> unresolvedLocalSentences;
+        final Att att;
+
+        ModuleData(Module module, ArrayList<String> imports) {
+            this.name = module.name();
+            this.imports = imports;
+            this.unresolvedLocalSentences = module.unresolvedLocalSentences();
+            this.att = module.att();
+        }
+    }
+
+    /**
+     * The result of a transformer on a module.
+     */
+    private static class Result implements Serializable {
+        final String module;
+        final ArrayList<KException> exceptions;
+
+        Result(String module, ArrayList<KException> exceptions) {
+            this.module = module;
+            this.exceptions = exceptions;
+        }
+    }
+
+    private final File file;
+    private final BinaryLoader loader;
+    private final KExceptionManager kem;
+    private final String context;
+    /**
+     * The encoded modules and results read from the file, by hash.
+     */
+    private final Map<String, byte[]> stored;
+    /**
+     * The encoded modules and results to write back to the file, by hash.
+     */
+    private final Map<String, byte[]> used = new ConcurrentHashMap<>();
+    /**
+     * The modules decoded so far, by hash.
+     */
+    private final Map<String, Module> decoded = new HashMap<>();
+    /**
+     * The hashes of the modules seen so far. Modules are compared by identity.
+     */
+    private final Cache<Module, String> hashes = CacheBuilder.newBuilder().weakKeys().build();
+    /**
+     * The results whose exceptions were registered by this kompile, either when computing or when reusing them.
+     */
+    private final java.util.Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    public final AtomicInteger reused = new AtomicInteger(), processed = new AtomicInteger();
+
+    @SuppressWarnings("unchecked")
+    public ModuleCache(File file, KompileOptions kompileOptions, KExceptionManager kem) {
+        this.file = file;
+        this.loader = new BinaryLoader(kem);
+        this.kem = kem;
+        this.context = hash(encode(passOptions(kompileOptions)))
+                + ModuleCache.class.getPackage().getImplementationVersion() + codeSourceVersion();
+        Map<String, byte[]> stored = new HashMap<>();
+        try {
+            stored = loader.load(Map.class, file);
+        } catch (FileNotFoundException e) {
+        } catch (IOException | ClassNotFoundException e) {
+            kem.registerInternalHiddenWarning("Invalidating module cache due to corruption.", e);
+        }
+        this.stored = stored;
+    }
+
+    /**
+     * Returns the kompile options which configure the cached passes. Options which only affect how kompile runs,
+     * such as --parse-threads and --incremental, or where it writes, are left out, and so are the options which only
+     * affect the parsed modules, since the hashes of the modules account for them already.
+     */
+    static List<Object> passOptions(KompileOptions kompileOptions) {
+        return Arrays.asList(
+                kompileOptions.backend,
+                kompileOptions.strict(),
+                new ArrayList<>(kompileOptions.transition),
+                kompileOptions.experimental.addTopCell,
+                kompileOptions.experimental.heatCoolStrategies,
+                new ArrayList<>(kompileOptions.experimental.kCells),
+                kompileOptions.experimental.legacyKast);
+    }
+
+    /**
+     * The modification time of the jar or directory holding the K classes, which changes with the K build.
+     */
+    private static long codeSourceVersion() {
+        try {
+            return new File(ModuleCache.class.getProtectionDomain().getCodeSource().getLocation().toURI()).lastModified();
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public Module getOrProcess(String transformerName, Module input, Function1<Module, Module> process) {
+        String key = key(transformerName, input);
+        Result result = result(key);
+        Module module = result == null ? null : module(result.module);
+        if (module != null) {
+            reused.incrementAndGet();
+            report(transformerName, input);
+            return module;
+        }
+        ArrayList<KException> exceptions = new ArrayList<>();
+        module = kem.recording(() -> process.apply(input), exceptions);
+        processed.incrementAndGet();
+        reported.add(key);
+        used.put(key, encode(new Result(store(module), exceptions)));
+        return module;
+    }
+
+    /**
+     * Writes the modules and results used or computed since this cache was loaded to the file.
+     */
+    public void save() {
+        loader.saveOrDie(file, new HashMap<>(used));
+    }
+
+    private String key(String transformerName, Module input) {
+        return hash((transformerName + "\n" + context + "\n" + hashOf(input)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Registers the exceptions of the reused result of the given transformer on the given module, and of its results
+     * on the imports of the module, unless they were registered already.
+     */
+    private void report(String transformerName, Module input) {
+        String key = key(transformerName, input);
+        if (!reported.add(key)) {
+            return;
+        }
+        Result result = result(key);
+        if (result == null) {
+            return;
+        }
+        result.exceptions.forEach(kem::addKException);
+        for (Module imported : iterable(input.imports())) {
+            report(transformerName, imported);
+        }
+    }
+
+    private String hashOf(Module module) {
+        String hash = hashes.getIfPresent(module);
+        if (hash == null) {
+            Hasher hasher = HASH_FUNCTION.newHasher().putString(module.name(), StandardCharsets.UTF_8);
+            putSorted(hasher, stream(module.imports()).map(this::hashOf));
+            putSorted(hasher, stream(module.unresolvedLocalSentences()).map(s -> hash(encode(s))));
+            putSorted(hasher, stream(module.att().att()).map(k -> hash(encode(k))));
+            hash = hasher.hash().toString();
+            hashes.asMap().putIfAbsent(module, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Adds the given hashes to the hasher in order, preceded by their number.
+     */
+    private static void putSorted(Hasher hasher, java.util.stream.Stream<String> hashes) {
+        List<String> sorted = hashes.sorted().collect(Collectors.toList());
+        hasher.putInt(sorted.size());
+        sorted.forEach(hash -> hasher.putString(hash, StandardCharsets.UTF_8));
+    }
+
+    private static String hash(byte[] bytes) {
+        return HASH_FUNCTION.hashBytes(bytes).toString();
+    }
+
+    /**
+     * Ensures the given module and its imports can be decoded from the file.
+     *
+     * @return the hash of the module
+     */
+    private String store(Module module) {
+        String hash = hashOf(module);
+        if (!used.containsKey(hash)) {
+            ArrayList<String> imports = new ArrayList<>();
+            for (Module imported : iterable(module.imports())) {
+                imports.add(store(imported));
+            }
+            used.put(hash, stored.containsKey(hash) ? stored.get(hash) : encode(new ModuleData(module, imports)));
+        }
+        return hash;
+    }
+
+    private static byte[] encode(Object object) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        } catch (IOException e) {
+            throw KEMException.criticalError("Could not serialize module for the module cache", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the object stored under the given hash, or null if there is none or it cannot be decoded. Keeps it in
+     * the file.
+     */
+    private Object decode(String hash) {
+        byte[] encoded = used.containsKey(hash) ? used.get(hash) : stored.get(hash);
+        if (encoded == null) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(encoded))) {
+            Object object = in.readObject();
+            used.put(hash, encoded);
+            return object;
+        } catch (IOException | ClassNotFoundException e) {
+            kem.registerInternalHiddenWarning("Invalidating cached module due to corruption.", e);
+            return null;
+        }
+    }
+
+    private Result result(String key) {
+        Object result = decode(key);
+        return result instanceof Result ? (Result) result : null;
+    }
+
+    /**
+     * Returns the module with the given hash, decoding it and its imports if needed, or null if it is not in the
+     * cache or cannot be decoded.
+     */
+    private synchronized Module module(String hash) {
+        Module module = decoded.get(hash);
+        if (module != null) {
+            return module;
+        }
+        Object data = decode(hash);
+        if (!(data instanceof ModuleData)) {
+            return null;
+        }
+        ModuleData moduleData = (ModuleData) data;
+        java.util.Set<Module> imports = new HashSet<>();
+        for (String importHash : moduleData.imports) {
+            Module imported = module(importHash);
+            if (imported == null) {
+                return null;
+            }
+            imports.add(imported);
+        }
+        module = new Module(moduleData.name, immutable(imports), moduleData.unresolvedLocalSentences, moduleData.att);
+        decoded.put(hash, module);
+        hashes.asMap().putIfAbsent(module, hash);
+        return module;
+    }
+}
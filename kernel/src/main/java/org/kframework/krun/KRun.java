@@ -2,6 +2,7 @@
 package org.kframework.krun;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.commons.lang3.tuple.Pair;
 import org.kframework.RewriterResult;
 import org.kframework.attributes.Source;
@@ -40,9 +41,13 @@ import org.kframework.utils.file.FileUtil;
 import scala.Some;
 import scala.Tuple2;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -87,11 +92,15 @@ public class KRun {
         }
 
         program = new KTokenVariablesToTrueVariables()
-                .apply(compiledDef.kompiledDefinition.getModule(compiledDef.mainSyntaxModuleName()).get(), program);
+                .apply(compiledDef.getKompiledModule(compiledDef.mainSyntaxModuleName()).get(), program);
 
 
-        Rewriter rewriter = rewriterGenerator.apply(compiledDef.executionModule());
+        try (Rewriter rewriter = rewriterGenerator.apply(compiledDef.executionModule())) {
+            return run(program, options, rewriter, executionMode, compiledDef);
+        }
+    }
 
+    private int run(K program, KRunOptions options, Rewriter rewriter, ExecutionMode executionMode, CompiledDefinition compiledDef) {
         Object result = executionMode.execute(program, rewriter, compiledDef);
 
 
@@ -123,7 +132,7 @@ public class KRun {
         return 0;
     }
 
-    private StringBuilder filterAnonVarsAndPrint(K result, Set<String> filterSet, CompiledDefinition compiledDef, KRunOptions options) {
+    private static StringBuilder filterAnonVarsAndPrint(K result, Set<String> filterSet, CompiledDefinition compiledDef, KRunOptions options) {
         StringBuilder sb = new StringBuilder();
         ByteArrayOutputStream bs = new ByteArrayOutputStream();
         if (result instanceof KApply && ((KApply) result).klabel().toString().equals(KLabels.ML_AND)) {
@@ -158,7 +167,7 @@ public class KRun {
         }
     }
 
-    private Set<String> getPatternVariableNames(KRunOptions options, CompiledDefinition compiledDef) {
+    private static Set<String> getPatternVariableNames(KRunOptions options, CompiledDefinition compiledDef, FileUtil files, KExceptionManager kem) {
         Set<String> patternVariablesNames = new HashSet<>();
         if (options.pattern != null) {
             new VisitK() {
@@ -174,7 +183,16 @@ public class KRun {
 
 
     public void printK(K result, KRunOptions options, CompiledDefinition compiledDef) {
-        Set<String> patternVariables = getPatternVariableNames(options, compiledDef);
+        if (result instanceof KApply && ((KApply) result).klabel().equals(KLabel(KLabels.ML_OR))
+                && options.experimental.streamSearchResults) {
+            try (SearchResultWriter writer = searchResultWriter(options, compiledDef, files, kem)) {
+                for (K solution : mutable(Assoc.flatten(KLabel(KLabels.ML_OR), ((KApply) result).items(), KLabel(KLabels.ML_FALSE)))) {
+                    writer.accept(solution);
+                }
+            }
+            return;
+        }
+        Set<String> patternVariables = getPatternVariableNames(options, compiledDef, files, kem);
         StringBuilder sb = new StringBuilder();
         if (result instanceof KApply && ((KApply) result).klabel().equals(KLabel(KLabels.ML_OR))) {
             List<K> resultList = Assoc.flatten(KLabel(KLabels.ML_OR), ((KApply) result).items(), KLabel(KLabels.ML_FALSE))
@@ -206,6 +224,28 @@ public class KRun {
         outputFile(filterAnonVarsAndPrint(result, patternVariables, compiledDef, options).toString(), options);
     }
 
+    /**
+     * Returns a writer printing search solutions to the output of krun as they are found. The writer must be closed
+     * to write the last solutions, when they are sorted, and to close the output file.
+     */
+    public static SearchResultWriter searchResultWriter(KRunOptions options, CompiledDefinition compiledDef, FileUtil files, KExceptionManager kem) {
+        Set<String> patternVariables = getPatternVariableNames(options, compiledDef, files, kem);
+        OutputStream out;
+        if (options.outputFile == null) {
+            out = new CloseShieldOutputStream(System.out);
+        } else {
+            try {
+                out = new BufferedOutputStream(new FileOutputStream(files.resolveWorkingDirectory(options.outputFile)));
+            } catch (FileNotFoundException e) {
+                throw KEMException.criticalError("Could not open output file " + options.outputFile, e);
+            }
+        }
+        return new SearchResultWriter(out,
+                k -> filterAnonVarsAndPrint(k, patternVariables, compiledDef, options).toString().getBytes(),
+                files.resolveTemp("searchSolutions"),
+                options.experimental.sortSearchResults ? files.resolveTemp("searchResults") : null);
+    }
+
     /**
      * Function to return the exit code specified by the user given a substitution
      *
@@ -315,7 +355,7 @@ public class KRun {
     public static Map<KToken, K> getUserConfigVarsMap(KRunOptions options, CompiledDefinition compiledDef, FileUtil files) {
         Map<KToken, K> output = new HashMap<>();
         for (Map.Entry<String, Pair<String, String>> entry
-                : options.configurationCreation.configVars(compiledDef.getParsedDefinition().mainModule().name()).entrySet()) {
+                : options.configurationCreation.configVars(compiledDef.parsedMainModuleName()).entrySet()) {
             String name = entry.getKey();
             String value = entry.getValue().getLeft();
             String parser = entry.getValue().getRight();
@@ -372,7 +412,7 @@ public class KRun {
     }
 
     private static void checkConfigVars(Set<KToken> inputConfigVars, CompiledDefinition compiledDef, KExceptionManager kem) {
-        Set<KToken> defConfigVars = mutable(new ConfigurationInfoFromModule(compiledDef.kompiledDefinition.mainModule()).configVars());
+        Set<KToken> defConfigVars = mutable(new ConfigurationInfoFromModule(compiledDef.executionModule()).configVars());
 
         for (KToken defConfigVar : defConfigVars) {
             if (!inputConfigVars.contains(defConfigVar)) {
@@ -8,6 +8,7 @@ import com.beust.jcommander.ParametersDelegate;
 import org.apache.commons.lang3.tuple.Pair;
 import org.kframework.ktest.ExecNames;
 import org.kframework.main.GlobalOptions;
+import org.kframework.rewriter.SearchStrategy;
 import org.kframework.rewriter.SearchType;
 import org.kframework.unparser.OutputModes;
 import org.kframework.utils.errorsystem.KEMException;
@@ -157,6 +158,18 @@ public final class KRunOptions {
         }
     }
 
+    public static class SearchStrategyConverter extends BaseEnumConverter<SearchStrategy> {
+
+        public SearchStrategyConverter(String optionName) {
+            super(optionName);
+        }
+
+        @Override
+        public Class<SearchStrategy> enumClass() {
+            return SearchStrategy.class;
+        }
+    }
+
     @Parameter(names="--search", description="In conjunction with it you can specify 3 options that are optional: pattern (the pattern used for search), bound (the number of desired solutions) and depth (the maximum depth of the search).")
     public boolean search = false;
 
@@ -280,5 +293,58 @@ public final class KRunOptions {
 
         @Parameter(names="--profile", description="Run krun multiple times to gather better performance metrics.")
         public int profile = 1;
+
+        @Parameter(names="--hash-cons", description="Share a single instance between structurally equal terms "
+                + "built during rewriting. Speeds up equality checks and reduces memory use on long executions.")
+        public boolean hashConsing = false;
+
+        @Parameter(names="--search-strategy", converter=SearchStrategyConverter.class,
+                description="The order in which search explores states. <strategy> is either "
+                + "[breadth-first|depth-first|iterative-deepening].")
+        public SearchStrategy searchStrategy = SearchStrategy.BREADTH_FIRST;
+
+        @Parameter(names="--search-fingerprints", description="Remember the states visited by search by a fixed-size "
+                + "fingerprint rather than by the whole state. Saves memory at the cost of a negligible probability of "
+                + "missing states.")
+        public boolean searchFingerprints = false;
+
+        @Parameter(names="--search-threads", description="Number of threads used to expand each frontier of a "
+                + "breadth-first search. Values greater than 1 enable parallel search.")
+        public int searchThreads = 1;
+
+        @Parameter(names="--deterministic-search", description="When searching with more than one thread, "
+                + "report the results in the same order as a sequential search.")
+        public boolean deterministicSearch = false;
+
+        public static final int DEFAULT_MEMO_TABLE_SIZE = 1024;
+
+        @Parameter(names="--memo-table-size", description="Maximum number of results remembered for each memoized "
+                + "function. Functions marked with the memo attribute are memoized; 0 disables memoization.")
+        public int memoTableSize = DEFAULT_MEMO_TABLE_SIZE;
+
+        @Parameter(names="--memo-pure-functions", description="Memoize every function that is proven pure, "
+                + "not only the ones marked with the memo attribute.")
+        public boolean memoizePureFunctions = false;
+
+        @Parameter(names="--compile-rhs", description="Compile the instructions that build the right-hand sides "
+                + "and side conditions of rules into constructor trees instead of interpreting them.")
+        public boolean compileRHS = false;
+
+        @Parameter(names="--compiled-matcher", description="Match ground configurations against the rules with a "
+                + "decision tree compiled from the rule automaton instead of interpreting the automaton.")
+        public boolean compiledMatcher = false;
+
+        @Parameter(names="--spill-debugger-checkpoints", description="Keep the checkpoints of the debugger in a "
+                + "temporary file instead of the heap.")
+        public boolean spillDebuggerCheckpoints = false;
+
+        @Parameter(names="--stream-search-results", description="Write each search solution as soon as it is "
+                + "found instead of collecting and sorting all of them first. Duplicate solutions are recognized "
+                + "by comparing their terms, and are never printed.")
+        public boolean streamSearchResults = false;
+
+        @Parameter(names="--sort-search-results", description="With --stream-search-results, sort the solutions by "
+                + "their printed form, using temporary files for large result sets.")
+        public boolean sortSearchResults = false;
     }
 }
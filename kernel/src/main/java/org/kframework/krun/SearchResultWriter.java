@@ -0,0 +1,272 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.krun;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.primitives.UnsignedBytes;
+import org.kframework.kore.K;
+import org.kframework.utils.errorsystem.KEMException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Writes the solutions of a search to an output stream as they are found, instead of collecting all of them first.
+ * <p>
+ * Each solution is printed once: a solution equal to an earlier one is dropped before it is printed. The solutions
+ * written so far are stored in a file, and only the offsets of the solutions in that file are kept in memory, by the
+ * hash of the solution, so the memory used per solution is constant. A solution is only read back from the file to be
+ * compared with a new solution with the same hash. If a sort directory is
+ * given, the solutions are instead sorted by their printed form: runs of at most {@link #RUN_SIZE} solutions are
+ * sorted in memory and written to files in that directory, and the runs are merged when the writer is closed.
+ */
+public class SearchResultWriter implements AutoCloseable {
+
+    public static final int RUN_SIZE = 10000;
+
+    private static final Comparator<byte[]> ORDER = UnsignedBytes.lexicographicalComparator();
+
+    private final int runSize;
+    private final OutputStream out;
+    private final Function<K, byte[]> printer;
+    private final File solutionFile;
+    /**
+     * The solutions written so far, or null before the first one.
+     */
+    private RandomAccessFile solutions;
+    /**
+     * The offsets in the solution file of the solutions written so far, by hash.
+     */
+    private final ListMultimap<Integer, Long> offsets = ArrayListMultimap.create();
+    private int index = 1;
+
+    /**
+     * The directory of the sorted runs, or null if the solutions are written in the order they are found.
+     */
+    private final File sortDirectory;
+    private final List<byte[]> run = new ArrayList<>();
+    private final List<File> runFiles = new ArrayList<>();
+
+    /**
+     * @param printer       prints a solution; solutions printed as blank are skipped
+     * @param solutionFile  the file storing the solutions written, to recognize the solutions written before; it is
+     *                      deleted when the writer is closed
+     * @param sortDirectory the directory for the runs of the external sort, or null to write unsorted solutions
+     */
+    public SearchResultWriter(OutputStream out, Function<K, byte[]> printer, File solutionFile, File sortDirectory) {
+        this(out, printer, solutionFile, sortDirectory, RUN_SIZE);
+    }
+
+    SearchResultWriter(OutputStream out, Function<K, byte[]> printer, File solutionFile, File sortDirectory, int runSize) {
+        this.runSize = runSize;
+        this.out = out;
+        this.printer = printer;
+        this.solutionFile = solutionFile;
+        this.sortDirectory = sortDirectory;
+    }
+
+    /**
+     * Writes the given solution, unless it is equal to a solution written before.
+     */
+    public void accept(K solution) {
+        try {
+            if (isWritten(solution)) {
+                return;
+            }
+            byte[] printed = printer.apply(solution);
+            if (isBlank(printed)) {
+                return;
+            }
+            store(solution);
+            if (sortDirectory == null) {
+                write(printed);
+            } else {
+                run.add(printed);
+                if (run.size() == runSize) {
+                    spillRun();
+                }
+            }
+        } catch (IOException e) {
+            throw KEMException.criticalError("Could not write search results", e);
+        }
+    }
+
+    /**
+     * Returns the number of distinct solutions written so far.
+     */
+    public int solutionCount() {
+        return offsets.size();
+    }
+
+    private static boolean isBlank(byte[] printed) {
+        for (byte b : printed) {
+            if ((b & 0xff) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isWritten(K solution) throws IOException {
+        for (long offset : offsets.get(solution.hashCode())) {
+            solutions.seek(offset);
+            byte[] bytes = new byte[solutions.readInt()];
+            solutions.readFully(bytes);
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                if (solution.equals(in.readObject())) {
+                    return true;
+                }
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+        return false;
+    }
+
+    private void store(K solution) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+            objectOut.writeObject(solution);
+        }
+        ByteArrayOutputStream record = new ByteArrayOutputStream(bytes.size() + 4);
+        DataOutputStream recordOut = new DataOutputStream(record);
+        recordOut.writeInt(bytes.size());
+        bytes.writeTo(recordOut);
+        if (solutions == null) {
+            solutionFile.getAbsoluteFile().getParentFile().mkdirs();
+            solutions = new RandomAccessFile(solutionFile, "rw");
+            solutions.setLength(0);
+        }
+        long offset = solutions.length();
+        solutions.seek(offset);
+        solutions.write(record.toByteArray());
+        offsets.put(solution.hashCode(), offset);
+    }
+
+    /**
+     * Writes the remaining solutions, or a message if there were none, and closes the output stream.
+     */
+    @Override
+    public void close() {
+        try {
+            if (sortDirectory != null) {
+                if (runFiles.isEmpty()) {
+                    run.sort(ORDER);
+                    for (byte[] printed : run) {
+                        write(printed);
+                    }
+                } else {
+                    if (!run.isEmpty()) {
+                        spillRun();
+                    }
+                    mergeRuns();
+                }
+                run.clear();
+            }
+            if (index == 1) {
+                out.write("No Search Results\n".getBytes());
+            }
+            out.close();
+        } catch (IOException e) {
+            throw KEMException.criticalError("Could not write search results", e);
+        } finally {
+            try {
+                if (solutions != null) {
+                    solutions.close();
+                }
+            } catch (IOException e) {
+                // the file is deleted anyway
+            }
+            solutionFile.delete();
+        }
+    }
+
+    private void write(byte[] printed) throws IOException {
+        out.write(("Solution " + index++ + "\n").getBytes());
+        out.write(printed);
+    }
+
+    private void spillRun() throws IOException {
+        run.sort(ORDER);
+        sortDirectory.mkdirs();
+        File runFile = new File(sortDirectory, "run" + runFiles.size());
+        try (DataOutputStream runOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile)))) {
+            for (byte[] printed : run) {
+                runOut.writeInt(printed.length);
+                runOut.write(printed);
+            }
+        }
+        runFiles.add(runFile);
+        run.clear();
+    }
+
+    /**
+     * A sorted run being merged, positioned on its smallest solution not written yet.
+     */
+    private static class RunReader {
+        private final DataInputStream in;
+        private byte[] head;
+
+        RunReader(File runFile) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(runFile)));
+            advance();
+        }
+
+        /**
+         * Moves to the next solution of the run, and returns false if there is none.
+         */
+        boolean advance() throws IOException {
+            try {
+                head = new byte[in.readInt()];
+            } catch (EOFException e) {
+                in.close();
+                head = null;
+                return false;
+            }
+            in.readFully(head);
+            return true;
+        }
+    }
+
+    private void mergeRuns() throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(runFiles.size(), (r1, r2) -> ORDER.compare(r1.head, r2.head));
+        try {
+            for (File runFile : runFiles) {
+                RunReader reader = new RunReader(runFile);
+                if (reader.head != null) {
+                    queue.add(reader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                write(reader.head);
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+        } finally {
+            for (RunReader reader : queue) {
+                reader.in.close();
+            }
+            runFiles.forEach(File::delete);
+        }
+    }
+}
@@ -11,11 +11,14 @@ import org.kframework.kore.K;
 import org.kframework.kore.KORE;
 import org.kframework.krun.KRun;
 import org.kframework.krun.KRunOptions;
+import org.kframework.krun.SearchResultWriter;
+import org.kframework.rewriter.SearchObserver;
 import org.kframework.utils.errorsystem.KExceptionManager;
 import org.kframework.utils.file.FileUtil;
 import scala.Tuple2;
 
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -40,13 +43,14 @@ public class KRunExecutionMode implements ExecutionMode {
             pattern = KRun.compilePattern(files, kem, kRunOptions.pattern, kRunOptions, compiledDefinition, Source.apply("<command line>"));
         }
         if (kRunOptions.search()) {
+            boolean resultsAsSubstitution = pattern != null;
             if (pattern == null) {
                 pattern = new Rule(KORE.KVariable("X"), BooleanUtils.TRUE, BooleanUtils.TRUE, KORE.Att());
-                return rewriter.search(k, Optional.ofNullable(kRunOptions.depth), Optional.ofNullable(kRunOptions.bound), pattern, kRunOptions.searchType(), false);
             }
-            else {
-                return rewriter.search(k, Optional.ofNullable(kRunOptions.depth), Optional.ofNullable(kRunOptions.bound), pattern, kRunOptions.searchType(), true);
+            if (kRunOptions.experimental.streamSearchResults) {
+                return streamSearch(k, rewriter, compiledDefinition, pattern, resultsAsSubstitution);
             }
+            return rewriter.search(k, Optional.ofNullable(kRunOptions.depth), Optional.ofNullable(kRunOptions.bound), pattern, kRunOptions.searchType(), resultsAsSubstitution);
         }
         if (kRunOptions.exitCodePattern != null) {
             Rule exitCodePattern = KRun.compilePattern(files, kem, kRunOptions.exitCodePattern, kRunOptions, compiledDefinition, Source.apply("<command line: --exit-code>"));
@@ -64,4 +68,31 @@ public class KRunExecutionMode implements ExecutionMode {
         }
         return rewriter.execute(k, Optional.ofNullable(kRunOptions.depth)).k();
     }
+
+    /**
+     * Writes the results of the search as soon as the rewriter finds them, and reports the progress of the search
+     * if statistics are requested.
+     *
+     * @return the exit code of krun
+     */
+    private int streamSearch(K k, Rewriter rewriter, CompiledDefinition compiledDefinition, Rule pattern, boolean resultsAsSubstitution) {
+        try (SearchResultWriter writer = KRun.searchResultWriter(kRunOptions, compiledDefinition, files, kem)) {
+            rewriter.search(k, Optional.ofNullable(kRunOptions.depth), Optional.ofNullable(kRunOptions.bound), pattern, kRunOptions.searchType(), resultsAsSubstitution,
+                    new SearchObserver() {
+                        @Override
+                        public void result(K result) {
+                            writer.accept(result);
+                        }
+
+                        @Override
+                        public void progress(int frontierSize, int visitedCount) {
+                            if (kRunOptions.experimental.statistics) {
+                                System.err.println("[" + frontierSize + " frontier, " + visitedCount + " visited]");
+                            }
+                        }
+                    },
+                    new AtomicBoolean(false));
+        }
+        return 0;
+    }
 }
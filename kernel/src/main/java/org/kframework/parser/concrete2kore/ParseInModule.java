@@ -88,12 +88,22 @@ public class ParseInModule implements Serializable {
         return parseString(input, startSymbol, source, 1, 1);
     }
 
-    private void getGrammar() {
+    /**
+     * Returns the grammar of the parsing module, generating it on first use. Callers parsing from several threads
+     * should call this once beforehand, so that the threads do not wait for the generation.
+     */
+    public Grammar getGrammar() {
         Grammar g = grammar;
         if (g == null) {
-            g = KSyntax2GrammarStatesFilter.getGrammar(this.parsingModule);
-            grammar = g;
+            synchronized (this) {
+                g = grammar;
+                if (g == null) {
+                    g = KSyntax2GrammarStatesFilter.getGrammar(this.parsingModule);
+                    grammar = g;
+                }
+            }
         }
+        return g;
     }
 
     public Tuple2<Either<Set<ParseFailedException>, K>, Set<ParseFailedException>>
@@ -147,11 +147,19 @@ public class RuleGrammarGenerator {
      */
     public static Module getProgramsGrammar(Module mod, Definition baseK) {
         assert baseK.modules().contains(mod);
+        return getProgramsGrammar(mod, name -> baseK.getModule(name).get());
+    }
+
+    /**
+     * Like {@link #getProgramsGrammar(Module, Definition)}, but looks up the modules of the base K definition by
+     * name with the given function.
+     */
+    public static Module getProgramsGrammar(Module mod, Function<String, Module> baseK) {
         // import PROGRAM-LISTS so user lists are modified to parse programs
-        scala.collection.Set<Module> modules = Set(mod, baseK.getModule(PROGRAM_LISTS).get(), baseK.getModule(SORT_K).get());
+        scala.collection.Set<Module> modules = Set(mod, baseK.apply(PROGRAM_LISTS), baseK.apply(SORT_K));
 
         if (!mod.name().endsWith(POSTFIX) && stream(mod.importedModules()).anyMatch(m -> m.name().equals(ID))) {
-            Module idProgramParsingModule = baseK.getModule(ID_PROGRAM_PARSING).get();
+            Module idProgramParsingModule = baseK.apply(ID_PROGRAM_PARSING);
             modules = add(idProgramParsingModule, modules);
         }
         return Module.apply(mod.name() + POSTFIX, modules, Set(), Att());
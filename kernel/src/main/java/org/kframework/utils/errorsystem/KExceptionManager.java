@@ -17,9 +17,14 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class KExceptionManager {
     private final List<KException> exceptions = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * The list recording the exceptions registered by the current thread, if any; see {@link #recording}.
+     */
+    private final ThreadLocal<List<KException>> recorded = new ThreadLocal<>();
 
     private final GlobalOptions options;
 
@@ -93,7 +98,7 @@ public class KExceptionManager {
     }
 
     public void addKException(KException kex) {
-        exceptions.add(kex);
+        add(kex);
     }
 
     public void addAllKException(Collection<KException> kex) {
@@ -179,7 +184,7 @@ public class KExceptionManager {
     private void registerInternal(KException exception, boolean _throw) {
         if (!options.warnings.includesExceptionType(exception.type))
             return;
-        exceptions.add(exception);
+        add(exception);
         if (_throw && (exception.type == ExceptionType.ERROR || options.warnings2errors)) {
             throw new KEMException(exception);
         }
@@ -202,7 +207,29 @@ public class KExceptionManager {
     }
 
     public void registerThrown(KEMException e) {
-        exceptions.add(e.exception);
+        add(e.exception);
+    }
+
+    private void add(KException exception) {
+        exceptions.add(exception);
+        List<KException> recording = recorded.get();
+        if (recording != null) {
+            recording.add(exception);
+        }
+    }
+
+    /**
+     * Computes the given value, adding the exceptions it registers on the current thread to the given list, other
+     * than those registered within a nested call of this method. The exceptions are registered as usual too.
+     */
+    public <T> T recording(Supplier<T> computation, List<KException> recording) {
+        List<KException> outer = recorded.get();
+        recorded.set(recording);
+        try {
+            return computation.get();
+        } finally {
+            recorded.set(outer);
+        }
     }
 
     public List<KException> getExceptions() {
@@ -4,6 +4,7 @@ package org.kframework.utils.inject;
 import org.kframework.kil.Definition;
 import org.kframework.kil.loader.Context;
 import org.kframework.kompile.CompiledDefinition;
+import org.kframework.kompile.CompiledDefinitionFormat;
 import org.kframework.kompile.KompileOptions;
 import org.kframework.krun.KRunOptions;
 import org.kframework.main.GlobalOptions;
@@ -46,8 +47,8 @@ public class DefinitionLoadingModule {
         return loader.loadOrDie(Definition.class, files.resolveKompiled("definition.bin"));
     }
 
-    public static CompiledDefinition koreDefinition(BinaryLoader loader, FileUtil files) {
-        return loader.loadOrDie(CompiledDefinition.class, files.resolveKompiled("compiled.bin"));
+    public static CompiledDefinition koreDefinition(FileUtil files) {
+        return CompiledDefinitionFormat.loadOrDie(files.resolveKompiled("compiled.bin"));
     }
 
     public static KompileOptions kompileOptions(Context context, CompiledDefinition compiledDef, FileUtil files) {
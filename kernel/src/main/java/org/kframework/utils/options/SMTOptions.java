@@ -38,4 +38,10 @@ public class SMTOptions implements Serializable {
 
     @Parameter(names="--z3-impl-timeout", description="The default soft timeout (in milli seconds) of Z3 for checking implication.")
     public int z3ImplTimeout = 5000;
+
+    @Parameter(names="--z3-sessions", description="The maximum number of Z3 instances used to check queries concurrently.")
+    public int z3Sessions = Runtime.getRuntime().availableProcessors();
+
+    @Parameter(names="--smt-cache", description="Save the results of SMT queries in the kompiled directory, and reuse the results saved by previous runs.")
+    public boolean smtCache = false;
 }
@@ -0,0 +1,59 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.debugger;
+
+import org.junit.Test;
+import org.kframework.kore.K;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.kframework.kore.KORE.*;
+
+public class CheckpointStoreTest {
+
+    private K configuration(int i) {
+        return KApply(KLabel("<T>"),
+                KApply(KLabel("<k>"), KSequence(KToken(Integer.toString(i), Sort("Int")), KApply(KLabel("foo")))),
+                KApply(KLabel("<state>"), KApply(KLabel("_|->_"), KToken("x", Sort("Id")), KToken("1", Sort("Int")))));
+    }
+
+    private void testHistory(CheckpointStore store) {
+        List<Checkpoint> checkpoints = new ArrayList<>();
+        Checkpoint last = null;
+        for (int i = 0; i < 3 * CheckpointStore.FULL_CHECKPOINT_INTERVAL; i++) {
+            last = store.add(last, 10 * i, configuration(i));
+            checkpoints.add(last);
+        }
+        for (int i = 0; i < checkpoints.size(); i++) {
+            assertEquals(configuration(i), store.load(checkpoints.get(i)));
+        }
+        assertEquals(checkpoints.get(4), last.floor(45));
+        assertEquals(checkpoints.get(0), last.first());
+        assertNull(last.floor(-1));
+    }
+
+    @Test
+    public void testHeap() {
+        testHistory(new CheckpointStore());
+    }
+
+    @Test
+    public void testSpill() throws Exception {
+        File tmp = File.createTempFile("checkpoints", null);
+        tmp.deleteOnExit();
+        try (CheckpointStore store = new CheckpointStore(tmp)) {
+            testHistory(store);
+        }
+        assertFalse(tmp.exists());
+    }
+
+    @Test
+    public void testDelta() {
+        byte[] base = {1, 2, 3, 4, 5};
+        byte[] target = {1, 2, 9, 9, 4, 5};
+        assertArrayEquals(target, CheckpointStore.applyDelta(base, CheckpointStore.delta(base, target)));
+        assertArrayEquals(base, CheckpointStore.applyDelta(target, CheckpointStore.delta(target, base)));
+    }
+}
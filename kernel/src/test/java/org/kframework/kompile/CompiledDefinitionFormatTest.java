@@ -0,0 +1,126 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.kompile;
+
+import org.junit.Test;
+import org.kframework.attributes.Att;
+import org.kframework.definition.Definition;
+import org.kframework.definition.Module;
+import org.kframework.definition.Sentence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+import static org.kframework.Collections.*;
+import static org.kframework.definition.Constructors.SyntaxSort;
+import static org.kframework.kore.KORE.*;
+
+public class CompiledDefinitionFormatTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Module a = new Module("A", Set(), Set(), Att());
+        Module main = new Module("MAIN", Set(a), Set(), Att());
+        Module languageParsing = new Module("LANGUAGE-PARSING", Set(a), Set(), Att());
+        Definition parsed = Definition.apply(main, Set(main), Att().add(Att.syntaxModule(), "MAIN"));
+        Definition kompiled = Definition.apply(main, Set(main, languageParsing), Att());
+        CompiledDefinition def = new CompiledDefinition(new KompileOptions(), parsed, kompiled, KLabel("<generatedTop>"));
+
+        File file = Files.createTempFile("compiled", ".bin").toFile();
+        try {
+            CompiledDefinitionFormat.saveOrDie(file, def);
+            CompiledDefinition loaded = CompiledDefinitionFormat.loadOrDie(file);
+            assertEquals(def.topCellInitializer, loaded.topCellInitializer);
+            assertEquals(main, loaded.executionModule());
+            assertEquals(languageParsing, loaded.languageParsingModule());
+            assertSame(loaded.executionModule().imports().head(), loaded.languageParsingModule().imports().head());
+            assertSame(loaded.executionModule(), loaded.getKompiledDefinition().mainModule());
+            assertEquals(parsed, loaded.getParsedDefinition());
+            assertEquals("MAIN", loaded.mainSyntaxModuleName());
+            assertEquals(a, loaded.getKompiledModule("A").get());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * A definition whose main module imports a chain of the given number of modules, each importing the previous one.
+     */
+    private static CompiledDefinition chain(int length) {
+        Module module = new Module("M0", Set(), sentences(0), Att());
+        for (int i = 1; i < length; i++) {
+            module = new Module("M" + i, Set(module), sentences(i), Att());
+        }
+        Module main = new Module("MAIN", Set(module), Set(), Att());
+        Module languageParsing = new Module("LANGUAGE-PARSING", Set(), Set(), Att());
+        Definition parsed = Definition.apply(main, Set(main), Att().add(Att.syntaxModule(), "MAIN"));
+        Definition kompiled = Definition.apply(main, Set(main, languageParsing), Att());
+        return new CompiledDefinition(new KompileOptions(), parsed, kompiled, KLabel("<generatedTop>"));
+    }
+
+    private static scala.collection.Set<Sentence> sentences(int module) {
+        java.util.Set<Sentence> sentences = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            sentences.add(SyntaxSort(Sort("S" + module + "x" + i)));
+        }
+        return immutable(sentences);
+    }
+
+    private static int savedSize(CompiledDefinition def) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompiledDefinitionFormat.save(out, def);
+        return out.size();
+    }
+
+    @Test
+    public void testSizeIsLinearInImports() throws IOException {
+        int small = savedSize(chain(20));
+        int large = savedSize(chain(40));
+        assertTrue(small + " then " + large, large < 3 * small);
+    }
+
+    @Test
+    public void testLoadOneModule() throws IOException {
+        File file = Files.createTempFile("compiled", ".bin").toFile();
+        try {
+            CompiledDefinitionFormat.saveOrDie(file, chain(10));
+            CompiledDefinitionFormat format = CompiledDefinitionFormat.open(file);
+            assertEquals("MAIN", format.mainSyntaxModuleName());
+            assertEquals(1, format.decodedSections());
+            Module module = format.kompiledModule("M2").get();
+            assertEquals(4, format.decodedSections());
+            assertEquals(20, module.unresolvedLocalSentences().size());
+            assertEquals("M1", module.imports().head().name());
+            assertEquals("M0", module.imports().head().imports().head().name());
+            assertFalse(format.kompiledModule("M10").isDefined());
+            assertEquals(4, format.decodedSections());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLoadOneParsedModule() throws IOException {
+        File file = Files.createTempFile("compiled", ".bin").toFile();
+        try {
+            CompiledDefinitionFormat.saveOrDie(file, chain(10));
+            CompiledDefinitionFormat format = CompiledDefinitionFormat.open(file);
+            assertEquals("MAIN", format.parsedMainModuleName());
+            assertEquals(1, format.decodedSections());
+            Module module = format.parsedModule("M2").get();
+            assertEquals(4, format.decodedSections());
+            assertEquals("M1", module.imports().head().name());
+            assertFalse(format.parsedModule("LANGUAGE-PARSING").isDefined());
+            assertEquals(4, format.decodedSections());
+
+            CompiledDefinition loaded = CompiledDefinitionFormat.loadOrDie(file);
+            assertEquals("MAIN", loaded.parsedMainModuleName());
+            assertEquals(module, loaded.getParsedModule("M2").get());
+        } finally {
+            file.delete();
+        }
+    }
+}
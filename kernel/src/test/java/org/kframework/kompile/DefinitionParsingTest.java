@@ -0,0 +1,63 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.kompile;
+
+import org.junit.Test;
+import org.kframework.DefinitionParser;
+import org.kframework.attributes.Source;
+import org.kframework.main.GlobalOptions;
+import org.kframework.parser.concrete2kore.ParserUtils;
+import org.kframework.utils.errorsystem.KEMException;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class DefinitionParsingTest {
+
+    private static final String DEFINITION =
+            "require \"domains.k\"\n" +
+            "module TEST\n" +
+            "  syntax Foo ::= \"a\" | \"b\" | f(Foo)\n" +
+            "  rule a => b\n" +
+            "  rule f(a) => @@\n" +
+            "  rule f(b) => a\n" +
+            "  rule f(f(a) => b\n" +
+            "  rule a => f(b)\n" +
+            "  rule b => ##\n" +
+            "  context f(HOLE\n" +
+            "endmodule\n";
+
+    /**
+     * Parses the definition with the given number of parsing threads and returns the parsing errors, in the order
+     * in which they are reported.
+     */
+    private static List<String> parseErrors(int parseThreads) {
+        GlobalOptions globalOptions = new GlobalOptions();
+        KExceptionManager kem = new KExceptionManager(globalOptions);
+        FileUtil files = FileUtil.testFileUtil();
+        ParserUtils parserUtils = new ParserUtils(files::resolveWorkingDirectory, kem, globalOptions);
+        DefinitionParsing definitionParsing = new DefinitionParsing(DefinitionParser.defaultLookupDirectories(), true,
+                kem, parserUtils, false, null, false, parseThreads);
+        try {
+            definitionParsing.parseDefinitionAndResolveBubbles(DEFINITION, "TEST", "TEST",
+                    Source.apply("DefinitionParsingTest"), DefinitionParser.defaultLookupDirectories());
+            fail("expected parsing errors");
+        } catch (KEMException e) {
+            // the parsing errors are collected below
+        }
+        return definitionParsing.errors().stream().map(KEMException::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testErrorOrderDoesNotDependOnThreads() {
+        List<String> sequential = parseErrors(1);
+        assertTrue(sequential.size() >= 4);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(sequential, parseErrors(4));
+        }
+        assertEquals(sequential, parseErrors(2));
+    }
+}
@@ -0,0 +1,179 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.kompile;
+
+import org.junit.Test;
+import org.kframework.definition.BasicModuleTransformer;
+import org.kframework.definition.Module;
+import org.kframework.definition.ModuleTransformerCache;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.errorsystem.KException;
+import org.kframework.utils.errorsystem.KExceptionManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.kframework.Collections.*;
+import static org.kframework.definition.Constructors.SyntaxSort;
+import static org.kframework.kore.KORE.*;
+
+public class ModuleCacheTest {
+
+    private static class Renaming extends BasicModuleTransformer {
+        final List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public Module process(Module input, scala.collection.Set<Module> alreadyProcessedImports) {
+            processed.add(input.name());
+            return new Module(input.name() + "'", alreadyProcessedImports, input.localSentences(), input.att());
+        }
+    }
+
+    private static class Warning extends BasicModuleTransformer {
+        final KExceptionManager kem;
+
+        Warning(KExceptionManager kem) {
+            this.kem = kem;
+        }
+
+        @Override
+        public Module process(Module input, scala.collection.Set<Module> alreadyProcessedImports) {
+            kem.registerCompilerWarning("Processed " + input.name());
+            return new Module(input.name(), alreadyProcessedImports, input.localSentences(), input.att());
+        }
+    }
+
+    private static Module apply(ModuleCache cache, Module module, BasicModuleTransformer transformer) {
+        transformer.cached();
+        return ModuleTransformerCache.withCache(cache, () -> transformer.apply(module));
+    }
+
+    @Test
+    public void testReuseAcrossRuns() throws IOException {
+        Module a = new Module("A", Set(), Set(), Att());
+        Module b = new Module("B", Set(a), Set(), Att());
+        Module c = new Module("C", Set(a), Set(), Att());
+        Module d = new Module("D", Set(b, c), Set(), Att());
+        KExceptionManager kem = new KExceptionManager(new GlobalOptions());
+        KompileOptions options = new KompileOptions();
+        File file = File.createTempFile("modules", ".bin");
+        file.delete();
+        try {
+            ModuleCache first = new ModuleCache(file, options, kem);
+            Module expected = apply(first, d, new Renaming());
+            first.save();
+            assertEquals(4, first.processed.get());
+
+            Module changedC = new Module("C", Set(a), Set(), Att().add("changed"));
+            Module changedD = new Module("D", Set(b, changedC), Set(), Att());
+            ModuleCache second = new ModuleCache(file, options, kem);
+            Renaming renaming = new Renaming();
+            Module result = apply(second, changedD, renaming);
+            Collections.sort(renaming.processed);
+            assertEquals(Arrays.asList("C", "D"), renaming.processed);
+            assertEquals(2, second.reused.get());
+            assertEquals(stream(expected.imports()).filter(m -> m.name().equals("B'")).findAny(),
+                    stream(result.imports()).filter(m -> m.name().equals("B'")).findAny());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testHashIgnoresOrderOfSentences() throws IOException {
+        Module a = new Module("A", Set(), Set(SyntaxSort(Sort("X")), SyntaxSort(Sort("Y"))), Att());
+        Module reordered = new Module("A", Set(), Set(SyntaxSort(Sort("Y")), SyntaxSort(Sort("X"))), Att());
+        KExceptionManager kem = new KExceptionManager(new GlobalOptions());
+        File file = File.createTempFile("modules", ".bin");
+        file.delete();
+        try {
+            ModuleCache first = new ModuleCache(file, new KompileOptions(), kem);
+            Module expected = apply(first, a, new Renaming());
+            first.save();
+
+            ModuleCache second = new ModuleCache(file, new KompileOptions(), kem);
+            Renaming renaming = new Renaming();
+            Module result = apply(second, reordered, renaming);
+            assertEquals(Collections.emptyList(), renaming.processed);
+            assertEquals(1, second.reused.get());
+            assertEquals(expected, result);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testWarningsAreReportedOnReuse() throws IOException {
+        Module a = new Module("A", Set(), Set(), Att());
+        Module b = new Module("B", Set(a), Set(), Att());
+        Module c = new Module("C", Set(a), Set(), Att());
+        Module d = new Module("D", Set(b, c), Set(), Att());
+        File file = File.createTempFile("modules", ".bin");
+        file.delete();
+        try {
+            KExceptionManager firstKem = new KExceptionManager(new GlobalOptions());
+            ModuleCache first = new ModuleCache(file, new KompileOptions(), firstKem);
+            Warning parallel = new Warning(firstKem);
+            parallel.inParallel();
+            apply(first, d, parallel);
+            first.save();
+            assertEquals(Arrays.asList("Processed A", "Processed B", "Processed C", "Processed D"), messages(firstKem));
+
+            KExceptionManager secondKem = new KExceptionManager(new GlobalOptions());
+            ModuleCache second = new ModuleCache(file, new KompileOptions(), secondKem);
+            apply(second, d, new Warning(secondKem));
+            assertEquals(0, second.processed.get());
+            assertEquals(messages(firstKem), messages(secondKem));
+            second.save();
+
+            KExceptionManager thirdKem = new KExceptionManager(new GlobalOptions());
+            ModuleCache third = new ModuleCache(file, new KompileOptions(), thirdKem);
+            apply(third, d, new Warning(thirdKem));
+            assertEquals(messages(firstKem), messages(thirdKem));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testOnlyPassOptionsInvalidate() throws IOException {
+        Module a = new Module("A", Set(), Set(), Att());
+        KExceptionManager kem = new KExceptionManager(new GlobalOptions());
+        File file = File.createTempFile("modules", ".bin");
+        file.delete();
+        try {
+            KompileOptions options = new KompileOptions();
+            options.experimental.parseThreads = 1;
+            ModuleCache first = new ModuleCache(file, options, kem);
+            apply(first, a, new Renaming());
+            first.save();
+
+            KompileOptions otherRun = new KompileOptions();
+            otherRun.experimental.parseThreads = 8;
+            otherRun.experimental.incremental = true;
+            otherRun.outerParsing.directory = "elsewhere";
+            ModuleCache second = new ModuleCache(file, otherRun, kem);
+            apply(second, a, new Renaming());
+            assertEquals(1, second.reused.get());
+            assertEquals(0, second.processed.get());
+
+            KompileOptions otherPasses = new KompileOptions();
+            otherPasses.transition = Arrays.asList("transition", "other");
+            ModuleCache third = new ModuleCache(file, otherPasses, kem);
+            apply(third, a, new Renaming());
+            assertEquals(0, third.reused.get());
+            assertEquals(1, third.processed.get());
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static List<String> messages(KExceptionManager kem) {
+        return kem.getExceptions().stream().map(KException::getMessage).sorted().collect(Collectors.toList());
+    }
+}
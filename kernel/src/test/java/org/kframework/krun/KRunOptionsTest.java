@@ -6,6 +6,7 @@ import static org.junit.Assert.*;
 import java.util.Arrays;
 
 import org.junit.Test;
+import org.kframework.rewriter.SearchStrategy;
 
 import com.beust.jcommander.JCommander;
 
@@ -27,6 +28,16 @@ public class KRunOptionsTest {
         assertFalse(options.io());
     }
 
+    @Test
+    public void testSearchStrategy() {
+        KRunOptions options = new KRunOptions();
+        new JCommander(options, "--search", "--search-strategy", "iterative-deepening");
+        assertEquals(SearchStrategy.ITERATIVE_DEEPENING, options.experimental.searchStrategy);
+        options = new KRunOptions();
+        new JCommander(options, "--search");
+        assertEquals(SearchStrategy.BREADTH_FIRST, options.experimental.searchStrategy);
+    }
+
     @Test
     public void testSimulation() {
         KRunOptions options = new KRunOptions();
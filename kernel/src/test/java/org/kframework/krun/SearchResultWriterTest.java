@@ -0,0 +1,67 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.krun;
+
+import org.junit.Test;
+import org.kframework.kore.K;
+import org.kframework.kore.KToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+import static org.kframework.kore.KORE.*;
+
+public class SearchResultWriterTest {
+
+    private static byte[] print(K k) {
+        return (((KToken) k).s() + "\n").getBytes();
+    }
+
+    private String write(File sortDirectory, int runSize, String... solutions) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        File solutionFile;
+        try {
+            solutionFile = File.createTempFile("searchSolutions", ".bin");
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        try (SearchResultWriter writer = new SearchResultWriter(out, SearchResultWriterTest::print, solutionFile, sortDirectory, runSize)) {
+            for (String solution : solutions) {
+                writer.accept(KToken(solution, Sort("Int")));
+            }
+        }
+        assertFalse(solutionFile.exists());
+        return out.toString();
+    }
+
+    @Test
+    public void testUnsorted() {
+        assertEquals("Solution 1\n3\nSolution 2\n1\nSolution 3\n2\n", write(null, 2, "3", "1", "3", "2", "1"));
+    }
+
+    @Test
+    public void testSameHash() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertEquals(KToken("Aa", Sort("Int")).hashCode(), KToken("BB", Sort("Int")).hashCode());
+        assertEquals("Solution 1\nAa\nSolution 2\nBB\n", write(null, 2, "Aa", "BB", "Aa", "BB"));
+    }
+
+    @Test
+    public void testNoResults() {
+        assertEquals("No Search Results\n", write(null, 2, " "));
+    }
+
+    @Test
+    public void testExternalSort() throws IOException {
+        File sortDirectory = Files.createTempDirectory("searchResults").toFile();
+        try {
+            assertEquals("Solution 1\n1\nSolution 2\n2\nSolution 3\n3\nSolution 4\n4\nSolution 5\n5\n",
+                    write(sortDirectory, 2, "4", "2", "5", "2", "1", "3", "4"));
+            assertArrayEquals(new String[0], sortDirectory.list());
+        } finally {
+            sortDirectory.delete();
+        }
+    }
+}
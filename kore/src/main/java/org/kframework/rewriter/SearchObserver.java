@@ -0,0 +1,25 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.rewriter;
+
+import org.kframework.kore.K;
+
+/**
+ * Receives the results of a search as soon as they are found, and its progress while it runs. Called by the thread
+ * which started the search, never concurrently.
+ */
+@FunctionalInterface
+public interface SearchObserver {
+
+    /**
+     * Called with each result of the search, in the order in which they are found.
+     */
+    void result(K result);
+
+    /**
+     * Called periodically while the search runs.
+     *
+     * @param frontierSize the number of states found but not yet expanded
+     * @param visitedCount the number of states visited so far
+     */
+    default void progress(int frontierSize, int visitedCount) { }
+}
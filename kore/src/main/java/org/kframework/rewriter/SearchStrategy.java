@@ -0,0 +1,23 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.rewriter;
+
+/**
+ * The order in which a search explores the transition system.
+ * {@link SearchType} determines which of the explored states are reported.
+ */
+public enum SearchStrategy {
+    /**
+     * Explores the states one depth at a time. Keeps an entire frontier in memory.
+     */
+    BREADTH_FIRST,
+    /**
+     * Follows one path as deep as possible before backtracking. Keeps only the current path in memory, besides
+     * the visited states.
+     */
+    DEPTH_FIRST,
+    /**
+     * Repeats a depth-limited depth-first search with increasing limits. Reports results in the same depth order as
+     * the breadth-first search, but keeps only the current path in memory, without any visited states.
+     */
+    ITERATIVE_DEEPENING
+}
@@ -7,9 +7,10 @@ import org.kframework.definition
 import org.kframework.kore.K
 import org.kframework.utils.errorsystem.KEMException
 
+import java.util.concurrent.{CompletableFuture, ConcurrentHashMap, ExecutionException, ForkJoinPool}
+
 import collection.JavaConverters._
 import collection._
-import scala.collection.immutable.Stack
 
 object ModuleTransformer {
   def fromSentenceTransformer(sentenceTransformer: Sentence => Sentence, passName: String): MemoizingModuleTransformer =
@@ -71,19 +72,95 @@ abstract class ModuleTransformer extends (Module => Module) {
 }
 
 /**
-  * A module transformer with memoization
+  * A module transformer with memoization.
+  *
+  * The memoization table holds a future per module, so concurrent applications of the transformer do not block
+  * each other, and a module is processed once even if it is requested by several threads. If the transformer is
+  * [[inParallel]], the imports of a module are submitted to the common fork-join pool before the module itself is
+  * processed, so the independent modules of the import graph are processed in parallel. The transformer must then be
+  * safe to call from several threads; the result does not depend on the order in which the modules are processed.
   */
 abstract class MemoizingModuleTransformer extends ModuleTransformer {
-  val memoization = mutable.Map[Module, Module]()
-  var currentProcessedModules = Stack[Module]()
-
-  override def apply(input: Module): Module = this.synchronized {
-    if (currentProcessedModules.contains(input))
-      throw new AssertionError("Found a cycle on: " + input.name + " with chain: " + currentProcessedModules.map(_.name).toList.reverse.mkString(" -> "))
-    currentProcessedModules = currentProcessedModules.push(input)
-    val res = wrapExceptions(memoization.getOrElseUpdate(input, {processModule(input)}))
-    currentProcessedModules = currentProcessedModules.pop
-    res
+  private val memo = new ConcurrentHashMap[Module, CompletableFuture[Module]]()
+  /**
+    * The chain of modules being processed by the current thread, the innermost first
+    */
+  private val currentProcessedModules = new ThreadLocal[List[Module]] {
+    override def initialValue(): List[Module] = List()
+  }
+  @volatile private var parallelImports = false
+  @volatile private var reusable = false
+
+  /**
+    * Processes the imports of each module in parallel. Should only be called on transformers which are safe
+    * to call concurrently.
+    */
+  def inParallel(): this.type = {
+    parallelImports = true
+    this
+  }
+
+  /**
+    * Reuses the results of the transformer stored in the current [[ModuleTransformerCache]], if any. Should only be
+    * called on transformers whose result is determined by the module, its imports and the kompile options.
+    */
+  def cached(): this.type = {
+    reusable = true
+    this
+  }
+
+  /**
+    * The modules successfully transformed so far, with their results
+    */
+  def memoization: Map[Module, Module] =
+    memo.asScala.collect({ case (m, f) if f.isDone && !f.isCompletedExceptionally => (m, f.get) }).toMap
+
+  override def apply(input: Module): Module = try {
+    compute(input, currentProcessedModules.get).get
+  } catch {
+    case e: ExecutionException => throw e.getCause
+  }
+
+  /**
+    * Returns the future result for the given module, processing it on the current thread unless some thread
+    * started processing it already.
+    *
+    * @param chain the modules whose processing requested this one, the innermost first
+    */
+  private def compute(input: Module, chain: List[Module]): CompletableFuture[Module] = {
+    if (chain.contains(input))
+      throw new AssertionError("Found a cycle on: " + input.name + " with chain: " + chain.map(_.name).reverse.mkString(" -> "))
+    val future = new CompletableFuture[Module]()
+    val existing = memo.putIfAbsent(input, future)
+    if (existing != null)
+      return existing
+
+    val innerChain = input :: chain
+    if (parallelImports) {
+      val cache = ModuleTransformerCache.current
+      input.imports.filterNot(memo.containsKey(_)) foreach { i =>
+        ForkJoinPool.commonPool.execute(new Runnable {
+          // errors are reported by the thread waiting for the import
+          override def run(): Unit = try ModuleTransformerCache.within(cache)(compute(i, innerChain)) catch { case e: Throwable => }
+        })
+      }
+    }
+
+    val outerChain = currentProcessedModules.get
+    currentProcessedModules.set(innerChain)
+    try {
+      future.complete(wrapExceptions(processOrReuse(input)))
+    } catch {
+      case e: Throwable => future.completeExceptionally(e)
+    } finally {
+      currentProcessedModules.set(outerChain)
+    }
+    future
+  }
+
+  private def processOrReuse(input: Module): Module = ModuleTransformerCache.current match {
+    case Some(cache) if reusable => cache.getOrProcess(name, input, processModule)
+    case _ => processModule(input)
   }
 
   protected def processModule(inputModule: Module): Module
@@ -93,6 +170,41 @@ abstract class MemoizingModuleTransformer extends ModuleTransformer {
   def apply(d: Definition): Definition = lift(d)
 }
 
+/**
+  * Stores the results of [[MemoizingModuleTransformer.cached]] transformers, so they can be reused across runs.
+  * The cache applies to the transformers run by the current thread within [[ModuleTransformerCache.withCache]],
+  * and to the imports they submit to be processed in parallel, so pipelines run by different threads may use
+  * different caches.
+  */
+abstract class ModuleTransformerCache {
+  /**
+    * Returns the stored result of the named transformer on the given module, or computes and stores it with process
+    */
+  def getOrProcess(transformerName: String, input: Module, process: Module => Module): Module
+}
+
+object ModuleTransformerCache {
+  private val active = new ThreadLocal[Option[ModuleTransformerCache]] {
+    override def initialValue(): Option[ModuleTransformerCache] = None
+  }
+
+  /**
+    * The cache of the pipeline run by the current thread, if any
+    */
+  def current: Option[ModuleTransformerCache] = active.get
+
+  /**
+    * Makes the given cache current on the current thread while computing body.
+    */
+  def withCache[T](cache: ModuleTransformerCache, body: java.util.function.Supplier[T]): T = within(Some(cache))(body.get)
+
+  private[definition] def within[T](cache: Option[ModuleTransformerCache])(body: => T): T = {
+    val outer = active.get
+    active.set(cache)
+    try body finally active.set(outer)
+  }
+}
+
 /**
   * Marker trait for a ModuleTransformer having access to the entire original definition
   */
@@ -192,6 +304,22 @@ object DefinitionTransformer {
 }
 
 class DefinitionTransformer(moduleTransformer: MemoizingModuleTransformer) extends (Definition => Definition) {
+  /**
+    * Processes the imports of each module in parallel; see [[MemoizingModuleTransformer.inParallel]].
+    */
+  def inParallel(): DefinitionTransformer = {
+    moduleTransformer.inParallel()
+    this
+  }
+
+  /**
+    * Reuses the results of the module transformer; see [[MemoizingModuleTransformer.cached]].
+    */
+  def cached(): DefinitionTransformer = {
+    moduleTransformer.cached()
+    this
+  }
+
   override def apply(d: Definition): Definition = {
     //    definition.Definition(
     //      moduleTransformer(d.mainModule),
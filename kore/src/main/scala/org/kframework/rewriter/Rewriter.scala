@@ -1,13 +1,16 @@
 package org.kframework.rewriter
 
 import java.util.Optional
+import java.util.concurrent.atomic.AtomicBoolean
 
+import org.kframework.builtin.KLabels
 import org.kframework.definition.{Module, Rule}
+import org.kframework.kore.{Assoc, KORE}
 import org.kframework.{RewriterResult, kore}
 
 trait RewriterConstructor extends (Module => Rewriter)
 
-trait Rewriter {
+trait Rewriter extends AutoCloseable {
   //  def normalize(k: K): K
   //  def substitute(k: K, s: KVariable => K): K
 
@@ -36,7 +39,62 @@ trait Rewriter {
    */
   def search(initialConfiguration: kore.K, depth: Optional[Integer], bound: Optional[Integer], pattern: Rule, searchType: SearchType, resultsAsSubstitution:Boolean): kore.K
 
+  /**
+   * Executes a search like [[search]], but passes each result to the observer as soon as it is found.
+   * The search stops early once `cancelled` is set.
+   * The default implementation runs the whole search before passing the results on; rewriters may override it to
+   * report the results and the progress of the search while it runs.
+   */
+  def search(initialConfiguration: kore.K, depth: Optional[Integer], bound: Optional[Integer], pattern: Rule, searchType: SearchType, resultsAsSubstitution: Boolean, observer: SearchObserver, cancelled: AtomicBoolean): Unit =
+    Assoc.flatten(KORE.KLabel(KLabels.ML_OR), Seq(search(initialConfiguration, depth, bound, pattern, searchType, resultsAsSubstitution)), KORE.KLabel(KLabels.ML_FALSE))
+      .foreach(observer.result)
+
   def executeAndMatch(k: kore.K, depth: Optional[Integer], rule: Rule): Tuple2[RewriterResult, kore.K]
 
+  /**
+   * Starts a stepping session from the given configuration.
+   * The default session calls [[execute]] for every request; rewriters may override this to keep the
+   * configuration in their internal representation between the requests.
+   */
+  def startSession(k: kore.K): RewriterSession = new ExecutingRewriterSession(this, k)
+
   def prove(rules: java.util.List[Rule]): java.util.List[kore.K]
+
+  /**
+   * Releases the resources held by the rewriter, e.g., its solver processes, once it is no longer used.
+   */
+  override def close(): Unit = {}
+}
+
+/**
+ * A configuration being rewritten step by step, e.g., by the debugger.
+ */
+trait RewriterSession {
+  /**
+   * Takes at most the given number of rewrite steps from the current configuration.
+   * @return the number of steps actually taken, which is smaller than requested if no rule applies anymore
+   */
+  def step(steps: Int): Int
+
+  /**
+   * The current configuration.
+   */
+  def k: kore.K
+
+  /**
+   * Continues the session from the given configuration, e.g., a checkpoint when stepping back.
+   */
+  def reset(k: kore.K): Unit
+}
+
+class ExecutingRewriterSession(rewriter: Rewriter, private var current: kore.K) extends RewriterSession {
+  override def step(steps: Int): Int = {
+    val result = rewriter.execute(current, Optional.of(steps))
+    current = result.k
+    result.rewriteSteps.orElse(steps).intValue
+  }
+
+  override def k: kore.K = current
+
+  override def reset(k: kore.K): Unit = current = k
 }
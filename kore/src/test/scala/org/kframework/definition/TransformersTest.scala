@@ -0,0 +1,98 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.definition
+
+import java.util.concurrent.{ConcurrentHashMap, ConcurrentLinkedQueue}
+import java.util.function.Supplier
+
+import org.junit.Test
+import org.junit.Assert._
+import org.kframework.attributes.Att
+
+import collection.JavaConverters._
+import collection._
+
+class TransformersTest {
+  val A = Module("A", Set(), Set())
+  val B = Module("B", Set(A), Set())
+  val C = Module("C", Set(A), Set())
+  val D = Module("D", Set(B, C), Set())
+
+  class Renaming extends BasicModuleTransformer {
+    val processed = new ConcurrentLinkedQueue[String]()
+
+    override def process(input: Module, alreadyProcessedImports: Set[Module]): Module = {
+      processed.add(input.name)
+      Module(input.name + "'", alreadyProcessedImports, input.localSentences, input.att)
+    }
+  }
+
+  @Test def parallelMatchesSequential(): Unit = {
+    val sequential = new Renaming()
+    val parallel = new Renaming().inParallel()
+    val expected = sequential(D)
+    assertEquals(expected, parallel(D))
+    assertEquals(Set("A", "B", "C", "D"), parallel.processed.asScala.toSet)
+    assertEquals(4, parallel.processed.size)
+    assertEquals(sequential.memoization, parallel.memoization)
+  }
+
+  @Test def memoizesAcrossCalls(): Unit = {
+    val renaming = new Renaming().inParallel()
+    renaming(B)
+    renaming(D)
+    assertEquals(4, renaming.processed.size)
+    assertEquals(Some(Module("B'", Set(Module("A'", Set(), Set())), Set())), renaming.memoization.get(B))
+  }
+
+  class MapCache extends ModuleTransformerCache {
+    val results = new ConcurrentHashMap[(String, Module), Module]()
+
+    override def getOrProcess(transformerName: String, input: Module, process: Module => Module): Module =
+      Option(results.get((transformerName, input))).getOrElse {
+        val output = process(input)
+        results.put((transformerName, input), output)
+        output
+      }
+  }
+
+  def withCache(cache: ModuleTransformerCache, transformer: Renaming, m: Module): Module =
+    ModuleTransformerCache.withCache(cache, new Supplier[Module] {
+      override def get(): Module = transformer(m)
+    })
+
+  @Test def cachedReusesUnchangedModules(): Unit = {
+    val cache = new MapCache()
+    val first = new Renaming().cached()
+    val expected = withCache(cache, first, D)
+    assertEquals(4, first.processed.size)
+
+    val changedD = Module("D", Set(B, C), Set(), Att().add("changed"))
+    val second = new Renaming().cached()
+    val result = withCache(cache, second, changedD)
+    assertEquals(List("D"), second.processed.asScala.toList)
+    assertEquals(expected.imports, result.imports)
+
+    val uncached = new Renaming()
+    withCache(cache, uncached, D)
+    assertEquals(4, uncached.processed.size)
+  }
+
+  @Test def cacheIsScopedToThePipeline(): Unit = {
+    val cache = new MapCache()
+    withCache(cache, new Renaming().inParallel().cached(), D)
+    assertEquals(4, cache.results.size)
+
+    val E = Module("E", Set(), Set())
+    ModuleTransformerCache.withCache(cache, new Supplier[Unit] {
+      override def get(): Unit = {
+        val other = new Thread(new Runnable {
+          override def run(): Unit = new Renaming().cached()(E)
+        })
+        other.start()
+        other.join()
+      }
+    })
+    assertEquals(4, cache.results.size)
+    assertEquals(None, ModuleTransformerCache.current)
+  }
+}
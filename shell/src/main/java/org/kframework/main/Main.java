@@ -26,6 +26,7 @@ import org.kframework.keq.KeqOptions;
 import org.kframework.kil.Rewrite;
 import org.kframework.kil.loader.Context;
 import org.kframework.kompile.CompiledDefinition;
+import org.kframework.kompile.CompiledDefinitionFormat;
 import org.kframework.kompile.Kompile;
 import org.kframework.kompile.KompileFrontEnd;
 import org.kframework.kompile.KompileOptions;
@@ -234,7 +235,7 @@ public class Main {
 
             // loading kompiled definition
             Context context = null; // DefinitionLoadingModule.context(loader, kRunOptions.configurationCreation.definitionLoading, kRunOptions.global, sw, kem, files, kRunOptions); // TODO: check if 'context.bin' exists
-            CompiledDefinition compiledDef = DefinitionLoadingModule.koreDefinition(loader, files);
+            CompiledDefinition compiledDef = DefinitionLoadingModule.koreDefinition(files);
             KompileOptions kompileOptions = DefinitionLoadingModule.kompileOptions(context, compiledDef, files);
 
             // krun
@@ -243,7 +244,7 @@ public class Main {
             if (kompileOptions.backend.equals(Backends.JAVA)) {
                 //
                 Map<String, MethodHandle> hookProvider = HookProvider.get(kem);
-                InitializeRewriter.InitializeDefinition initializeDefinition = new InitializeRewriter.InitializeDefinition();
+                InitializeRewriter.InitializeDefinition initializeDefinition = new InitializeRewriter.InitializeDefinition(true);
                 //
 
                 //
@@ -278,7 +279,6 @@ public class Main {
             KastOptions kastOptions = new KastOptions();
             KExceptionManager kem = new KExceptionManager(kastOptions.global);
             Stopwatch sw = new Stopwatch(kastOptions.global);
-            BinaryLoader loader = new BinaryLoader(kem);
             JarInfo jarInfo = new JarInfo(kem);
 
             // parsing options
@@ -296,7 +296,7 @@ public class Main {
             FileUtil files = new FileUtil(tempDir, definitionDir, workingDir, kompiledDir, kastOptions.global, env);
 
             kastOptions.setFiles(files);
-            CompiledDefinition compiledDef = DefinitionLoadingModule.koreDefinition(loader, files);
+            CompiledDefinition compiledDef = DefinitionLoadingModule.koreDefinition(files);
             KastFrontEnd frontEnd = new KastFrontEnd(kastOptions, sw, kem, env, files, kompiledDir, compiledDef);
 
             return runApplication(frontEnd, kem);
@@ -383,7 +383,6 @@ public class Main {
             KeqOptions keqOptions = new KeqOptions();
             KExceptionManager kem = new KExceptionManager(keqOptions.global);
             Stopwatch sw = new Stopwatch(keqOptions.global);
-            BinaryLoader loader = new BinaryLoader(kem);
             JarInfo jarInfo = new JarInfo(kem);
 
             // parsing options
@@ -401,9 +400,9 @@ public class Main {
             String prelude = FileUtil.resolveWorkingDirectory(new File(keqOptions.smt.smtPrelude), workingDir).getAbsolutePath();
             String prove   = FileUtil.resolveWorkingDirectory(new File(keqOptions.parameters.get(0)), workingDir).getAbsolutePath();
 
-            CompiledDefinition compiledDef0 = loader.loadOrDie(CompiledDefinition.class, new File(def0File, "compiled.bin"));
-            CompiledDefinition compiledDef1 = loader.loadOrDie(CompiledDefinition.class, new File(def1File, "compiled.bin"));
-            CompiledDefinition compiledDef2 = loader.loadOrDie(CompiledDefinition.class, new File(def2File, "compiled.bin"));
+            CompiledDefinition compiledDef0 = CompiledDefinitionFormat.loadOrDie(new File(def0File, "compiled.bin"));
+            CompiledDefinition compiledDef1 = CompiledDefinitionFormat.loadOrDie(new File(def1File, "compiled.bin"));
+            CompiledDefinition compiledDef2 = CompiledDefinitionFormat.loadOrDie(new File(def2File, "compiled.bin"));
 
             // kequiv
             Kapi.kequiv(compiledDef0, compiledDef1, compiledDef2, prove, prelude);